@@ -0,0 +1,38 @@
+package chess.benchmarks;
+
+import chess.core.GameManager;
+import chess.core.board.Board;
+import chess.core.board.Fen;
+
+/**
+ * Posições representativas usadas pelos benchmarks, uma por fase do jogo.
+ */
+public enum BenchmarkPosition {
+    OPENING("r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3"),                // Abertura italiana
+    MIDDLEGAME("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),          // "Kiwipete"
+    ENDGAME("4k3/1p3q2/2n1b3/5p2/1P2rP2/2NB4/P3RQK1/8 w - - 0 1");
+
+    private final String fen;
+
+    BenchmarkPosition(String fen) {
+        this.fen = fen;
+    }
+
+    /**
+     * Prepara a posição num tabuleiro novo e devolve-o.
+     */
+    public Board load() {
+        Board board = new Board();
+        Fen.load(board, this.fen);
+        return board;
+    }
+
+    /**
+     * Prepara a posição num jogo novo e devolve-o.
+     */
+    public GameManager loadGame() {
+        GameManager game = new GameManager();
+        game.loadPosition(this.fen);
+        return game;
+    }
+}
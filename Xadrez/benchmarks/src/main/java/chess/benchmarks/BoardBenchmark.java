@@ -0,0 +1,40 @@
+package chess.benchmarks;
+
+import chess.core.Square;
+import chess.core.board.Board;
+import chess.core.board.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas do {@link Board} usadas pelas interfaces: casas ocupadas e tabuleiro como lista.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        this.board = this.position.load();
+    }
+
+    @Benchmark
+    public List<Position> getAllPositionOccupied() {
+        return this.board.getAllPositionOccupied();
+    }
+
+    @Benchmark
+    public List<Square> getBoardAsList() {
+        return this.board.getBoardAsList();
+    }
+}
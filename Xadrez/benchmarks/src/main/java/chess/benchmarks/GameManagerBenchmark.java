@@ -0,0 +1,43 @@
+package chess.benchmarks;
+
+import chess.core.GameManager;
+import chess.core.board.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uma jogada completa através da fachada {@link GameManager}, desfeita logo a seguir para que a posição não mude.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameManagerBenchmark {
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    private GameManager game;
+    private String initPosition;
+    private String endPosition;
+
+    @Setup
+    public void setUp() {
+        this.game = this.position.loadGame();
+        Board board = this.position.load();
+        MoveList moves = new MoveList();
+        new RulesMaster(board).generateLegalMoves(moves);
+
+        int move = moves.get(0);
+        this.initPosition = Position.of(PackedMove.from(move)).getPosition();
+        this.endPosition = Position.of(PackedMove.to(move)).getPosition();
+    }
+
+    @Benchmark
+    public boolean play() {
+        this.game.play(this.initPosition, this.endPosition);
+        return this.game.undoMove();
+    }
+}
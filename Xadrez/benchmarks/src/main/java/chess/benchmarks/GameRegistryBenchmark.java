@@ -0,0 +1,73 @@
+package chess.benchmarks;
+
+import chess.core.GameManager;
+import chess.core.GameRegistry;
+import chess.core.PieceColor;
+import chess.core.board.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débito do {@link GameRegistry} com leituras e escritas misturadas: três threads consultam jogos ao acaso
+ * enquanto uma quarta joga e desfaz movimentos. Com {@code stripes = 1} há um único bloqueio para todos os jogos,
+ * para comparar com os bloqueios por faixas; com {@code games = 1} todas as threads disputam o mesmo jogo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameRegistryBenchmark {
+    private static final Position E2 = Position.of("E2");
+
+    @Param({"1", "1024"})
+    public int games;
+
+    @Param({"1", "256"})
+    public int stripes;
+
+    private GameRegistry registry;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        this.registry = new GameRegistry(this.games, this.stripes, null);
+        this.ids = new long[this.games];
+        for (int i = 0; i < this.games; i++) this.ids[i] = this.registry.create();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public List<Position> read() {
+        return this.registry.read(this.randomGame(), game -> game.getValidMoves(E2));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean write() {
+        return this.registry.write(this.randomGame(), game -> {
+            game.play("E2", "E4");
+            return game.undoMove();
+        });
+    }
+
+    /**
+     * Só leituras: mede o caminho otimista, que nunca chega a bloquear.
+     */
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public PieceColor nextPlayer() {
+        return this.registry.read(this.randomGame(), GameManager::nextPlayer);
+    }
+
+    private long randomGame() {
+        return this.ids[ThreadLocalRandom.current().nextInt(this.ids.length)];
+    }
+}
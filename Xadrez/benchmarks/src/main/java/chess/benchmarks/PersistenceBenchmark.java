@@ -0,0 +1,101 @@
+package chess.benchmarks;
+
+import chess.core.GameCodec;
+import chess.core.GameJournal;
+import chess.core.GameManager;
+import chess.core.Serialization;
+import chess.core.XML;
+import chess.core.board.Move;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação e leitura de jogos: formato binário do {@link GameCodec}, comparado com a serialização Java do
+ * {@link GameManager} que usava antes, diário de movimentos ({@link GameJournal}) e exportação do tabuleiro em XML.
+ * Os ficheiros são escritos na pasta "savedFiles" da diretoria de trabalho, como na aplicação; o tamanho de cada
+ * formato é escrito no início.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+    private static final Path SERIALIZED_FILE = Path.of("savedFiles/benchmarkSerialized.bin");
+    private static final Path JOURNAL_FILE = Path.of("savedFiles/benchmarkJournal.bin");
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    private GameManager game;
+    private GameManager journaledGame;
+    private GameJournal journal;
+    private Move move;
+
+    @Setup
+    public void setUp() throws IOException {
+        Files.createDirectories(Path.of("savedFiles"));
+        this.game = this.position.loadGame();
+        Serialization.saveBoardGUI(this.game); // Para que loadBoardGUI leia um ficheiro existente
+        this.saveSerialized();
+        System.out.println("GameCodec: " + Files.size(Path.of("savedFiles/latestChessGameGUI.bin"))
+                + " bytes, serialização Java: " + Files.size(SERIALIZED_FILE) + " bytes");
+
+        this.journaledGame = this.position.loadGame();
+        this.journal = GameJournal.create(this.journaledGame, JOURNAL_FILE, GameJournal.Policy.everyMoves(64));
+        this.move = this.journaledGame.getLegalMoves().getFirst();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.journal.close();
+    }
+
+    @Benchmark
+    public void saveBoardGUI() {
+        Serialization.saveBoardGUI(this.game);
+    }
+
+    @Benchmark
+    public GameManager loadBoardGUI() {
+        return Serialization.loadBoardGUI();
+    }
+
+    /**
+     * Gravação anterior ao {@link GameCodec}, para comparação.
+     */
+    @Benchmark
+    public void saveSerialized() throws IOException {
+        try (ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(SERIALIZED_FILE)))) {
+            output.writeObject(this.game);
+        }
+    }
+
+    @Benchmark
+    public GameManager loadSerialized() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(SERIALIZED_FILE)))) {
+            return (GameManager) input.readObject();
+        }
+    }
+
+    /**
+     * Jogar e desfazer um movimento com o diário: dois registos de poucos bytes, com um "fsync" a cada 64 registos e
+     * um ponto de controlo a cada {@value GameJournal.Policy#DEFAULT_COMPACT_AFTER}. Comparar com duas vezes
+     * {@link #saveBoardGUI()}, que regrava o jogo inteiro.
+     */
+    @Benchmark
+    public boolean journalMove() {
+        this.journaledGame.play(this.move.getInitPosition(), this.move.getEndPosition());
+        return this.journaledGame.undoMove();
+    }
+
+    @Benchmark
+    public void createXML() {
+        XML.create(this.game.getSnapshot());
+    }
+}
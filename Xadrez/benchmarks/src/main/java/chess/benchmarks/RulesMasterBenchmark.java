@@ -0,0 +1,54 @@
+package chess.benchmarks;
+
+import chess.core.PieceColor;
+import chess.core.board.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração de movimentos pelo {@link RulesMaster}: movimentos de uma peça de cada tipo e movimentos que comprometem o rei.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesMasterBenchmark {
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    public Type type;
+
+    private RulesMaster rulesMaster;
+    private Position piecePosition;
+    private Position kingPosition;
+    private PieceColor opponent;
+
+    @Setup
+    public void setUp() {
+        Board board = this.position.load();
+        PieceColor sideToMove = board.getSideToMove();
+        long pieces = board.getPieces(this.type, sideToMove);
+        if (pieces == Bitboard.EMPTY) pieces = board.getPieces(this.type, sideToMove.opposite());
+        if (pieces == Bitboard.EMPTY) throw new IllegalStateException("Posição sem " + this.type + ": " + this.position);
+
+        this.rulesMaster = new RulesMaster(board);
+        this.piecePosition = Position.of(Bitboard.first(pieces));
+        this.kingPosition = Position.of(Bitboard.first(board.getPieces(Type.KING, sideToMove)));
+        this.opponent = sideToMove.opposite();
+    }
+
+    @Benchmark
+    public List<Position> getValidMoves() {
+        return this.rulesMaster.getValidMoves(this.piecePosition);
+    }
+
+    @Benchmark
+    public List<Move> compromisingMoves() {
+        return this.rulesMaster.compromisingMoves(this.kingPosition, this.opponent);
+    }
+}
@@ -0,0 +1,90 @@
+package chess.benchmarks;
+
+import chess.core.board.Board;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Procura do motor com tempo fixo e 1 a 8 threads ("Lazy SMP"). O débito conta procuras concluídas; o que interessa
+ * são os contadores {@code nodesPerSecond} e {@code depth}, que dizem se as threads auxiliares aumentam o número de
+ * nós por segundo e, sobretudo, a profundidade atingida no mesmo tempo. Cada procura começa com a tabela vazia.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int SEARCH_MILLIS = 500;
+    private static final int TABLE_MEGABYTES = 64;
+
+    @Param({"MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Board board;
+    private TranspositionTable table;
+    private SearchLimits limits;
+
+    @Setup
+    public void setUp() {
+        this.board = this.position.load();
+        this.table = new TranspositionTable(TABLE_MEGABYTES);
+        this.limits = SearchLimits.time(SEARCH_MILLIS).withThreads(this.threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        this.table.clear();
+    }
+
+    @Benchmark
+    public SearchResult search(Counters counters) {
+        SearchResult result = new Search(this.board, this.table).search(this.limits);
+        counters.add(result);
+        return result;
+    }
+
+    /**
+     * Nós por segundo e profundidade média das procuras de cada iteração.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        private long nodes;
+        private long elapsedNanos;
+        private long depths;
+        private int searches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodes = 0;
+            this.elapsedNanos = 0;
+            this.depths = 0;
+            this.searches = 0;
+        }
+
+        public double depth() {
+            return this.searches == 0 ? 0 : (double) this.depths / this.searches;
+        }
+
+        public long nodesPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : this.nodes * 1_000_000_000L / this.elapsedNanos;
+        }
+
+        void add(SearchResult result) {
+            this.nodes += result.nodes();
+            this.elapsedNanos += result.elapsedNanos();
+            this.depths += result.depth();
+            this.searches++;
+        }
+    }
+}
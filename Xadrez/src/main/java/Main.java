@@ -11,7 +11,7 @@ public class Main {
     private static void checkForLeavingGame(String string, ConsoleInterface console) {
         if (string.equalsIgnoreCase("QUIT")) {
             Serialization.saveBoardConsole(console);
-            XML.create(console.getBoard());
+            XML.create(console.getSnapshot());
             System.exit(0);
         }
     }
@@ -0,0 +1,305 @@
+package chess.core;
+
+import chess.core.board.Board;
+import chess.core.board.PackedMove;
+import chess.core.board.Position;
+import chess.core.board.PositionSnapshot;
+import chess.core.board.Type;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binário compacto dos jogos gravados, que substitui a serialização Java do {@link GameManager}.
+ * <p>
+ * Um jogo é guardado como a posição inicial seguida dos movimentos jogados, para que possa ser desfeito depois de lido:
+ * <pre>
+ *  cabeçalho   "XDRZ", versão (2 bytes), reservado (2 bytes), número de movimentos (4 bytes)
+ *  posição     64 casas em 32 bytes, meio byte por casa (tipo * 2 + cor + 1, ou 0 se vazia)
+ *              1 byte: bit 0 = jogam as Pretas, bits 1-4 = direitos de roque; 1 byte: casa de "en passant" ou -1
+ *  movimentos  um inteiro de tamanho variável (7 bits por byte) por movimento: origem | destino << 6 | promoção << 12
+ *  CRC32C      de tudo o que está para trás
+ * </pre>
+ * Uma posição ocupa 46 bytes e cada movimento 2, contra vários KB de classes e objetos na serialização Java, e os
+ * ficheiros não dependem da forma das classes: mudar um campo já não torna os jogos gravados ilegíveis.
+ * <p>
+ * Os ficheiros antigos, gravados com a serialização Java, continuam a ser lidos por {@link #load(Path)}
+ * (ver {@link LegacyGameReader}) e são convertidos para este formato na gravação seguinte.
+ */
+public final class GameCodec {
+    public static final int VERSION = 1;
+    static final int MAGIC = 0x5844525A; // "XDRZ"
+    static final int POSITION_SIZE = 34;
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_VARINT_SIZE = 3; // 15 bits de movimento
+    private static final String PIECE_LETTERS = "PNBRQK"; // Pela ordem de Type
+    private static final Type[] PROMOTION_TYPES = {null, Type.KNIGHT, Type.BISHOP, Type.ROOK, Type.QUEEN};
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(4096));
+
+    private GameCodec() {
+    }
+
+    /**
+     * @return - o buffer direto desta thread, limpo e com pelo menos {@code size} bytes.
+     */
+    private static ByteBuffer buffer(int size) {
+        ByteBuffer buffer = BUFFER.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+            BUFFER.set(buffer);
+        }
+        return buffer.clear();
+    }
+
+    private static int nibble(PositionSnapshot snapshot, int row, int col) {
+        Type type = snapshot.getType(row, col);
+        return type == null ? 0 : type.ordinal() * 2 + snapshot.getColor(row, col).ordinal() + 1;
+    }
+
+    /**
+     * Lê uma posição escrita por {@link #writePosition(ByteBuffer, PositionSnapshot)}.
+     *
+     * @return - a posição em notação FEN.
+     */
+    private static String readPosition(ByteBuffer buffer) throws IOException {
+        int[] pieces = new int[64];
+        for (int square = 0; square < 64; square += 2) {
+            int b = buffer.get() & 0xFF;
+            pieces[square] = b >>> 4;
+            pieces[square + 1] = b & 0x0F;
+        }
+        for (int piece : pieces) if (piece > 12) throw new IOException("Peça inválida no jogo gravado: " + piece);
+
+        int state = buffer.get();
+        int enPassantSquare = buffer.get();
+        if (enPassantSquare < Board.NO_SQUARE || enPassantSquare > 63) throw new IOException("Casa de \"en passant\" inválida: " + enPassantSquare);
+        return fen(pieces, (state & 1) != 0 ? PieceColor.BLACK : PieceColor.WHITE, (state >> 1) & 0x0F, enPassantSquare);
+    }
+
+    /**
+     * Joga um movimento codificado por {@link #encodeMove(int)}, com {@link GameManager#replayMove}: depois do último,
+     * o estado do jogo tem de ser calculado com {@link GameManager#updateState()}.
+     *
+     * @param game - jogo onde jogar.
+     * @param code - movimento em 15 bits.
+     * @throws IOException se o movimento não for legal na posição do jogo.
+     */
+    static void applyMove(GameManager game, int code) throws IOException {
+        int promotion = code >>> 12;
+        if (promotion >= PROMOTION_TYPES.length) throw new IOException("Movimento inválido no jogo gravado: " + code);
+        Type promotionType = promotion == 0 ? Type.QUEEN : PROMOTION_TYPES[promotion];
+        if (!game.replayMove(Position.of(code & 63), Position.of((code >>> 6) & 63), promotionType))
+            throw new IOException("Movimento ilegal no jogo gravado: " + code);
+    }
+
+    /**
+     * @param path - jogo gravado.
+     * @return - o CRC32C guardado nos últimos 4 bytes do ficheiro, que identifica o conteúdo gravado.
+     * @throws IOException se o ficheiro não puder ser lido.
+     */
+    static int checksum(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            long position = channel.size() - 4;
+            if (position < 0) throw new IOException("O ficheiro não é um jogo gravado");
+            while (buffer.hasRemaining()) if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Ficheiro truncado: " + path);
+            return buffer.getInt(0);
+        }
+    }
+
+    /**
+     * Lê um jogo codificado por {@link #save(GameManager, Path)}.
+     *
+     * @param buffer - bytes do ficheiro, da posição atual até ao limite.
+     * @return - o jogo.
+     * @throws IOException se os bytes não forem de um jogo válido.
+     */
+    static GameManager decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE + POSITION_SIZE + 4 || buffer.getInt(buffer.position()) != MAGIC)
+            throw new IOException("O ficheiro não é um jogo gravado");
+
+        CRC32C crc = new CRC32C();
+        int end = buffer.limit() - 4;
+        crc.update(buffer.duplicate().limit(end));
+        if ((int) crc.getValue() != buffer.getInt(end)) throw new IOException("O jogo gravado está corrompido");
+
+        buffer.getInt();
+        int version = buffer.getShort();
+        if (version != VERSION) throw new IOException("Versão do jogo gravado não suportada: " + version);
+        buffer.getShort();
+        int moveCount = buffer.getInt();
+
+        try {
+            GameManager game = new GameManager();
+            game.loadPosition(readPosition(buffer));
+            for (int i = 0; i < moveCount; i++) applyMove(game, readVarint(buffer));
+            if (buffer.position() != end) throw new IOException("O jogo gravado tem bytes a mais");
+            game.updateState();
+            return game;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("O jogo gravado está corrompido", e);
+        }
+    }
+
+    /**
+     * Codifica um movimento como origem | destino << 6 | promoção << 12, com a promoção de 1 (Cavalo) a 4 (Rainha).
+     *
+     * @param move - movimento codificado por {@link PackedMove}.
+     * @return - o movimento em 15 bits.
+     */
+    static int encodeMove(int move) {
+        Type promotion = PackedMove.promotion(move);
+        int code = PackedMove.from(move) | PackedMove.to(move) << 6;
+        return promotion == null ? code : code | (promotion.ordinal() << 12); // KNIGHT..QUEEN têm os ordinais 1..4
+    }
+
+    /**
+     * Escreve em FEN uma posição dada casa a casa.
+     *
+     * @param pieces          - [casa]: tipo * 2 + cor + 1, ou 0 se a casa estiver vazia.
+     * @param sideToMove      - cor a jogar.
+     * @param castlingRights  - máscara dos direitos de roque, como em {@link Board#getCastlingRights()}.
+     * @param enPassantSquare - casa de "en passant", ou {@link Board#NO_SQUARE}.
+     * @return - a posição em notação FEN.
+     */
+    static String fen(int[] pieces, PieceColor sideToMove, int castlingRights, int enPassantSquare) {
+        StringBuilder result = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = pieces[row * 8 + col];
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) result.append(empty);
+                empty = 0;
+                char letter = PIECE_LETTERS.charAt((piece - 1) >> 1);
+                result.append(((piece - 1) & 1) == PieceColor.WHITE.ordinal() ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) result.append(empty);
+            if (row < 7) result.append('/');
+        }
+
+        result.append(sideToMove == PieceColor.WHITE ? " w " : " b ");
+        if (castlingRights == 0) result.append('-');
+        if ((castlingRights & Board.WHITE_KING_SIDE) != 0) result.append('K');
+        if ((castlingRights & Board.WHITE_QUEEN_SIDE) != 0) result.append('Q');
+        if ((castlingRights & Board.BLACK_KING_SIDE) != 0) result.append('k');
+        if ((castlingRights & Board.BLACK_QUEEN_SIDE) != 0) result.append('q');
+        result.append(' ').append(enPassantSquare == Board.NO_SQUARE ? "-" : Position.of(enPassantSquare).getPosition().toLowerCase());
+        return result.append(" 0 1").toString();
+    }
+
+    /**
+     * Lê um jogo gravado, neste formato ou no formato antigo da serialização Java.
+     *
+     * @param path - ficheiro a ler.
+     * @return - o jogo, com os movimentos gravados jogados (e que podem ser desfeitos).
+     * @throws IOException se o ficheiro não puder ser lido ou estiver corrompido.
+     */
+    public static GameManager load(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Ficheiro demasiado grande: " + path);
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) if (channel.read(buffer) < 0) break;
+            buffer.flip();
+        }
+
+        if (LegacyGameReader.isLegacy(buffer)) return LegacyGameReader.read(buffer);
+        return decode(buffer);
+    }
+
+    /**
+     * Lê um inteiro de tamanho variável: 7 bits por byte, dos menos significativos para os mais significativos,
+     * com o bit mais alto ligado em todos os bytes menos no último.
+     *
+     * @throws IOException se o inteiro não couber em {@value #MAX_VARINT_SIZE} bytes.
+     */
+    static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Movimento inválido no jogo gravado");
+    }
+
+    /**
+     * Grava o jogo neste formato. O ficheiro é escrito ao lado e só depois substitui o anterior,
+     * para que uma falha a meio não estrague o jogo que já estava gravado.
+     * <p>
+     * O jogo é lido a partir da fotografia publicada ({@link GameManager#getSnapshot()}), pelo que pode ser gravado
+     * por outra thread enquanto se joga, sem bloqueios.
+     *
+     * @param game - jogo a gravar.
+     * @param path - ficheiro onde gravar.
+     * @throws IOException se o ficheiro não puder ser escrito.
+     */
+    public static void save(GameManager game, Path path) throws IOException {
+        save(game.getSnapshot(), path);
+    }
+
+    /**
+     * Grava o jogo que termina na fotografia dada, com os movimentos desde o início do histórico.
+     *
+     * @param current - fotografia da posição atual do jogo.
+     * @param path    - ficheiro onde gravar.
+     * @return - CRC32C do ficheiro gravado, como em {@link #checksum(Path)}.
+     * @throws IOException se o ficheiro não puder ser escrito.
+     */
+    static int save(PositionSnapshot current, Path path) throws IOException {
+        PositionSnapshot root = current.getRoot();
+        int moveCount = current.getPly() - root.getPly();
+
+        ByteBuffer buffer = buffer(HEADER_SIZE + POSITION_SIZE + moveCount * MAX_VARINT_SIZE + 4);
+        buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putInt(moveCount);
+        writePosition(buffer, root);
+        for (int ply = root.getPly(); ply < current.getPly(); ply++) writeVarint(buffer, encodeMove(current.getMove(ply)));
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().flip());
+        int checksum = (int) crc.getValue();
+        buffer.putInt(checksum).flip();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return checksum;
+    }
+
+    /**
+     * Escreve a posição em {@value #POSITION_SIZE} bytes.
+     */
+    static void writePosition(ByteBuffer buffer, PositionSnapshot snapshot) {
+        for (int row = 0; row < 8; row++)
+            for (int col = 0; col < 8; col += 2)
+                buffer.put((byte) (nibble(snapshot, row, col) << 4 | nibble(snapshot, row, col + 1)));
+        int state = snapshot.getSideToMove() == PieceColor.BLACK ? 1 : 0;
+        buffer.put((byte) (state | snapshot.getCastlingRights() << 1));
+        buffer.put((byte) snapshot.getEnPassantSquare());
+    }
+
+    /**
+     * Escreve um inteiro de tamanho variável, como lido por {@link #readVarint(ByteBuffer)}.
+     */
+    static void writeVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
@@ -0,0 +1,322 @@
+package chess.core;
+
+import chess.core.board.PositionSnapshot;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diário de um jogo ("write-ahead log"): cada alteração é acrescentada ao fim de um ficheiro em poucos bytes, em vez
+ * de se regravar o jogo inteiro, pelo que o custo de gravar um movimento não depende do tamanho do jogo.
+ * <p>
+ * O jogo fica em dois ficheiros: o último ponto de controlo, gravado pelo {@link GameCodec}, e o diário com o que
+ * mudou desde então, ao lado, com a extensão ".journal":
+ * <pre>
+ *  cabeçalho   "XDRJ", versão (2 bytes), reservado (2 bytes), CRC32C do ponto de controlo a que o diário se aplica
+ *  registos    um inteiro de tamanho variável por alteração: um movimento, como em {@link GameCodec}, ou desfazer
+ * </pre>
+ * Ao fim de {@link Policy#compactAfter()} registos, ou quando o jogo é reiniciado ou substituído, o diário é
+ * compactado: o jogo é gravado num ponto de controlo novo e o diário volta a ficar vazio. Depois de uma falha,
+ * {@link #recover(Path, Policy)} lê o ponto de controlo e repete o diário por cima; um registo escrito a meio é ignorado,
+ * e um diário de um ponto de controlo anterior (a compactação foi interrompida) também.
+ * <p>
+ * Cada registo é escrito no ficheiro logo que o jogo muda, e por isso sobrevive a uma falha da aplicação. Para
+ * sobreviver a uma falha do sistema tem de ser também enviado para o disco ("fsync"), o que é caro; a {@link Policy}
+ * diz de quantos em quantos registos, ou de quanto em quanto tempo, isso é feito. O envio por tempo é feito por uma
+ * tarefa periódica, para que um registo nunca fique mais do que esse tempo por enviar, mesmo que o jogo pare.
+ * <p>
+ * O diário é escrito pela thread que altera o jogo, pelo que, como o {@link GameManager}, não é seguro para threads;
+ * só o envio periódico para o disco é feito noutra thread.
+ */
+public final class GameJournal implements AutoCloseable {
+    public static final int VERSION = 1;
+    private static final Logger logger = LogManager.getLogger(GameJournal.class);
+    private static final int MAGIC = 0x5844524A; // "XDRJ"
+    private static final int HEADER_SIZE = 12;
+    private static final int UNDO = 1 | 1 << 6; // De B8 para B8, que nunca é um movimento
+    private static final ScheduledExecutorService SYNC_TIMER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("journal-sync").factory()); // Partilhado pelos diários com Policy.everyMillis
+    private final GameManager game;
+    private final Path checkpointPath;
+    private final Path journalPath;
+    private final Policy policy;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_SIZE);
+    private final AtomicInteger unsynced = new AtomicInteger(); // Registos ainda não enviados para o disco
+    private final ScheduledFuture<?> syncTask;                  // Envio periódico para o disco, ou nulo
+    private PositionSnapshot last; // Última posição escrita no diário
+    private int records;           // Registos desde o último ponto de controlo
+
+    private GameJournal(GameManager game, Path checkpointPath, Policy policy) throws IOException {
+        this.game = game;
+        this.checkpointPath = checkpointPath;
+        this.journalPath = journalPath(checkpointPath);
+        this.policy = policy;
+        this.channel = FileChannel.open(this.journalPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            this.checkpoint();
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+        game.setJournal(this);
+        this.syncTask = policy.syncMillis() > 0
+                ? SYNC_TIMER.scheduleAtFixedRate(this::syncPeriodically, policy.syncMillis(), policy.syncMillis(), TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * Começa o diário de um jogo, substituindo o ponto de controlo e o diário que existam.
+     *
+     * @param game           - jogo a registar.
+     * @param checkpointPath - ficheiro do ponto de controlo; o diário fica ao lado, com a extensão ".journal".
+     * @param policy         - quando enviar o diário para o disco e compactá-lo.
+     * @return - o diário, que deve ser fechado no fim do jogo.
+     * @throws IOException se os ficheiros não puderem ser escritos.
+     */
+    public static GameJournal create(GameManager game, Path checkpointPath, Policy policy) throws IOException {
+        return new GameJournal(game, checkpointPath, policy);
+    }
+
+    /**
+     * Reconstrói o jogo a partir do último ponto de controlo e do diário, e continua a registá-lo.
+     * O jogo reconstruído é logo gravado num ponto de controlo novo. Se não existir nenhum ponto de controlo,
+     * começa um jogo novo.
+     *
+     * @param checkpointPath - ficheiro do ponto de controlo; o diário fica ao lado, com a extensão ".journal".
+     * @param policy         - quando enviar o diário para o disco e compactá-lo.
+     * @return - o diário, com o jogo reconstruído em {@link #getGame()}.
+     * @throws IOException se o ponto de controlo não puder ser lido ou os ficheiros não puderem ser escritos.
+     */
+    public static GameJournal recover(Path checkpointPath, Policy policy) throws IOException {
+        if (!Files.exists(checkpointPath)) return new GameJournal(new GameManager(), checkpointPath, policy);
+
+        GameManager game = GameCodec.load(checkpointPath);
+        Path journalPath = journalPath(checkpointPath);
+        if (Files.exists(journalPath)) {
+            int replayed = replay(game, ByteBuffer.wrap(Files.readAllBytes(journalPath)), GameCodec.checksum(checkpointPath));
+            logger.info("Diário " + journalPath + ": " + replayed + " registos repetidos");
+        }
+        return new GameJournal(game, checkpointPath, policy);
+    }
+
+    private static Path journalPath(Path checkpointPath) {
+        return checkpointPath.resolveSibling(checkpointPath.getFileName() + ".journal");
+    }
+
+    /**
+     * Repete os registos do diário sobre o jogo lido do ponto de controlo, até ao fim ou ao primeiro registo
+     * incompleto ou inválido (o que estava a ser escrito quando a aplicação terminou).
+     *
+     * @param checksum - CRC32C do ponto de controlo; se o diário for de outro, não é repetido.
+     * @return - número de registos repetidos.
+     */
+    private static int replay(GameManager game, ByteBuffer journal, int checksum) {
+        if (journal.remaining() < HEADER_SIZE || journal.getInt() != MAGIC || journal.getShort() != VERSION) return 0;
+        journal.getShort();
+        if (journal.getInt() != checksum) return 0;
+
+        int replayed = 0;
+        try {
+            while (journal.hasRemaining()) {
+                int record = GameCodec.readVarint(journal);
+                if (record == UNDO) {
+                    if (!game.undoMove()) break;
+                } else GameCodec.applyMove(game, record);
+                replayed++;
+            }
+        } catch (BufferUnderflowException | IOException e) {
+            logger.warn("Diário terminado a meio de um registo, depois de " + replayed + " registos");
+        }
+        game.updateState();
+        return replayed;
+    }
+
+    /**
+     * Compacta o diário: grava o jogo num ponto de controlo novo e esvazia o diário.
+     * O ponto de controlo substitui o anterior de uma só vez; se a aplicação terminar antes de o diário ser
+     * esvaziado, o diário é do ponto de controlo anterior e é ignorado por {@link #recover(Path, Policy)}.
+     *
+     * @throws IOException se os ficheiros não puderem ser escritos.
+     */
+    public void checkpoint() throws IOException {
+        PositionSnapshot snapshot = this.game.getSnapshot();
+        int checksum = GameCodec.save(snapshot, this.checkpointPath);
+
+        this.channel.truncate(0);
+        this.buffer.clear();
+        this.buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putInt(checksum).flip();
+        while (this.buffer.hasRemaining()) this.channel.write(this.buffer);
+        this.channel.force(false);
+
+        this.last = snapshot;
+        this.records = 0;
+        this.unsynced.set(0);
+    }
+
+    /**
+     * Deixa de registar o jogo e grava-o num último ponto de controlo.
+     *
+     * @throws IOException se os ficheiros não puderem ser escritos.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.syncTask != null) this.syncTask.cancel(false);
+        this.game.setJournal(null);
+        try {
+            this.checkpoint();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    public GameManager getGame() {
+        return this.game;
+    }
+
+    /**
+     * @return - número de registos escritos mas ainda não enviados para o disco.
+     */
+    public int getUnsyncedRecords() {
+        return this.unsynced.get();
+    }
+
+    /**
+     * @return - número de registos no diário desde o último ponto de controlo.
+     */
+    public int size() {
+        return this.records;
+    }
+
+    /**
+     * Envia para o disco os registos ainda não enviados. Com {@link Policy#everyMillis(long)}, é chamado também
+     * periodicamente, noutra thread.
+     *
+     * @throws IOException se o diário não puder ser escrito.
+     */
+    public void sync() throws IOException {
+        int pending = this.unsynced.getAndSet(0);
+        if (pending == 0) return;
+        try {
+            this.channel.force(false);
+        } catch (IOException e) {
+            this.unsynced.addAndGet(pending);
+            throw e;
+        }
+    }
+
+    /**
+     * Regista a alteração que levou o jogo da última posição registada à fotografia dada: um movimento, desfazer
+     * um movimento ou, se o jogo foi reiniciado ou substituído, um ponto de controlo novo.
+     * Chamado pelo {@link GameManager} depois de cada alteração; um erro de escrita é registado no log
+     * sem impedir o jogo de continuar.
+     *
+     * @param snapshot - fotografia publicada depois da alteração.
+     */
+    void record(PositionSnapshot snapshot) {
+        PositionSnapshot last = this.last;
+        try {
+            boolean sameGame = snapshot.getRoot() == last.getRoot();
+            if (sameGame && snapshot.getPly() == last.getPly() + 1 && snapshot.getPreviousKey() == last.getZobristKey()) {
+                this.append(GameCodec.encodeMove(snapshot.getLastMove()));
+            } else if (sameGame && snapshot.getPly() == last.getPly() - 1 && snapshot.getZobristKey() == last.getPreviousKey()) {
+                this.append(UNDO);
+            } else {
+                this.checkpoint();
+                return;
+            }
+
+            this.last = snapshot;
+            if (this.records >= this.policy.compactAfter()) this.checkpoint();
+        } catch (IOException e) {
+            logger.error("Não foi possível escrever no diário " + this.journalPath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Acrescenta um registo ao diário e envia-o para o disco se a {@link Policy} o pedir.
+     */
+    private void append(int record) throws IOException {
+        this.buffer.clear();
+        GameCodec.writeVarint(this.buffer, record);
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) this.channel.write(this.buffer);
+        this.records++;
+        int unsynced = this.unsynced.incrementAndGet();
+        if (this.policy.syncMoves() > 0 && unsynced >= this.policy.syncMoves()) this.sync();
+    }
+
+    /**
+     * Tarefa periódica de {@link Policy#everyMillis(long)}: um erro é registado no log, como em {@link #record},
+     * para que a tarefa continue.
+     */
+    private void syncPeriodically() {
+        try {
+            this.sync();
+        } catch (IOException e) {
+            if (this.channel.isOpen()) // Senão, o diário foi fechado enquanto a tarefa corria
+                logger.error("Não foi possível enviar o diário " + this.journalPath + " para o disco: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Quando enviar o diário para o disco e quando compactá-lo.
+     *
+     * @param syncMoves    - número de registos entre envios para o disco, ou 0 para não contar os registos.
+     * @param syncMillis   - tempo máximo em milissegundos entre envios para o disco, feitos por uma tarefa periódica,
+     *                     ou 0 para não contar o tempo.
+     * @param compactAfter - número de registos a partir do qual o diário é compactado.
+     */
+    public record Policy(int syncMoves, long syncMillis, int compactAfter) {
+        public static final int DEFAULT_COMPACT_AFTER = 1024;
+
+        public Policy {
+            if (syncMoves < 0 || syncMillis < 0) throw new IllegalArgumentException("Os intervalos não podem ser negativos.");
+            if (syncMoves == 0 && syncMillis == 0) throw new IllegalArgumentException("O diário tem de ser enviado para o disco.");
+            if (compactAfter < 1) throw new IllegalArgumentException("Número de registos inválido: " + compactAfter);
+        }
+
+        /**
+         * @return - enviar cada registo para o disco: nenhum movimento se perde, mas cada um custa um "fsync".
+         */
+        public static Policy everyMove() {
+            return new Policy(1, 0, DEFAULT_COMPACT_AFTER);
+        }
+
+        /**
+         * @param millis - tempo máximo entre envios para o disco.
+         * @return - enviar para o disco de tempos a tempos.
+         */
+        public static Policy everyMillis(long millis) {
+            return new Policy(0, millis, DEFAULT_COMPACT_AFTER);
+        }
+
+        /**
+         * @param moves - número de registos entre envios para o disco.
+         * @return - enviar para o disco de tantos em tantos registos.
+         */
+        public static Policy everyMoves(int moves) {
+            return new Policy(moves, 0, DEFAULT_COMPACT_AFTER);
+        }
+
+        /**
+         * @param records - número de registos a partir do qual o diário é compactado.
+         * @return - a mesma política com outro intervalo de compactação.
+         */
+        public Policy withCompactAfter(int records) {
+            return new Policy(this.syncMoves, this.syncMillis, records);
+        }
+    }
+}
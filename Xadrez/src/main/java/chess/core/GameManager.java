@@ -1,12 +1,23 @@
 package chess.core;
 
-import chess.core.board.Board;
-import chess.core.board.Position;
-import chess.core.board.RulesMaster;
-import chess.core.board.Type;
+import chess.core.board.*;
 import chess.core.board.pieces.Piece;
+import chess.engine.OpeningBook;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -14,16 +25,52 @@ import static chess.core.board.PieceFactory.createPiece;
 
 /**
  * Classe principal que implementa o padrão Facade
+ * <p>
+ * Os movimentos legais, o estado do jogo e o vencedor são calculados uma vez depois de cada alteração ao jogo.
+ * Assim, os métodos de consulta ({@link #getLegalMoves()}, {@link #getValidMoves(Position)},
+ * {@link #getGameStatus()}, {@link #isFinished()}, {@link #whoWon()}, {@link #nextPlayer()}, {@link #copyBoard()})
+ * apenas leem o jogo e podem ser chamados por várias threads ao mesmo tempo, desde que nenhuma o altere entretanto;
+ * o {@link GameRegistry} garante-o com um bloqueio por jogo.
+ * <p>
+ * Depois de cada alteração é também publicada uma {@link PositionSnapshot} imutável da posição
+ * ({@link #getSnapshot()}), que qualquer thread pode ler sem bloqueios: desenhar o tabuleiro, gravar o jogo, analisar.
+ * <p>
+ * A memória de um jogo não cresce com o número de movimentos, exceto o registo de um {@code int} por meio-lance:
+ * o tabuleiro só guarda os registos para desfazer desde o último movimento irreversível ({@link Board#trimHistory()})
+ * e as fotografias não se encadeiam. Desfazer para lá desses registos repete o jogo a partir da posição inicial.
  */
 public class GameManager implements Serializable {
+    private static final Logger logger = LogManager.getLogger(GameManager.class);
+    private static final Path DEFAULT_OPENING_BOOK = Path.of("savedFiles/openingBook.bin");
     private final Board board;
     private final RulesMaster ruleMaster;
-    private boolean isWhitePlay = true;
+    private transient OpeningBook openingBook; // Mapeamento do ficheiro, não é serializável
+    private transient List<Move> legalMoves;   // Calculados depois de cada alteração, ver updateState
+    private transient GameStatus gameStatus;
+    private transient PieceColor winner;
+    private transient volatile PositionSnapshot snapshot; // Publicada depois de cada alteração, lida sem bloqueios
+    private transient PositionSnapshot root;              // Fotografia da posição inicial, ou nula até ser publicada
+    private transient int[] moveLog;                      // Movimentos desde a posição inicial, partilhados pelas fotografias
+    private transient GameJournal journal;                // Diário onde cada alteração é registada, ou nulo
 
 
+    /**
+     * Começa um jogo novo. Se existir o livro de aberturas {@code savedFiles/openingBook.bin}, o motor usa-o;
+     * o livro é aberto uma só vez, no primeiro jogo, e partilhado por todos os jogos.
+     */
     public GameManager() {
-        this.board = Board.getInstance();
+        this(DefaultOpeningBook.INSTANCE);
+    }
+
+    /**
+     * Começa um jogo novo, com o seu próprio tabuleiro, independente de todos os outros jogos.
+     *
+     * @param openingBook - livro de aberturas do motor, que pode ser partilhado entre jogos, ou nulo para procurar sempre.
+     */
+    public GameManager(OpeningBook openingBook) {
+        this.board = new Board();
         this.ruleMaster = new RulesMaster(board);
+        this.openingBook = openingBook;
         this.resetGame();
     }
 
@@ -31,6 +78,15 @@ public class GameManager implements Serializable {
         return Pattern.compile("[A-Ha-h][1-8]").matcher(position).matches(); // Simply using a regular expression does it.
     }
 
+    /**
+     * Retorna uma cópia independente do tabuleiro, para analisar o jogo (por exemplo no motor) sem o alterar.
+     *
+     * @return - cópia do tabuleiro, sem o histórico de movimentos mas com as repetições e o relógio dos 75 lances.
+     */
+    public Board copyBoard() {
+        return this.board.copy();
+    }
+
     /**
      * Obtém uma lista de objetos Square que representam o tabuleiro.
      *
@@ -41,23 +97,84 @@ public class GameManager implements Serializable {
     }
 
     /**
-     * Retorna uma lista de movimentos possíveis para uma dada Peça e a respetiva posição.
+     * Retorna o estado do jogo para o jogador a jogar (em curso, xeque, xeque-mate ou afogamento).
+     *
+     * @return - estado do jogo.
+     */
+    public GameStatus getGameStatus() {
+        return this.gameStatus;
+    }
+
+    /**
+     * @return - livro de aberturas consultado pelo motor antes de procurar, ou nulo se não houver.
+     */
+    public OpeningBook getOpeningBook() {
+        return this.openingBook;
+    }
+
+    /**
+     * Retorna todos os movimentos legais do jogador a jogar, ou seja, os que não deixam o próprio rei em xeque.
+     * Uma promoção aparece uma única vez, como no resto da interface.
+     *
+     * @return - Lista de movimentos legais, que não pode ser alterada.
+     */
+    public List<Move> getLegalMoves() {
+        return this.legalMoves;
+    }
+
+    /**
+     * @return - número de registos para desfazer guardados pelo tabuleiro do jogo: os movimentos desde o último
+     * movimento irreversível, no máximo {@link RulesMaster#DRAW_HALFMOVES} + 1 num jogo que respeita as regras.
+     */
+    public int getRetainedUndoRecords() {
+        return this.board.getHistorySize();
+    }
+
+    /**
+     * Retorna a fotografia imutável da posição atual, publicada depois da última alteração ao jogo.
+     * Pode ser lida por qualquer thread sem bloqueios; a posição inicial e os movimentos do jogo estão em
+     * {@link PositionSnapshot#getRoot()} e {@link PositionSnapshot#getMove(int)}.
+     *
+     * @return - fotografia da posição atual.
+     */
+    public PositionSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Retorna uma lista de movimentos legais para a Peça numa dada posição.
+     * As peças do jogador que não está a jogar não têm movimentos.
      *
      * @param initPosition - posição atual da peça no tabuleiro.
-     * @return - Lista de Posições de movimentos válidos, ou nulo se a Peça for de um tipo desconhecido.
+     * @return - Lista de Posições de destino dos movimentos legais.
      */
     public List<Position> getValidMoves(Position initPosition) {
-        Piece piece = this.board.getPiece(initPosition.row, initPosition.col);
-        return this.ruleMaster.getValidMoves(piece, initPosition);
+        List<Position> positions = new LinkedList<>();
+        for (Move move : this.getLegalMoves())
+            if (move.getInitPosition().equals(initPosition)) positions.add(move.getEndPosition());
+        return positions;
     }
 
     /**
-     * Verifica se o jogo terminou ao confirmar se algum dos reis foi capturado.
+     * Verifica se o jogo terminou por xeque-mate, afogamento ou empate automático.
      *
-     * @return true se alguma das peças do rei tiver sido capturada.
+     * @return true se o jogo tiver terminado.
      */
     public boolean isFinished() {
-        return ruleMaster.isFinished();
+        return this.gameStatus.isFinished();
+    }
+
+    /**
+     * Substitui o jogo pela posição descrita, apagando o histórico de movimentos.
+     *
+     * @param fen - posição em notação FEN.
+     * @throws IllegalArgumentException se o FEN não for válido.
+     */
+    public void loadPosition(String fen) {
+        Fen.load(this.board, fen);
+        this.startLog();
+        this.updateState();
+        logger.info("Posição " + fen);
     }
 
     /**
@@ -66,24 +183,43 @@ public class GameManager implements Serializable {
      * @return - Cor do próximo a jogar
      */
     public PieceColor nextPlayer() {
-        return isWhitePlay ? PieceColor.WHITE : PieceColor.BLACK;
+        return this.board.getSideToMove();
+    }
+
+    /**
+     * O motor procura e joga o melhor movimento do jogador a jogar, seja qual for a sua cor.
+     * Nas posições do livro de aberturas, joga um movimento do livro sem procurar.
+     * Se o jogo já tiver terminado, não faz nada.
+     *
+     * @param limits - limites da procura (profundidade, nós ou tempo).
+     * @return - resultado da procura; o movimento é {@link PackedMove#NONE} se o jogo já tiver terminado.
+     */
+    public SearchResult playEngineMove(SearchLimits limits) {
+        if (this.isFinished()) return new SearchResult(PackedMove.NONE, 0, 0, 0, 0, 0, 0);
+        SearchResult result = Search.bestMove(this, limits);
+        if (result.move() != PackedMove.NONE) {
+            this.logMove(result.move());
+            this.updateState();
+            logger.info(this.board.getLastMove() + " (motor: " + result + ")");
+        }
+        return result;
     }
 
     /**
      * Aceita um movimento de peça alternadamente entre a cor Branco e Preta.
-     * Se for dado um movimento com a cor de peça errada, não faz nada.
+     * Se for dado um movimento com a cor de peça errada, ou que não seja legal, não faz nada.
      *
      * @param initPosition - posição inicial da peça, como "A2" ou "B7", etc.
      * @param endPosition  - posição final da peça, como "A2" ou "B7", etc.
      */
     public void play(String initPosition, String endPosition) {
         if (isValidPosition(initPosition) && isValidPosition(endPosition))
-            this.play(new Position(initPosition.toUpperCase()), new Position(endPosition.toUpperCase()));
+            this.play(Position.of(initPosition.toUpperCase()), Position.of(endPosition.toUpperCase()));
     }
 
     /**
      * Aceita um movimento de peça alternadamente entre a cor Branco e Preta.
-     * Se for dado um movimento com a cor de peça errada, não faz nada.
+     * Se for dado um movimento com a cor de peça errada, ou que não seja legal, não faz nada.
      *
      * @param initPosition - posição inicial da peça
      * @param endPosition  - posição final da peça
@@ -95,39 +231,33 @@ public class GameManager implements Serializable {
 
     /**
      * Aceita um movimento de peça alternadamente entre a cor Branco e Preta.
-     * Se for dado um movimento com a cor de peça errada, não faz nada.
+     * Se for dado um movimento com a cor de peça errada, ou que não seja legal, não faz nada.
      *
      * @param piece        - Peça a mover
      * @param initPosition - posição inicial da peça
      * @param endPosition  - posição final da peça
      */
     public void play(Piece piece, Position initPosition, Position endPosition) {
-        if (piece.isWhite() == this.isWhitePlay) {
-            if (ruleMaster.isEnPassantMove(initPosition, endPosition))
-                this.isWhitePlay = this.makeEnPassantMove(piece, initPosition, endPosition) != this.isWhitePlay;
-            else if (ruleMaster.isCastlingMove(initPosition, endPosition))
-                this.isWhitePlay = this.makeCastlingMove(piece, initPosition, endPosition) != this.isWhitePlay;
-            else this.isWhitePlay = this.makeSimpleMove(piece, initPosition, endPosition) != this.isWhitePlay;
-        }
+        if (piece.getColor() == this.nextPlayer()) this.makeMove(initPosition, endPosition, Type.QUEEN);
     }
 
     /**
      * Jogada a ser usada APENAS para o movimento de promoção do peão.
+     * As outras jogadas de peão até à última fila promovem automaticamente a Rainha.
      *
      * @param newPieceType - novo tipo de peça.
      * @param initPosition - posição inicial da peça
      * @param endPosition  - posição final da peça
      */
     public void play(Type newPieceType, String initPosition, String endPosition) {
-        if (newPieceType != Type.KING) {
-            Piece newPiece = createPiece(newPieceType, board.getPiece(initPosition).getColor());
-            this.isWhitePlay = this.makePromotionMove(newPiece, new Position(initPosition), new Position(endPosition));
-        }
+        Piece piece = board.getPiece(initPosition);
+        if (newPieceType != Type.KING && piece != null && piece.getColor() == this.nextPlayer())
+            this.makeMove(Position.of(initPosition), Position.of(endPosition), newPieceType);
     }
 
     /**
      * Aceita um movimento de peça alternadamente entre a cor Branco e Preta.
-     * Se for dado um movimento com a cor de peça errada, não faz nada.
+     * Se for dado um movimento com a cor de peça errada, ou que não seja legal, não faz nada.
      *
      * @param initRow - posição da linha inicial
      * @param initCol - posição da coluna inicial
@@ -135,7 +265,7 @@ public class GameManager implements Serializable {
      * @param endCol  - posição da coluna final
      */
     public void play(int initRow, int initCol, int endRow, int endCol) {
-        this.play(new Position(initRow, initCol), new Position(endRow, endCol));
+        this.play(Position.of(initRow, initCol), Position.of(endRow, endCol));
     }
 
     /**
@@ -144,52 +274,122 @@ public class GameManager implements Serializable {
     public void resetGame() {
         this.board.resetBoard();
         this.placePieces();
-        isWhitePlay = true;
+        this.startLog();
+        this.updateState();
     }
 
     /**
-     * Retorna a cor vencedora se o jogo tiver terminado.
+     * Define o livro de aberturas do motor, substituindo o anterior (que não é fechado).
      *
-     * @return A Cor do último rei em jogo ou nulo se o jogo não tiver terminado.
+     * @param openingBook - livro de aberturas, ou nulo para o motor procurar sempre.
      */
-    public PieceColor whoWon() {
-        return ruleMaster.whoWon();
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
     }
 
-    private List<Position> getValidMoves(Piece piece, Position position) {
-        return this.ruleMaster.getValidMoves(piece, position);
+    /**
+     * Define o diário onde cada alteração ao jogo passa a ser registada (ver {@link GameJournal}).
+     *
+     * @param journal - diário do jogo, ou nulo para deixar de registar.
+     */
+    void setJournal(GameJournal journal) {
+        this.journal = journal;
     }
 
-    private boolean makeCastlingMove(Piece piece, Position initPosition, Position endPosition) {
-        if (this.getValidMoves(piece, initPosition).contains(endPosition)) {
-            this.board.makeCastlingMove(initPosition, endPosition);
-            return true;
+    /**
+     * Desfaz a última jogada, devolvendo a vez ao jogador que a fez.
+     * Se o tabuleiro ficasse sem o registo da jogada anterior, repete o jogo desde a posição inicial até ela, para que
+     * a fotografia publicada tenha sempre a posição antes do último movimento ({@link PositionSnapshot#getPreviousKey()}).
+     *
+     * @return - verdadeiro se existia uma jogada para desfazer.
+     */
+    public boolean undoMove() {
+        int ply = this.board.getPly();
+        if (ply == this.root.getPly()) return false;
+
+        if (this.board.getHistorySize() > 1 || ply - 1 == this.root.getPly()) this.board.unmakeMove();
+        else {
+            Fen.load(this.board, this.root.toFen());
+            for (int i = this.root.getPly(); i < ply - 1; i++) {
+                this.board.makeMove(this.moveLog[i]);
+                this.board.trimHistory();
+            }
         }
-        return false;
+        this.moveLog = this.moveLog.clone(); // As fotografias publicadas continuam a ver o movimento desfeito
+        this.updateState();
+        logger.info("Undo");
+        return true;
     }
 
-    private boolean makeEnPassantMove(Piece piece, Position initPosition, Position endPosition) {
-        if (this.getValidMoves(piece, initPosition).contains(endPosition)) {
-            this.board.makeEnPassantMove(initPosition, endPosition);
-            return true;
-        }
-        return false;
+    /**
+     * Retorna a cor vencedora se o jogo tiver terminado.
+     *
+     * @return A Cor que deu xeque-mate, ou nulo se o jogo não tiver terminado ou for empate.
+     */
+    public PieceColor whoWon() {
+        return this.winner;
     }
 
-    private boolean makePromotionMove(Piece newPiece, Position initPosition, Position endPosition) {
-        if (this.getValidMoves(board.getPiece(initPosition), initPosition).contains(endPosition)) {
-            board.makePromotionMove(newPiece, initPosition, endPosition);
-            return true;
-        }
-        return false;
+    /**
+     * Procura, entre os movimentos legais, o que vai da posição inicial para a final e realiza-o.
+     * Depois de o jogo terminar não aceita mais movimentos, o que limita o histórico de cada jogo.
+     *
+     * @param promotionType - peça escolhida, caso o movimento seja uma promoção.
+     * @return - verdadeiro se o movimento era válido e foi realizado.
+     */
+    boolean makeMove(Position initPosition, Position endPosition, Type promotionType) {
+        if (this.isFinished()) return false;
+        int move = this.findMove(initPosition, endPosition, promotionType);
+        if (move == PackedMove.NONE) return false;
+
+        this.logMove(move);
+        this.updateState();
+        logger.info(this.board.getLastMove());
+        return true;
     }
 
-    private boolean makeSimpleMove(Piece piece, Position initPosition, Position endPosition) {
-        if (this.getValidMoves(piece, initPosition).contains(endPosition)) {
-            this.board.makeSimpleMove(initPosition, endPosition);
-            return true;
+    /**
+     * Repete um movimento de um jogo gravado, como {@link #makeMove(Position, Position, Type)}, mas só publica a
+     * fotografia: os movimentos legais e o estado do jogo ficam por calcular até {@link #updateState()}, chamado
+     * uma vez no fim, e o movimento não é registado no log.
+     *
+     * @return - verdadeiro se o movimento era válido e foi realizado.
+     */
+    boolean replayMove(Position initPosition, Position endPosition, Type promotionType) {
+        int move = this.findMove(initPosition, endPosition, promotionType);
+        if (move == PackedMove.NONE) return false;
+
+        this.logMove(move);
+        this.snapshot = this.board.snapshot(this.root, this.moveLog);
+        return true;
+    }
+
+    /**
+     * @return - o movimento legal da posição inicial para a final, ou {@link PackedMove#NONE} se não houver.
+     */
+    private int findMove(Position initPosition, Position endPosition, Type promotionType) {
+        MoveList moves = new MoveList();
+        this.ruleMaster.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (PackedMove.from(move) != Bitboard.square(initPosition) || PackedMove.to(move) != Bitboard.square(endPosition)) continue;
+            if (PackedMove.isPromotion(move) && PackedMove.promotion(move) != promotionType) continue;
+            return move;
         }
-        return false;
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Realiza um movimento no tabuleiro e acrescenta-o ao registo, descartando do tabuleiro os registos para desfazer
+     * que deixaram de ser precisos.
+     */
+    private void logMove(int move) {
+        this.board.makeMove(move);
+        int ply = this.board.getPly();
+        if (ply > this.moveLog.length) this.moveLog = Arrays.copyOf(this.moveLog, this.moveLog.length * 2);
+        this.moveLog[ply - 1] = move; // Depois das posições lidas pelas fotografias já publicadas
+        this.board.trimHistory();
     }
 
     private void placePieces() {
@@ -228,4 +428,67 @@ public class GameManager implements Serializable {
         this.board.setPiece(createPiece(Type.PAWN, PieceColor.WHITE), 6, 6);
         this.board.setPiece(createPiece(Type.PAWN, PieceColor.WHITE), 6, 7);
     }
+
+    /**
+     * Os valores calculados não são guardados: são recalculados a partir do tabuleiro lido.
+     */
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+        this.startLog();
+        this.updateState();
+    }
+
+    /**
+     * Calcula os movimentos legais, o estado do jogo e o vencedor depois de uma alteração ao jogo e publica a fotografia.
+     * Os movimentos são gerados uma só vez; o estado e o vencedor são deduzidos deles.
+     * A geração de movimentos faz e desfaz movimentos no tabuleiro, pelo que só pode ser chamado por quem altera o jogo.
+     */
+    void updateState() {
+        List<Move> moves = new ArrayList<>();
+        MoveList packedMoves = new MoveList();
+        this.ruleMaster.generateLegalMoves(packedMoves);
+        for (int i = 0; i < packedMoves.size(); i++) {
+            int move = packedMoves.get(i);
+            if (PackedMove.isPromotion(move) && PackedMove.promotion(move) != Type.QUEEN) continue; // Uma entrada por promoção
+
+            Position initPosition = Position.of(PackedMove.from(move));
+            moves.add(new Move(this.board.getPiece(initPosition), initPosition, Position.of(PackedMove.to(move))));
+        }
+        this.legalMoves = Collections.unmodifiableList(moves);
+        this.gameStatus = this.ruleMaster.getGameStatus(!packedMoves.isEmpty());
+        this.winner = this.ruleMaster.whoWon(this.gameStatus);
+
+        this.snapshot = this.board.snapshot(this.root, this.moveLog);
+        if (this.root == null) this.root = this.snapshot;
+        if (this.journal != null) this.journal.record(this.snapshot);
+    }
+
+    /**
+     * Começa um registo de movimentos novo na posição atual do tabuleiro, que passa a ser a posição inicial do jogo.
+     */
+    private void startLog() {
+        this.moveLog = new int[64];
+        this.root = null;
+    }
+
+    /**
+     * Livro de aberturas por omissão, aberto quando a classe é carregada, ou seja, no primeiro jogo criado com
+     * {@link #GameManager()}. Fica mapeado até ao fim da aplicação.
+     */
+    private static final class DefaultOpeningBook {
+        private static final OpeningBook INSTANCE = open();
+
+        /**
+         * @return - livro de aberturas {@code savedFiles/openingBook.bin}, ou nulo se não existir ou não puder ser lido.
+         */
+        private static OpeningBook open() {
+            if (!Files.isRegularFile(DEFAULT_OPENING_BOOK)) return null;
+            try {
+                return OpeningBook.open(DEFAULT_OPENING_BOOK, OpeningBook.Selection.WEIGHTED_RANDOM);
+            } catch (IOException e) {
+                logger.warn("Não foi possível abrir o livro de aberturas " + DEFAULT_OPENING_BOOK + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
 }
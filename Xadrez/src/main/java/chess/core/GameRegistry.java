@@ -0,0 +1,176 @@
+package chess.core;
+
+import chess.engine.OpeningBook;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Registo de jogos independentes a decorrer na mesma JVM, identificados por um número.
+ * <p>
+ * Cada {@link GameManager} tem o seu tabuleiro; o livro de aberturas (mapeado em memória) e a tabela de transposição
+ * do motor são partilhados por todos os jogos, pelo que cada jogo ocupa apenas o tabuleiro e o histórico de movimentos.
+ * O histórico não cresce com o jogo: o tabuleiro guarda os registos para desfazer só desde o último movimento
+ * irreversível, no máximo 151 pela regra dos 75 lances (uns 8 KB), e só as fotografias atual e inicial ficam retidas.
+ * Cresce apenas o registo dos movimentos, 4 bytes por meio-lance: menos de 1 KB num jogo normal e uns 70 KB no jogo
+ * mais longo possível (menos de 17 700 meios-lances, pois um jogo terminado não aceita mais movimentos). Cada jogo
+ * ocupa assim uns 4 KB ao começar e uns 12 KB no fim de um jogo aleatório, e o número de jogos é limitado, para que
+ * a memória total também o seja.
+ * <p>
+ * O registo pode ser usado por várias threads. Um jogo não é seguro para threads, por isso só é acedido através de
+ * {@link #read(long, Function)} e {@link #write(long, Function)}, protegidos por um {@link StampedLock}: as escritas
+ * (jogar, desfazer, reiniciar) são feitas uma de cada vez e as leituras não bloqueiam enquanto não houver escritas.
+ * <p>
+ * Para não ter um bloqueio por jogo, os bloqueios vêm de um conjunto fixo ("lock striping"), escolhido pelo
+ * identificador: jogos diferentes só partilham um bloqueio se calharem na mesma faixa, sem um bloqueio global.
+ */
+public final class GameRegistry {
+    public static final int DEFAULT_STRIPES = 256;
+    private final Map<Long, GameManager> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger size = new AtomicInteger();
+    private final StampedLock[] locks; // Faixas, indexadas pelos bits baixos do identificador
+    private final int maxGames;
+    private final OpeningBook openingBook;
+
+    /**
+     * Registo com {@value #DEFAULT_STRIPES} bloqueios.
+     *
+     * @param maxGames    - número máximo de jogos em simultâneo.
+     * @param openingBook - livro de aberturas partilhado pelos jogos, ou nulo para o motor procurar sempre.
+     */
+    public GameRegistry(int maxGames, OpeningBook openingBook) {
+        this(maxGames, DEFAULT_STRIPES, openingBook);
+    }
+
+    /**
+     * @param maxGames    - número máximo de jogos em simultâneo.
+     * @param stripes     - número de bloqueios, arredondado para cima a uma potência de 2; com 1, há um bloqueio global.
+     * @param openingBook - livro de aberturas partilhado pelos jogos, ou nulo para o motor procurar sempre.
+     */
+    public GameRegistry(int maxGames, int stripes, OpeningBook openingBook) {
+        if (maxGames <= 0) throw new IllegalArgumentException("O número máximo de jogos deve ser positivo: " + maxGames);
+        if (stripes <= 0 || stripes > 1 << 20) throw new IllegalArgumentException("Número de bloqueios inválido: " + stripes);
+
+        this.locks = new StampedLock[stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+        for (int i = 0; i < this.locks.length; i++) this.locks[i] = new StampedLock();
+        this.maxGames = maxGames;
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * @return - número máximo de jogos em simultâneo.
+     */
+    public int capacity() {
+        return this.maxGames;
+    }
+
+    /**
+     * Começa um jogo novo.
+     *
+     * @return - identificador do jogo.
+     * @throws IllegalStateException se o registo já tiver o número máximo de jogos.
+     */
+    public long create() {
+        if (this.size.incrementAndGet() > this.maxGames) {
+            this.size.decrementAndGet();
+            throw new IllegalStateException("O registo já tem " + this.maxGames + " jogos");
+        }
+        long id = this.nextId.getAndIncrement();
+        this.games.put(id, new GameManager(this.openingBook));
+        return id;
+    }
+
+    /**
+     * Termina um jogo, libertando o seu tabuleiro.
+     *
+     * @param id - identificador do jogo.
+     * @return - verdadeiro se o jogo existia.
+     */
+    public boolean remove(long id) {
+        if (this.games.remove(id) == null) return false;
+        this.size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Consulta um jogo sem bloquear: a leitura é feita de forma otimista e só é repetida, com o bloqueio de leitura,
+     * se uma escrita no mesmo jogo (ou noutro da mesma faixa) a tiver apanhado a meio.
+     * <p>
+     * A consulta não pode alterar o jogo e pode ser executada duas vezes; o resultado deve ser calculado dentro dela
+     * (por exemplo com {@link GameManager#copyBoard()}), pois o jogo pode mudar logo a seguir.
+     *
+     * @param id     - identificador do jogo.
+     * @param reader - consulta a executar, por exemplo {@link GameManager#getValidMoves(chess.core.board.Position)}.
+     * @return - o resultado da consulta, calculado sobre um estado consistente do jogo.
+     * @throws IllegalArgumentException se o jogo não existir.
+     */
+    public <T> T read(long id, Function<GameManager, T> reader) {
+        GameManager game = this.getExisting(id);
+        StampedLock lock = this.lock(id);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T result = reader.apply(game);
+                if (lock.validate(stamp)) return result;
+            } catch (Throwable e) { // Um estado a meio de uma escrita pode causar qualquer erro, mesmo um StackOverflowError
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return reader.apply(game);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return - número de jogos a decorrer.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * @return - número de bloqueios partilhados pelos jogos.
+     */
+    public int stripes() {
+        return this.locks.length;
+    }
+
+    /**
+     * Altera um jogo, com o bloqueio de escrita: outras escritas e leituras do mesmo jogo esperam que termine.
+     * Escritas em jogos de faixas diferentes decorrem em paralelo.
+     *
+     * @param id     - identificador do jogo.
+     * @param writer - alteração a executar, por exemplo jogar um movimento.
+     * @return - o resultado da alteração.
+     * @throws IllegalArgumentException se o jogo não existir.
+     */
+    public <T> T write(long id, Function<GameManager, T> writer) {
+        GameManager game = this.getExisting(id);
+        StampedLock lock = this.lock(id);
+        long stamp = lock.writeLock();
+        try {
+            return writer.apply(game);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private GameManager getExisting(long id) {
+        GameManager game = this.games.get(id);
+        if (game == null) throw new IllegalArgumentException("O jogo " + id + " não existe");
+        return game;
+    }
+
+    private StampedLock lock(long id) {
+        return this.locks[(int) id & (this.locks.length - 1)]; // Identificadores consecutivos ficam em faixas diferentes
+    }
+}
@@ -0,0 +1,17 @@
+package chess.core;
+
+/**
+ * Estado do jogo do ponto de vista do jogador a jogar.
+ */
+public enum GameStatus {
+    IN_PROGRESS, CHECK, CHECKMATE, STALEMATE,
+    DRAW,          // Empate automático: 75 lances sem capturas nem movimentos de peão, ou a mesma posição 5 vezes
+    KING_CAPTURED; // Só em posições preparadas sem rei ou jogos antigos, em que o rei podia ser capturado
+
+    /**
+     * @return - verdadeiro se o jogo terminou.
+     */
+    public boolean isFinished() {
+        return this == CHECKMATE || this == STALEMATE || this == DRAW || this == KING_CAPTURED;
+    }
+}
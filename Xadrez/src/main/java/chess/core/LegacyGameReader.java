@@ -0,0 +1,244 @@
+package chess.core;
+
+import chess.core.board.Board;
+import chess.core.board.Position;
+import chess.core.board.Type;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leitura dos jogos gravados com a serialização Java, antes do {@link GameCodec}.
+ * <p>
+ * Esses ficheiros contêm as classes da altura ({@code GameManager}, {@code Board}, {@code Square}, {@code Piece}, ...),
+ * que entretanto mudaram e já não podem ser lidas diretamente. Cada classe antiga é lida para uma cópia privada com os
+ * mesmos campos, e só essas classes são aceites, para que o ficheiro não possa criar outros objetos.
+ * A posição lida (peças, peças já movidas e jogador a jogar) é então carregada num jogo novo.
+ * <p>
+ * Os jogos da consola eram gravados dentro da {@code ConsoleInterface}, que só guardava o {@code GameManager}:
+ * nesses ficheiros é lido o jogo guardado lá dentro.
+ */
+final class LegacyGameReader {
+    private static final int STREAM_MAGIC = 0xACED; // ObjectStreamConstants.STREAM_MAGIC
+    private static final Map<String, Class<?>> LEGACY_CLASSES = Map.ofEntries(
+            Map.entry("chess.userinterface.ConsoleInterface", LegacyConsole.class),
+            Map.entry("chess.core.GameManager", LegacyGame.class),
+            Map.entry("chess.core.board.Board", LegacyBoard.class),
+            Map.entry("chess.core.board.RulesMaster", LegacyRulesMaster.class),
+            Map.entry("chess.core.Square", LegacySquare.class),
+            Map.entry("[Lchess.core.Square;", LegacySquare[].class),
+            Map.entry("[[Lchess.core.Square;", LegacySquare[][].class),
+            Map.entry("chess.core.board.Position", LegacyPosition.class),
+            Map.entry("chess.core.board.Move", LegacyMove.class),
+            Map.entry("chess.core.board.pieces.Piece", LegacyPiece.class),
+            Map.entry("chess.core.board.pieces.Pawn", LegacyPawn.class),
+            Map.entry("chess.core.board.pieces.Knight", LegacyKnight.class),
+            Map.entry("chess.core.board.pieces.Bishop", LegacyBishop.class),
+            Map.entry("chess.core.board.pieces.Rook", LegacyRook.class),
+            Map.entry("chess.core.board.pieces.Queen", LegacyQueen.class),
+            Map.entry("chess.core.board.pieces.King", LegacyKing.class));
+    private static final ObjectInputFilter FILTER = info -> {
+        Class<?> type = info.serialClass();
+        if (info.depth() > 16 || info.references() > 10_000 || info.arrayLength() > 8) return ObjectInputFilter.Status.REJECTED;
+        if (type == null) return ObjectInputFilter.Status.UNDECIDED;
+        while (type.isArray()) type = type.getComponentType();
+        return LEGACY_CLASSES.containsValue(type) || type == PieceColor.class || type == Enum.class || type == LinkedList.class
+                ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+    };
+
+    private LegacyGameReader() {
+    }
+
+    /**
+     * @param buffer - bytes do ficheiro.
+     * @return - verdadeiro se o ficheiro for uma serialização Java.
+     */
+    static boolean isLegacy(ByteBuffer buffer) {
+        return buffer.remaining() >= 2 && (buffer.getShort(buffer.position()) & 0xFFFF) == STREAM_MAGIC;
+    }
+
+    /**
+     * Lê um jogo gravado com a serialização Java.
+     * <p>
+     * Os movimentos antigos não dizem a peça escolhida nas promoções nem a posição de partida, por isso só são
+     * repetidos se, jogados a partir da posição inicial, chegarem à posição gravada; senão, o jogo começa na posição
+     * gravada, sem histórico e sem "en passant".
+     *
+     * @param buffer - bytes do ficheiro.
+     * @return - o jogo gravado.
+     * @throws IOException se o ficheiro não for um jogo antigo válido.
+     */
+    static GameManager read(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        LegacyGame legacy;
+        try (ObjectInputStream input = new LegacyInputStream(new ByteArrayInputStream(bytes))) {
+            Object object = input.readObject();
+            legacy = object instanceof LegacyConsole console ? console.gameManager : (LegacyGame) object;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("O ficheiro não é um jogo gravado", e);
+        }
+        if (legacy == null || legacy.board == null || legacy.board.board == null || legacy.board.board.length != 8)
+            throw new IOException("O jogo gravado está corrompido");
+
+        String fen = toFen(legacy);
+        GameManager game = new GameManager();
+        if (legacy.board.moves != null && !legacy.board.moves.isEmpty() && replay(game, legacy.board.moves, fen)) return game;
+
+        try {
+            game.loadPosition(fen);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("O jogo gravado está corrompido", e);
+        }
+        return game;
+    }
+
+    private static boolean isUnmoved(int[] pieces, boolean[] unmoved, int square, Type type, PieceColor color) {
+        return pieces[square] == type.ordinal() * 2 + color.ordinal() + 1 && unmoved[square];
+    }
+
+    /**
+     * Joga os movimentos antigos a partir da posição inicial.
+     *
+     * @return - verdadeiro se todos forem legais e terminarem na posição gravada.
+     */
+    private static boolean replay(GameManager game, List<?> moves, String fen) {
+        for (Object object : moves) {
+            if (!(object instanceof LegacyMove move) || move.initPosition == null || move.endPosition == null) return false;
+            int ply = game.getSnapshot().getPly();
+            game.play(Position.of(move.initPosition.row, move.initPosition.col), Position.of(move.endPosition.row, move.endPosition.col));
+            if (game.getSnapshot().getPly() == ply) return false;
+        }
+        String replayed = game.getSnapshot().toFen();
+        return replayed.substring(0, replayed.indexOf(' ')).equals(fen.substring(0, fen.indexOf(' ')));
+    }
+
+    /**
+     * Os direitos de roque são os do rei e das torres que ainda estão por mover nas casas iniciais.
+     */
+    private static String toFen(LegacyGame legacy) throws IOException {
+        int[] pieces = new int[64];
+        boolean[] unmoved = new boolean[64];
+        for (int row = 0; row < 8; row++) {
+            LegacySquare[] squares = legacy.board.board[row];
+            if (squares == null || squares.length != 8) throw new IOException("O jogo gravado está corrompido");
+            for (int col = 0; col < 8; col++) {
+                LegacyPiece piece = squares[col] == null ? null : squares[col].piece;
+                if (piece == null) continue;
+                if (piece.pieceColor == null || piece.type() == null) throw new IOException("O jogo gravado está corrompido");
+                pieces[row * 8 + col] = piece.type().ordinal() * 2 + piece.pieceColor.ordinal() + 1;
+                unmoved[row * 8 + col] = !piece.hasMoved;
+            }
+        }
+
+        int rights = 0;
+        for (PieceColor color : PieceColor.values()) {
+            int row = color == PieceColor.WHITE ? 56 : 0;
+            if (!isUnmoved(pieces, unmoved, row + 4, Type.KING, color)) continue;
+            if (isUnmoved(pieces, unmoved, row + 7, Type.ROOK, color))
+                rights |= color == PieceColor.WHITE ? Board.WHITE_KING_SIDE : Board.BLACK_KING_SIDE;
+            if (isUnmoved(pieces, unmoved, row, Type.ROOK, color))
+                rights |= color == PieceColor.WHITE ? Board.WHITE_QUEEN_SIDE : Board.BLACK_QUEEN_SIDE;
+        }
+        return GameCodec.fen(pieces, legacy.isWhitePlay ? PieceColor.WHITE : PieceColor.BLACK, rights, Board.NO_SQUARE);
+    }
+
+    /**
+     * Lê as classes antigas para as cópias privadas, pelo nome, sem verificar a versão da classe.
+     */
+    private static final class LegacyInputStream extends ObjectInputStream {
+        LegacyInputStream(InputStream input) throws IOException {
+            super(input);
+            this.setObjectInputFilter(FILTER);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass descriptor = super.readClassDescriptor();
+            Class<?> legacyClass = LEGACY_CLASSES.get(descriptor.getName());
+            return legacyClass == null ? descriptor : ObjectStreamClass.lookup(legacyClass);
+        }
+    }
+
+    // Cópias das classes gravadas, com os mesmos nomes de campos
+    private static final class LegacyConsole implements Serializable {
+        private LegacyGame gameManager;
+    }
+
+    private static final class LegacyGame implements Serializable {
+        private boolean isWhitePlay;
+        private LegacyBoard board;
+        private LegacyRulesMaster ruleMaster;
+    }
+
+    private static final class LegacyBoard implements Serializable {
+        private List<?> moves;
+        private LegacySquare[][] board;
+    }
+
+    private static final class LegacyRulesMaster implements Serializable {
+        private LegacyBoard board;
+    }
+
+    private static final class LegacySquare implements Serializable {
+        private LegacyPosition position;
+        private LegacyPiece piece;
+    }
+
+    private static final class LegacyPosition implements Serializable {
+        private int row;
+        private int col;
+    }
+
+    private static final class LegacyMove implements Serializable {
+        private LegacyPiece piece;
+        private LegacyPosition initPosition;
+        private LegacyPosition endPosition;
+    }
+
+    private abstract static class LegacyPiece implements Serializable {
+        private PieceColor pieceColor;
+        private boolean hasMoved;
+
+        abstract Type type();
+    }
+
+    private static final class LegacyPawn extends LegacyPiece {
+        Type type() {
+            return Type.PAWN;
+        }
+    }
+
+    private static final class LegacyKnight extends LegacyPiece {
+        Type type() {
+            return Type.KNIGHT;
+        }
+    }
+
+    private static final class LegacyBishop extends LegacyPiece {
+        Type type() {
+            return Type.BISHOP;
+        }
+    }
+
+    private static final class LegacyRook extends LegacyPiece {
+        Type type() {
+            return Type.ROOK;
+        }
+    }
+
+    private static final class LegacyQueen extends LegacyPiece {
+        Type type() {
+            return Type.QUEEN;
+        }
+    }
+
+    private static final class LegacyKing extends LegacyPiece {
+        Type type() {
+            return Type.KING;
+        }
+    }
+}
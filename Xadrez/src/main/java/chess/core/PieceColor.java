@@ -1,5 +1,12 @@
 package chess.core;
 
 public enum PieceColor {
-    BLACK, WHITE,
+    BLACK, WHITE;
+
+    /**
+     * @return - A cor adversária.
+     */
+    public PieceColor opposite() {
+        return this == WHITE ? BLACK : WHITE;
+    }
 }
@@ -4,16 +4,18 @@ import chess.userinterface.ChessBoardUI;
 import chess.userinterface.ConsoleInterface;
 
 import java.io.*;
+import java.nio.file.Path;
 
 public class Serialization {
+    private static final Path CONSOLE_FILE = Path.of("savedFiles/latestChessGameConsole.bin");
+    private static final Path GUI_FILE = Path.of("savedFiles/latestChessGameGUI.bin");
+
     /**
-     * Salva o objeto Board atualmente em memória para um ficheiro serialization (.bin).
+     * Salva o jogo da consola para um ficheiro binário (.bin), no formato do {@link GameCodec}.
      */
     public static void saveBoardConsole(ConsoleInterface console) {
-        try (FileOutputStream streamFile = new FileOutputStream("savedFiles/latestChessGameConsole.bin"); ObjectOutputStream objectFile = new ObjectOutputStream(streamFile)) {
-            objectFile.writeObject(console);
-            objectFile.flush();
-            objectFile.close();
+        try {
+            GameCodec.save(console.getGameManager(), CONSOLE_FILE);
             System.out.println("Tabuleiro salvo com sucesso!");
         } catch (IOException e) {
             System.out.println("Erro ao salvar o tabuleiro!");
@@ -21,13 +23,53 @@ public class Serialization {
     }
 
     /**
-     * Salva o objeto Board atualmente em memória para um ficheiro serialization (.bin).
+     * Fecha o diário do jogo da interface gráfica, gravando o jogo num último ponto de controlo.
+     */
+    public static void closeJournalGUI(GameJournal journal) {
+        try {
+            journal.close();
+            System.out.println("Tabuleiro salvo com sucesso!");
+        } catch (IOException e) {
+            System.out.println("Erro ao salvar o tabuleiro!");
+        }
+    }
+
+    /**
+     * Começa o diário de um jogo novo da interface gráfica, substituindo o jogo gravado: daqui em diante,
+     * cada movimento é gravado logo que é jogado (ver {@link GameJournal}).
+     *
+     * @return o diário, ou nulo se ocorrer um erro.
+     */
+    public static GameJournal journalBoardGUI(GameManager game) {
+        try {
+            return GameJournal.create(game, GUI_FILE, GameJournal.Policy.everyMove());
+        } catch (IOException e) {
+            System.out.println("Erro ao criar o diário do jogo");
+            return null;
+        }
+    }
+
+    /**
+     * Retoma o último jogo da interface gráfica, a partir do último ponto de controlo e do diário dos movimentos
+     * jogados desde então, mesmo que a aplicação não tenha terminado normalmente.
+     *
+     * @return o diário, com o jogo em {@link GameJournal#getGame()}, ou nulo se ocorrer um erro.
+     */
+    public static GameJournal recoverBoardGUI() {
+        try {
+            return GameJournal.recover(GUI_FILE, GameJournal.Policy.everyMove());
+        } catch (IOException e) {
+            System.out.println("Erro ao carregar o tabuleiro");
+            return null;
+        }
+    }
+
+    /**
+     * Salva o jogo atualmente em memória para um ficheiro binário (.bin), no formato do {@link GameCodec}.
      */
     public static void saveBoardGUI(GameManager game) {
-        try (FileOutputStream streamFile = new FileOutputStream("savedFiles/latestChessGameGUI.bin"); ObjectOutputStream objectFile = new ObjectOutputStream(streamFile)) {
-            objectFile.writeObject(game);
-            objectFile.flush();
-            objectFile.close();
+        try {
+            GameCodec.save(game, GUI_FILE);
             System.out.println("Tabuleiro salvo com sucesso!");
         } catch (IOException e) {
             System.out.println("Erro ao salvar o tabuleiro!");
@@ -35,28 +77,31 @@ public class Serialization {
     }
 
     /**
-     * Carrega um objeto Board a partir de um ficheiro serializado (.bin).
+     * Carrega o jogo da consola a partir de um ficheiro binário (.bin), no formato do {@link GameCodec} ou no antigo
+     * formato da serialização Java, que só aceita as classes do jogo (ver {@link LegacyGameReader}) e é convertido
+     * na gravação seguinte.
      *
-     * @return {@code false} se o carregamento for bem-sucedido, {@code true} se ocorrer um erro.
+     * @return a consola com o jogo gravado, ou com um jogo novo se ocorrer um erro.
      */
     public static ConsoleInterface loadBoardConsole() {
-        try (FileInputStream streamFile = new FileInputStream("savedFiles/latestChessGameConsole.bin"); ObjectInputStream objectFile = new ObjectInputStream(streamFile)) {
-            return (ConsoleInterface) objectFile.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        try {
+            return new ConsoleInterface(GameCodec.load(CONSOLE_FILE));
+        } catch (IOException e) {
             System.out.println("Erro ao carregar o tabuleiro");
             return new ConsoleInterface();
         }
     }
 
     /**
-     * Carrega um objeto Board a partir de um ficheiro serializado (.bin).
+     * Carrega um jogo a partir de um ficheiro binário (.bin), no formato do {@link GameCodec} ou no antigo formato
+     * da serialização Java, que é convertido na gravação seguinte.
      *
-     * @return {@code false} se o carregamento for bem-sucedido, {@code true} se ocorrer um erro.
+     * @return o jogo gravado, ou um jogo novo se ocorrer um erro.
      */
     public static GameManager loadBoardGUI() {
-        try (FileInputStream streamFile = new FileInputStream("savedFiles/latestChessGameGUI.bin"); ObjectInputStream objectFile = new ObjectInputStream(streamFile)) {
-            return (GameManager) objectFile.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        try {
+            return GameCodec.load(GUI_FILE);
+        } catch (IOException e) {
             System.out.println("Erro ao carregar o tabuleiro");
             return new GameManager();
         }
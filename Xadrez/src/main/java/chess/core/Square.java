@@ -10,7 +10,7 @@ public class Square implements Serializable {
     private Piece piece;
 
     public Square(int row, int col) {
-        this.position = new Position(row, col);
+        this.position = Position.of(row, col);
     }
 
     public Piece getPiece() {
@@ -1,5 +1,7 @@
 package chess.core;
 
+import chess.core.board.Position;
+import chess.core.board.PositionSnapshot;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -21,17 +23,17 @@ import javax.xml.xpath.XPathFactory;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.List;
 
 public class XML {
 
     /**
      * Gera um ficheiro XML que representa o estado do tabuleiro de xadrez,
      * seguindo a estrutura definida no DTD 'xadrez.dtd'.
+     * A posição é lida de uma fotografia imutável, pelo que o jogo pode continuar enquanto o ficheiro é escrito.
      *
-     * @param board - Tabuleiro
+     * @param snapshot - posição do tabuleiro, por exemplo {@link GameManager#getSnapshot()}.
      */
-    public static void create(List<Square> board) {
+    public static void create(PositionSnapshot snapshot) {
         int i = 1;
 
         Document documentTabuleiro;
@@ -49,17 +51,19 @@ public class XML {
             Element whitePiecesElement = documentTabuleiro.createElement("PecasBrancas");
             rootElement.appendChild(whitePiecesElement);
 
-            for (Square square : board) {
-                if (!square.isEmpty()) {
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    if (snapshot.isEmpty(row, col)) continue;
+
                     Element pieceElement = documentTabuleiro.createElement("Peca");
                     pieceElement.setAttribute("id", String.valueOf(i++));
-                    pieceElement.setAttribute("tipo", square.getPiece().getClass().getSimpleName());
+                    pieceElement.setAttribute("tipo", snapshot.getType(row, col).getPieceName());
 
                     Element posElement = documentTabuleiro.createElement("posição");
-                    posElement.appendChild(documentTabuleiro.createTextNode(square.getPositionAsString()));
+                    posElement.appendChild(documentTabuleiro.createTextNode(Position.of(row, col).getPosition()));
                     pieceElement.appendChild(posElement);
 
-                    Element pieceColor = pathFinder(square.getPiece().getColor(), documentTabuleiro);
+                    Element pieceColor = pathFinder(snapshot.getColor(row, col), documentTabuleiro);
                     pieceColor.appendChild(pieceElement);
                 }
             }
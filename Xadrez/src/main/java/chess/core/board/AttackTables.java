@@ -0,0 +1,116 @@
+package chess.core.board;
+
+import chess.core.PieceColor;
+
+/**
+ * Tabelas pré-calculadas das casas atacadas por cavalos, reis e peões a partir de cada casa,
+ * e das casas entre pares de casas alinhadas (usadas para xeques e cravadas).
+ * São calculadas uma única vez ao carregar a classe; cada consulta é um acesso a um array,
+ * sem verificação de limites nem alocação.
+ */
+public final class AttackTables {
+    // (deltaLinha, deltaColuna)
+    private static final int[][] KNIGHT_DIRECTIONS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] KING_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] BLACK_PAWN_DIRECTIONS = {{1, -1}, {1, 1}};
+    private static final int[][] WHITE_PAWN_DIRECTIONS = {{-1, -1}, {-1, 1}};
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64]; // [ordinal da cor][casa]
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = attacks(square, KNIGHT_DIRECTIONS);
+            KING[square] = attacks(square, KING_DIRECTIONS);
+            PAWN[PieceColor.BLACK.ordinal()][square] = attacks(square, BLACK_PAWN_DIRECTIONS);
+            PAWN[PieceColor.WHITE.ordinal()][square] = attacks(square, WHITE_PAWN_DIRECTIONS);
+            for (int[] dir : KING_DIRECTIONS) fillLines(square, dir);
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    /**
+     * @return - bitboard das casas atacadas por um cavalo na casa dada.
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * @return - bitboard das casas atacadas por um rei na casa dada.
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Casas onde um peão da cor dada pode capturar. Por simetria, {@code pawn(cor, casa)} são também
+     * as casas de onde um peão da cor adversária ataca essa casa.
+     *
+     * @return - bitboard das casas atacadas por um peão da cor dada na casa dada.
+     */
+    public static long pawn(PieceColor pieceColor, int square) {
+        return PAWN[pieceColor.ordinal()][square];
+    }
+
+    /**
+     * Casas estritamente entre duas casas na mesma linha, coluna ou diagonal.
+     *
+     * @return - bitboard das casas entre as duas, ou vazio se não estiverem alinhadas ou forem vizinhas.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Linha, coluna ou diagonal completa, de borda a borda, que passa pelas duas casas.
+     *
+     * @return - bitboard da reta que contém as duas casas, ou vazio se não estiverem alinhadas.
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static long attacks(int square, int[][] directions) {
+        long attacks = Bitboard.EMPTY;
+        for (int[] dir : directions) {
+            int row = Bitboard.row(square) + dir[0];
+            int col = Bitboard.col(square) + dir[1];
+            if (row >= 0 && row < 8 && col >= 0 && col < 8) attacks |= Bitboard.bit(row, col);
+        }
+        return attacks;
+    }
+
+    /**
+     * Preenche as tabelas BETWEEN e LINE para todas as casas na direção dada a partir da casa.
+     */
+    private static void fillLines(int square, int[] dir) {
+        long ray = ray(square, dir[0], dir[1]);
+        long line = ray | ray(square, -dir[0], -dir[1]) | Bitboard.bit(square);
+        for (long targets = ray; targets != 0; targets &= targets - 1) {
+            int to = Bitboard.first(targets);
+            // As casas entre as duas são as do raio que também estão no raio oposto a partir do destino
+            BETWEEN[square][to] = ray & ray(to, -dir[0], -dir[1]);
+            LINE[square][to] = line;
+        }
+    }
+
+    /**
+     * Casas a partir da casa dada (exclusive) numa direção, até à borda do tabuleiro.
+     */
+    private static long ray(int square, int rowStep, int colStep) {
+        long ray = Bitboard.EMPTY;
+        int row = Bitboard.row(square) + rowStep;
+        int col = Bitboard.col(square) + colStep;
+        while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            ray |= Bitboard.bit(row, col);
+            row += rowStep;
+            col += colStep;
+        }
+        return ray;
+    }
+}
@@ -0,0 +1,84 @@
+package chess.core.board;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Utilitários da representação do tabuleiro em bitboards.
+ * Cada casa corresponde a um bit de um {@code long}: a casa (linha, coluna) é o bit {@code linha * 8 + coluna},
+ * pelo que A8 é o bit 0 e H1 é o bit 63 - a mesma ordem de {@link Board#getBoardAsList()}.
+ */
+public final class Bitboard {
+    public static final long EMPTY = 0L;
+    public static final long ALL = ~0L;
+
+    private Bitboard() {
+    }
+
+    /**
+     * Converte uma linha e uma coluna no índice da casa (0 a 63).
+     */
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    public static int square(Position position) {
+        return square(position.row, position.col);
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Retorna o bitboard com apenas a casa dada ativa.
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static long bit(int row, int col) {
+        return bit(square(row, col));
+    }
+
+    public static long bit(Position position) {
+        return bit(position.row, position.col);
+    }
+
+    public static boolean isSet(long bitboard, int square) {
+        return (bitboard & bit(square)) != 0;
+    }
+
+    /**
+     * Retorna o número de casas ativas do bitboard.
+     */
+    public static int count(long bitboard) {
+        return Long.bitCount(bitboard);
+    }
+
+    /**
+     * Retorna o índice da primeira casa ativa (a de menor índice), ou 64 se o bitboard estiver vazio.
+     */
+    public static int first(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * Converte um bitboard numa lista de posições, pela ordem das casas.
+     *
+     * @param bitboard - casas a converter.
+     * @return - Lista de posições ativas no bitboard.
+     */
+    public static List<Position> toPositions(long bitboard) {
+        List<Position> positions = new LinkedList<>();
+        for (long bits = bitboard; bits != 0; bits &= bits - 1) {
+            int square = first(bits);
+            positions.add(Position.of(square));
+        }
+        return positions;
+    }
+}
@@ -3,7 +3,6 @@ package chess.core.board;
 import chess.core.PieceColor;
 import chess.core.Square;
 import chess.core.board.pieces.Piece;
-import chess.core.board.pieces.Rook;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -16,26 +15,73 @@ import java.util.List;
 /**
  * Implementa um tabuleiro de xadrez passivo.
  * Por passivo, significa que esta implementação não oferece validação de movimentos de peças nem qualquer validação de regras de xadrez.
+ * <p>
+ * Além da grelha de {@link Square}, o tabuleiro mantém em paralelo uma representação em bitboards
+ * (um {@code long} por tipo e cor de peça, mais as máscaras de ocupação), sincronizada por todos os métodos que o alteram.
+ * As casas continuam a ser a vista usada pelas interfaces; os bitboards servem as consultas das regras.
+ * <p>
+ * Todos os movimentos passam por {@link #makeMove(int)}, que guarda numa pilha o necessário para os desfazer
+ * com {@link #unmakeMove()}. Essa pilha é também o histórico de movimentos do jogo; {@link #trimHistory()}
+ * descarta a parte anterior ao último movimento irreversível, para que o histórico de um jogo longo não cresça sempre.
+ * <p>
+ * Cada alteração atualiza também a chave de Zobrist da posição (ver {@link Zobrist}) com operações XOR,
+ * incluindo o lado a jogar, os direitos de roque e a coluna de "en passant". Uma segunda chave, só com os peões,
+ * identifica a estrutura de peões e só muda quando um peão é movido, capturado ou promovido.
+ * <p>
+ * Da mesma forma, são mantidas as somas dos valores de {@link PieceSquareTables} (meio-jogo e final) e a fase do jogo,
+ * para que a avaliação estática de uma posição não precise de percorrer o tabuleiro.
  */
 public class Board implements Serializable {
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int NO_SQUARE = -1;
     private static final Logger logger = LogManager.getLogger(Board.class);
-    static Board instance = null;
-    private final List<Move> moves = new LinkedList<>();
+    // Casas dos reis e das torres: só um movimento que as toque pode alterar os direitos de roque.
+    private static final long CASTLING_SQUARES = Bitboard.bit(0, 0) | Bitboard.bit(0, 4) | Bitboard.bit(0, 7)
+            | Bitboard.bit(7, 0) | Bitboard.bit(7, 4) | Bitboard.bit(7, 7);
+    private static final long[] NO_KEYS = {};
     private final Square[][] board = new Square[8][8];
+    private final long[] pieceBitboards = new long[12]; // Índice: tipo * 2 + cor (ver pieceIndex)
+    private final long[] colorBitboards = new long[2];  // Índice: ordinal da cor
+    private final int[] kingSquares = new int[2];       // Índice: ordinal da cor
+    private long occupied;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private PieceColor sideToMove = PieceColor.WHITE;
+    private long zobristKey;
+    private long pawnKey;        // Chave de Zobrist só dos peões
+    private int middlegameScore; // Do ponto de vista das Brancas
+    private int endgameScore;    // Do ponto de vista das Brancas
+    private int phase;
+    private UndoRecord[] history = new UndoRecord[64];
+    private int historySize;
+    private int trimmedPlies; // Meios-lances descartados do início do histórico por trimHistory
+    // Chaves das posições anteriores ao início do histórico, desde o último movimento irreversível (ver copy)
+    private long[] previousKeys = NO_KEYS;
 
-    private Board() {
+    /**
+     * Cria um tabuleiro vazio. Cada jogo tem o seu tabuleiro, pelo que vários jogos podem decorrer ao mesmo tempo,
+     * cada um na sua thread; o mesmo tabuleiro não pode ser alterado por duas threads em simultâneo.
+     */
+    public Board() {
         initBoard();
     }
 
-    public static Board getInstance() {
-        if (instance == null) instance = new Board();
-        return instance;
+    /**
+     * Índice do bitboard de um tipo e cor de peça.
+     */
+    private static int pieceIndex(Type type, PieceColor pieceColor) {
+        return (type.ordinal() << 1) | pieceColor.ordinal();
     }
 
-    private static Position translatePosition(String position) {
-        int col = position.charAt(0) - 'A';
-        int row = 8 - Character.getNumericValue(position.charAt(1));
-        return new Position(row, col);
+    /**
+     * @return - verdadeiro se o movimento for uma captura ou um movimento de peão, depois do qual nenhuma posição
+     * anterior se pode repetir.
+     */
+    private static boolean isIrreversible(int move) {
+        return PackedMove.isCapture(move) || PackedMove.piece(move) == Type.PAWN;
     }
 
     /**
@@ -46,11 +92,11 @@ public class Board implements Serializable {
      * @return - Lista de posições no meio.
      */
     public boolean areSquaresEmpty(Position initPosition, Position endPosition) {
-        boolean result = true;
-
-        for (Position position : getColumnPositionBetween(initPosition, endPosition))
-            result = result && getSquare(position).isEmpty();
-        return result;
+        int startPosition = Math.min(initPosition.col, endPosition.col);
+        int finishPosition = Math.max(initPosition.col, endPosition.col);
+        long startBit = Bitboard.bit(initPosition.row, startPosition);
+        long between = (Bitboard.bit(initPosition.row, finishPosition) - startBit) & ~startBit;
+        return (this.occupied & between) == 0;
     }
 
     /**
@@ -59,11 +105,7 @@ public class Board implements Serializable {
      * @return Uma lista de objetos {@link Position} das casas ocupadas.
      */
     public List<Position> getAllPositionOccupied() {
-        List<Position> allPieces = new LinkedList<>();
-
-        allPieces.addAll(this.getAllPositionOccupied(PieceColor.BLACK));
-        allPieces.addAll(this.getAllPositionOccupied(PieceColor.WHITE));
-        return allPieces;
+        return Bitboard.toPositions(this.occupied);
     }
 
     /**
@@ -73,11 +115,7 @@ public class Board implements Serializable {
      * @return Uma lista de objetos {@link Position} das casas ocupadas pela cor especificada.
      */
     public List<Position> getAllPositionOccupied(PieceColor pieceColor) {
-        List<Position> allPieces = new LinkedList<>();
-
-        for (Position position : getAllPositions())
-            if (this.getPiece(position).getColor() == pieceColor) allPieces.add(position);
-        return allPieces;
+        return Bitboard.toPositions(this.getOccupancy(pieceColor));
     }
 
     /**
@@ -100,18 +138,106 @@ public class Board implements Serializable {
      * numa sequência linear.
      */
     public final List<Square> getBoardAsList() {
-        List<Square> result = new LinkedList<>();
+        List<Square> result = new ArrayList<>(64);
         for (byte row = 0; row < 8; row++)
-            result.addAll(Arrays.asList(board[row]).subList(0, 8));
+            result.addAll(Arrays.asList(board[row]));
         return result;
     }
 
     /**
-     * Retorna a lista completa de movimentos realizados no jogo até ao momento.
+     * Calcula a chave de Zobrist a partir da grelha de casas, sem usar o valor mantido incrementalmente.
+     * Serve apenas para validar {@link #getZobristKey()}.
+     *
+     * @return - A chave de Zobrist da posição atual.
+     */
+    public long computeZobristKey() {
+        long key = Zobrist.castling(this.castlingRights) ^ this.enPassantKey();
+        if (this.sideToMove == PieceColor.BLACK) key ^= Zobrist.blackToMove();
+
+        for (int square = 0; square < 64; square++) {
+            Piece piece = this.board[Bitboard.row(square)][Bitboard.col(square)].getPiece();
+            if (piece != null) key ^= Zobrist.piece(pieceIndex(piece.getType(), piece.getColor()), square);
+        }
+        return key;
+    }
+
+    /**
+     * Cria uma cópia independente do tabuleiro, com novas peças no mesmo estado, que pode ser alterada
+     * noutra thread sem afetar este tabuleiro. O histórico de movimentos não é copiado, mas a cópia recebe as chaves
+     * das posições desde o último movimento irreversível: {@link #getRepetitionCount()} e {@link #getHalfmoveClock()}
+     * dão o mesmo resultado na cópia, que por isso vê as repetições e a regra dos 75 lances do jogo.
+     *
+     * @return - Um novo tabuleiro com a mesma posição.
+     */
+    public Board copy() {
+        Board copy = new Board();
+        for (long pieces = this.occupied; pieces != 0; pieces &= pieces - 1) {
+            int square = Bitboard.first(pieces);
+            Piece piece = this.board[Bitboard.row(square)][Bitboard.col(square)].getPiece();
+            Piece pieceCopy = PieceFactory.createPiece(piece.getType(), piece.getColor());
+            pieceCopy.setHasMoved(!piece.hasNotMoved());
+            copy.putPiece(pieceCopy, square);
+        }
+        copy.castlingRights = this.castlingRights;
+        copy.enPassantSquare = this.enPassantSquare;
+        copy.sideToMove = this.sideToMove;
+        copy.zobristKey = this.zobristKey;
+        copy.previousKeys = this.positionKeys();
+        return copy;
+    }
+
+    /**
+     * Retorna os direitos de roque que ainda existem, como uma combinação de
+     * {@link #WHITE_KING_SIDE}, {@link #WHITE_QUEEN_SIDE}, {@link #BLACK_KING_SIDE} e {@link #BLACK_QUEEN_SIDE}.
+     * Um direito existe enquanto o rei e a respetiva torre estiverem nas casas iniciais sem nunca se terem movido.
+     *
+     * @return - Máscara dos direitos de roque.
+     */
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    /**
+     * Retorna a casa sobre a qual passou um peão que acabou de avançar duas casas,
+     * ou seja, a casa de destino de uma captura "en passant".
+     *
+     * @return - Índice da casa (ver {@link Bitboard#square(int, int)}), ou {@link #NO_SQUARE} se não existir.
+     */
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    /**
+     * Retorna a soma dos valores de final ({@link PieceSquareTables#endgame}) das peças no tabuleiro, mantida incrementalmente.
+     *
+     * @return - Avaliação de final do ponto de vista das Brancas.
+     */
+    public int getEndgameScore() {
+        return this.endgameScore;
+    }
+
+    /**
+     * Retorna o número de meios-lances desde a última captura ou movimento de peão, para a regra dos 75 lances.
+     * Numa posição carregada, conta só os meios-lances jogados desde então.
+     *
+     * @return - Meios-lances desde o último movimento irreversível.
+     */
+    public int getHalfmoveClock() {
+        for (int i = this.historySize - 1; i >= 0; i--)
+            if (isIrreversible(this.history[i].move)) return this.historySize - 1 - i;
+        return this.historySize + this.previousKeys.length;
+    }
+
+    /**
+     * Retorna a lista de movimentos realizados que ainda estão na pilha de movimentos (ver {@link #trimHistory()}).
+     * A lista é construída a partir da pilha de movimentos, pelo que alterá-la não afeta o tabuleiro.
      *
      * @return Uma {@link List} de objetos {@link Move} que representam o histórico de todos os movimentos.
      */
     public List<Move> getHistoryMovesList() {
+        List<Move> moves = new LinkedList<>();
+        for (int i = 0; i < this.historySize; i++)
+            moves.add(this.history[i].toMove());
         return moves;
     }
 
@@ -123,18 +249,103 @@ public class Board implements Serializable {
      */
     public String getHistoryMovesText() {
         StringBuilder result = new StringBuilder();
-        for (Move move : moves)
+        for (Move move : getHistoryMovesList())
             result.append(move.getPiece().toString()).append(" - From:").append(move.getInitPosition()).append(" To:").append(move.getEndPosition()).append("\n");
         return result.toString();
     }
 
+    /**
+     * Retorna o número de movimentos na pilha de movimentos, sem os descartados por {@link #trimHistory()}.
+     *
+     * @return - Número de movimentos que podem ser desfeitos.
+     */
+    public int getHistorySize() {
+        return this.historySize;
+    }
+
+    /**
+     * Retorna a casa do rei de uma cor, mantida a cada alteração do tabuleiro.
+     *
+     * @param pieceColor - cor do rei.
+     * @return - Índice da casa (ver {@link Bitboard#square(int, int)}), ou {@link #NO_SQUARE} se não houver rei.
+     */
+    public int getKingSquare(PieceColor pieceColor) {
+        return this.kingSquares[pieceColor.ordinal()];
+    }
+
     /**
      * Retorna o último movimento realizado no jogo.
      *
      * @return O objeto {@link Move} que representa o último movimento, ou {@code null} se não houver movimentos.
      */
     public Move getLastMove() {
-        return !moves.isEmpty() ? moves.getLast() : null;
+        return this.historySize > 0 ? this.history[this.historySize - 1].toMove() : null;
+    }
+
+    /**
+     * Retorna o último movimento realizado, codificado por {@link PackedMove}.
+     *
+     * @return - O último movimento, ou {@link PackedMove#NONE} se não houver movimentos.
+     */
+    public int getLastPackedMove() {
+        return this.historySize > 0 ? this.history[this.historySize - 1].move : PackedMove.NONE;
+    }
+
+    /**
+     * Retorna a soma dos valores de meio-jogo ({@link PieceSquareTables#middlegame}) das peças no tabuleiro, mantida incrementalmente.
+     *
+     * @return - Avaliação de meio-jogo do ponto de vista das Brancas.
+     */
+    public int getMiddlegameScore() {
+        return this.middlegameScore;
+    }
+
+    /**
+     * Retorna o bitboard de todas as casas ocupadas, de ambas as cores.
+     *
+     * @return - Bitboard das casas ocupadas.
+     */
+    public long getOccupancy() {
+        return this.occupied;
+    }
+
+    /**
+     * Retorna o bitboard das casas ocupadas pelas peças de uma cor.
+     *
+     * @param pieceColor - cor das peças.
+     * @return - Bitboard das casas ocupadas por essa cor.
+     */
+    public long getOccupancy(PieceColor pieceColor) {
+        return this.colorBitboards[pieceColor.ordinal()];
+    }
+
+    /**
+     * Retorna a chave de Zobrist dos peões: o XOR das chaves de cada peão na sua casa, mantida incrementalmente.
+     * Posições com a mesma estrutura de peões têm a mesma chave, seja qual for o resto das peças.
+     *
+     * @return - A chave dos peões; 0 se não houver peões.
+     */
+    public long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    /**
+     * Retorna a fase do jogo: a soma dos pesos ({@link PieceSquareTables#phase}) das peças no tabuleiro,
+     * de {@link PieceSquareTables#maxPhase()} na abertura até 0 num final só com reis e peões.
+     *
+     * @return - Fase do jogo; pode passar do máximo depois de promoções.
+     */
+    public int getPhase() {
+        return this.phase;
+    }
+
+    /**
+     * Retorna o número de meios-lances jogados desde a posição inicial, incluindo os já descartados do histórico.
+     *
+     * @return - Número de meios-lances jogados.
+     */
+    public int getPly() {
+        return this.trimmedPlies + this.historySize;
     }
 
     public Piece getPiece(int row, int col) {
@@ -149,39 +360,77 @@ public class Board implements Serializable {
         return this.getSquare(position.row, position.col).getPiece();
     }
 
+    /**
+     * Retorna quantas vezes a posição atual, com o mesmo lado a jogar, já ocorreu antes no jogo.
+     * A procura pára no último movimento irreversível (captura ou movimento de peão).
+     *
+     * @return - Número de ocorrências anteriores da posição atual.
+     */
+    public int getRepetitionCount() {
+        int count = 0;
+        for (int i = this.historySize - 1; i >= 0; i--) {
+            UndoRecord record = this.history[i];
+            if (isIrreversible(record.move)) return count;
+            if (((this.historySize - i) & 1) == 0 && record.zobristKey == this.zobristKey) count++;
+        }
+        for (int i = this.previousKeys.length - 1; i >= 0; i--) // A última está a historySize + 1 meios-lances
+            if (((this.historySize + this.previousKeys.length - i) & 1) == 0 && this.previousKeys[i] == this.zobristKey) count++;
+        return count;
+    }
+
+    /**
+     * Retorna a cor que joga a seguir.
+     *
+     * @return - Cor do próximo a jogar.
+     */
+    public PieceColor getSideToMove() {
+        return this.sideToMove;
+    }
+
+    /**
+     * Retorna a chave de Zobrist da posição atual, que identifica a posição (peças, lado a jogar,
+     * direitos de roque e "en passant") num único {@code long}.
+     *
+     * @return - A chave de Zobrist.
+     */
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    /**
+     * Retorna o bitboard das casas ocupadas pelas peças de um tipo e cor.
+     *
+     * @param type       - tipo das peças.
+     * @param pieceColor - cor das peças.
+     * @return - Bitboard das casas ocupadas por essas peças.
+     */
+    public long getPieces(Type type, PieceColor pieceColor) {
+        return this.pieceBitboards[pieceIndex(type, pieceColor)];
+    }
+
     public Square getSquare(int row, int col) {
         return this.board[row][col];
     }
 
     public Square getSquare(String position) {
-        return getSquare(translatePosition(position).row, translatePosition(position).col);
+        return getSquare(Position.of(position));
     }
 
     public Square getSquare(Position position) {
         return getSquare(position.row, position.col);
     }
 
-    public void makeCastlingMove(Position initPosition, Position endPosition) {
-        //Mexer o Rei
-        board[endPosition.row][endPosition.col].setPiece(board[initPosition.row][initPosition.col].getPiece());
-        board[initPosition.row][initPosition.col].setEmpty();
-        board[endPosition.row][endPosition.col].getPiece().setHasMoved();
-
-        // Casteling do lado do Rei
-        if (board[endPosition.row][endPosition.col + 1].getPiece() instanceof Rook) {
-            board[endPosition.row][endPosition.col - 1].setPiece(board[endPosition.row][endPosition.col + 1].getPiece());
-            board[endPosition.row][endPosition.col - 1].getPiece().setHasMoved();
-            board[endPosition.row][endPosition.col + 1].setEmpty();
-        }
+    public boolean isEmpty(int row, int col) {
+        return (this.occupied & Bitboard.bit(row, col)) == 0;
+    }
 
-        // Casteling do lado da Rainha
-        if (board[endPosition.row][endPosition.col - 2].getPiece() instanceof Rook) {
-            board[endPosition.row][endPosition.col + 1].setPiece(board[endPosition.row][endPosition.col - 2].getPiece());
-            board[endPosition.row][endPosition.col + 1].getPiece().setHasMoved();
-            board[endPosition.row][endPosition.col - 2].setEmpty();
-        }
+    public boolean isEmpty(Position position) {
+        return this.isEmpty(position.row, position.col);
+    }
 
-        saveMove(new Move(board[endPosition.row][endPosition.col].getPiece(), initPosition, endPosition));
+    public void makeCastlingMove(Position initPosition, Position endPosition) {
+        this.makeMove(PackedMove.of(Bitboard.square(initPosition), Bitboard.square(endPosition), Type.KING) | PackedMove.CASTLING);
+        logger.info(getLastMove());
     }
 
     /**
@@ -192,11 +441,18 @@ public class Board implements Serializable {
      * @param endPosition  A posição final da peça após o movimento.
      */
     public void makeEnPassantMove(Position initPosition, Position endPosition) {
-        this.makeSimpleMove(initPosition, endPosition);
+        this.makeMove(PackedMove.capture(Bitboard.square(initPosition), Bitboard.square(endPosition), Type.PAWN, Type.PAWN) | PackedMove.EN_PASSANT);
+        logger.info(getLastMove());
+    }
 
-        Piece thisPiece = board[endPosition.row][endPosition.col].getPiece();
-        int enPassantRow = thisPiece.isWhite() ? endPosition.row + 1 : endPosition.row - 1;
-        board[enPassantRow][endPosition.col].setEmpty();
+    /**
+     * Realiza um movimento codificado por {@link PackedMove}, seja ele simples, captura, roque, "en passant" ou promoção.
+     * O movimento não é validado. O estado anterior fica guardado na pilha de movimentos para {@link #unmakeMove()}.
+     *
+     * @param move - movimento a realizar.
+     */
+    public void makeMove(int move) {
+        this.makeMove(move, null);
     }
 
     /**
@@ -208,9 +464,8 @@ public class Board implements Serializable {
      * @param endPosition  A posição final onde a nova peça será colocada.
      */
     public void makePromotionMove(Piece newPiece, Position initPosition, Position endPosition) {
-        board[endPosition.row][endPosition.col].setPiece(newPiece);
-        board[initPosition.row][initPosition.col].setEmpty();
-        this.saveMove(new Move(board[endPosition.row][endPosition.col].getPiece(), initPosition, endPosition));
+        this.makeMove(PackedMove.withPromotion(this.encodeMove(initPosition, endPosition), newPiece.getType()), newPiece);
+        logger.info(getLastMove());
     }
 
     /**
@@ -221,10 +476,8 @@ public class Board implements Serializable {
      * @param endPosition  A posição final da peça.
      */
     public void makeSimpleMove(Position initPosition, Position endPosition) {
-        board[endPosition.row][endPosition.col].setPiece(board[initPosition.row][initPosition.col].getPiece());
-        board[initPosition.row][initPosition.col].setEmpty();
-        board[endPosition.row][endPosition.col].getPiece().setHasMoved();
-        this.saveMove(new Move(board[endPosition.row][endPosition.col].getPiece(), initPosition, endPosition));
+        this.makeMove(this.encodeMove(initPosition, endPosition));
+        logger.info(getLastMove());
     }
 
     /**
@@ -232,12 +485,22 @@ public class Board implements Serializable {
      */
     public void resetBoard() {
         this.initBoard();
-        this.moves.clear();
         logger.info("New Game");
     }
 
+    /**
+     * Define a casa de "en passant", usado para preparar posições.
+     *
+     * @param square - casa sobre a qual passou o último peão a avançar duas casas, ou {@link #NO_SQUARE}.
+     */
+    public void setEnPassantSquare(int square) {
+        this.zobristKey ^= this.enPassantKey();
+        this.enPassantSquare = square;
+        this.zobristKey ^= this.enPassantKey();
+    }
+
     public void setPiece(Piece piece, String position) {
-        this.setPiece(piece, translatePosition(position));
+        this.setPiece(piece, Position.of(position));
     }
 
     public void setPiece(Piece piece, Position position) {
@@ -245,36 +508,311 @@ public class Board implements Serializable {
     }
 
     public void setPiece(Piece piece, int row, int col) {
-        this.board[row][col].setPiece(piece);
+        int square = Bitboard.square(row, col);
+        this.zobristKey ^= this.enPassantKey();
+        this.putPiece(piece, square);
+        this.zobristKey ^= this.enPassantKey();
+        if ((CASTLING_SQUARES & Bitboard.bit(square)) != 0) this.updateCastlingRights();
     }
 
-    private List<Position> getAllPositions() {
-        List<Position> allPositions = new LinkedList<>();
+    /**
+     * Define a cor que joga a seguir, usado para preparar posições.
+     *
+     * @param pieceColor - cor do próximo a jogar.
+     */
+    public void setSideToMove(PieceColor pieceColor) {
+        if (pieceColor == this.sideToMove) return;
 
-        for (byte row = 0; row < 8; row++)
-            for (byte col = 0; col < 8; col++)
-                allPositions.add(new Position(row, col));
-        return allPositions;
+        this.zobristKey ^= this.enPassantKey() ^ Zobrist.blackToMove();
+        this.sideToMove = pieceColor;
+        this.zobristKey ^= this.enPassantKey();
     }
 
-    private List<Position> getColumnPositionBetween(Position initPosition, Position endPosition) {
-        ArrayList<Position> result = new ArrayList<>();
-        int startPosition = Math.min(initPosition.col, endPosition.col);
-        int finishPosition = Math.max(initPosition.col, endPosition.col);
+    /**
+     * Fotografa a posição atual numa {@link PositionSnapshot} imutável, que pode ser lida por outras threads
+     * enquanto este tabuleiro continua a mudar. A fotografia não tem movimentos: é a sua própria posição inicial.
+     *
+     * @return - a fotografia da posição.
+     */
+    public PositionSnapshot snapshot() {
+        return new PositionSnapshot(this, null, null);
+    }
 
-        for (int i = startPosition + 1; i < finishPosition; i++)
-            result.add(new Position(initPosition.row, i));
-        return result;
+    /**
+     * Fotografa a posição atual de um jogo, com os movimentos jogados desde a posição inicial.
+     *
+     * @param root  - fotografia da posição inicial do jogo, ou nulo se for a posição atual.
+     * @param moves - movimentos do jogo, codificados por {@link PackedMove}, indexados pelo meio-lance, pelo menos até
+     *              {@link #getPly()}; as posições até aí não podem voltar a ser alteradas, pois a fotografia não as copia.
+     * @return - a fotografia da posição.
+     */
+    public PositionSnapshot snapshot(PositionSnapshot root, int[] moves) {
+        return new PositionSnapshot(this, root, moves);
+    }
+
+    /**
+     * Descarta os registos do histórico anteriores ao último movimento, se este for uma captura ou um movimento de peão:
+     * nenhuma posição anterior se pode repetir e a regra dos 75 lances recomeça, pelo que esses registos só serviam
+     * para desfazer movimentos. O último movimento continua a poder ser desfeito.
+     * <p>
+     * Chamado depois de cada movimento de um jogo, limita a pilha aos movimentos desde o último irreversível,
+     * no máximo {@link RulesMaster#DRAW_HALFMOVES} + 1, seja qual for a duração do jogo.
+     */
+    public void trimHistory() {
+        if (this.historySize < 2 || !isIrreversible(this.history[this.historySize - 1].move)) return;
+
+        UndoRecord last = this.history[this.historySize - 1];
+        for (int i = 0; i < this.historySize - 1; i++) { // Os registos ficam para ser reutilizados, sem as peças
+            this.history[i].piece = null;
+            this.history[i].promoted = null;
+            this.history[i].captured = null;
+        }
+        this.history[this.historySize - 1] = this.history[0];
+        this.history[0] = last;
+        this.trimmedPlies += this.historySize - 1;
+        this.historySize = 1;
+        this.previousKeys = NO_KEYS;
+    }
+
+    /**
+     * Desfaz o último movimento realizado, repondo as peças, a captura, o estado "hasMoved",
+     * os direitos de roque e a casa de "en passant" anteriores.
+     *
+     * @throws IllegalStateException se não houver movimentos para desfazer.
+     */
+    public void unmakeMove() {
+        if (this.historySize == 0) throw new IllegalStateException("Não existem movimentos para desfazer.");
+
+        UndoRecord record = this.history[--this.historySize];
+        int move = record.move;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+
+        if (PackedMove.isCastling(move)) {
+            int row = Bitboard.row(to);
+            boolean kingSide = Bitboard.col(to) == 6;
+            Piece rook = this.removePiece(Bitboard.square(row, kingSide ? 5 : 3));
+            this.putPiece(rook, Bitboard.square(row, kingSide ? 7 : 0));
+            rook.setHasMoved(false); // O roque só é possível com a torre por mover
+        }
+
+        this.removePiece(to);
+        this.putPiece(record.piece, from);
+        record.piece.setHasMoved(record.pieceHadMoved);
+        if (record.captured != null)
+            this.putPiece(record.captured, PackedMove.isEnPassant(move) ? Bitboard.square(Bitboard.row(from), Bitboard.col(to)) : to);
+
+        this.castlingRights = record.castlingRights;
+        this.enPassantSquare = record.enPassantSquare;
+        this.sideToMove = this.sideToMove.opposite();
+        this.zobristKey = record.zobristKey;
+        record.piece = null;
+        record.promoted = null;
+        record.captured = null;
+    }
+
+    /**
+     * Codifica como {@link PackedMove} um movimento simples ou captura entre duas posições, a partir das peças no tabuleiro.
+     */
+    private int encodeMove(Position initPosition, Position endPosition) {
+        int from = Bitboard.square(initPosition);
+        int to = Bitboard.square(endPosition);
+        Type type = this.getPiece(initPosition).getType();
+        Piece target = this.getPiece(endPosition);
+
+        int move = target != null ? PackedMove.capture(from, to, type, target.getType()) : PackedMove.of(from, to, type);
+        if (type == Type.PAWN && Math.abs(endPosition.row - initPosition.row) == 2) move |= PackedMove.DOUBLE_PUSH;
+        return move;
+    }
+
+    /**
+     * Parcela da chave de Zobrist relativa ao "en passant". Só conta quando um peão do lado a jogar
+     * pode de facto capturar, para que posições iguais tenham a mesma chave.
+     */
+    private long enPassantKey() {
+        if (this.enPassantSquare == NO_SQUARE) return 0L;
+
+        int col = Bitboard.col(this.enPassantSquare);
+        int pawnRow = this.sideToMove == PieceColor.WHITE ? 3 : 4; // Linha do peão que avançou duas casas
+        long capturers = (col > 0 ? Bitboard.bit(pawnRow, col - 1) : 0L) | (col < 7 ? Bitboard.bit(pawnRow, col + 1) : 0L);
+        return (this.getPieces(Type.PAWN, this.sideToMove) & capturers) != 0 ? Zobrist.enPassant(col) : 0L;
     }
 
     private void initBoard() {
         for (byte row = 0; row < 8; row++)
             for (byte col = 0; col < 8; col++)
                 board[row][col] = new Square(row, col);
+        Arrays.fill(this.pieceBitboards, Bitboard.EMPTY);
+        Arrays.fill(this.colorBitboards, Bitboard.EMPTY);
+        Arrays.fill(this.kingSquares, NO_SQUARE);
+        this.occupied = Bitboard.EMPTY;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.sideToMove = PieceColor.WHITE;
+        this.zobristKey = 0L;
+        this.pawnKey = 0L;
+        this.middlegameScore = 0;
+        this.endgameScore = 0;
+        this.phase = 0;
+        this.historySize = 0;
+        this.trimmedPlies = 0;
+        this.previousKeys = NO_KEYS;
+    }
+
+    private boolean isUnmoved(int row, int col, Type type, PieceColor pieceColor) {
+        Piece piece = this.board[row][col].getPiece();
+        return piece != null && piece.getType() == type && piece.getColor() == pieceColor && piece.hasNotMoved();
+    }
+
+    /**
+     * @param promotedPiece - peça a colocar numa promoção; se for nula, é criada uma nova peça do tipo indicado no movimento.
+     */
+    private void makeMove(int move, Piece promotedPiece) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        UndoRecord record = this.pushRecord();
+        record.move = move;
+        record.castlingRights = this.castlingRights;
+        record.enPassantSquare = this.enPassantSquare;
+        record.zobristKey = this.zobristKey;
+        this.zobristKey ^= this.enPassantKey();
+
+        Piece piece = this.removePiece(from);
+        record.piece = piece;
+        record.pieceHadMoved = !piece.hasNotMoved();
+        record.captured = this.removePiece(PackedMove.isEnPassant(move) ? Bitboard.square(Bitboard.row(from), Bitboard.col(to)) : to);
+
+        if (PackedMove.isPromotion(move)) {
+            record.promoted = promotedPiece != null ? promotedPiece : PieceFactory.createPiece(PackedMove.promotion(move), piece.getColor());
+            this.putPiece(record.promoted, to);
+        } else this.putPiece(piece, to);
+        piece.setHasMoved();
+
+        if (PackedMove.isCastling(move)) {
+            int row = Bitboard.row(to);
+            boolean kingSide = Bitboard.col(to) == 6;
+            Piece rook = this.removePiece(Bitboard.square(row, kingSide ? 7 : 0));
+            this.putPiece(rook, Bitboard.square(row, kingSide ? 5 : 3));
+            rook.setHasMoved();
+        }
+
+        if ((CASTLING_SQUARES & (Bitboard.bit(from) | Bitboard.bit(to))) != 0) this.updateCastlingRights();
+        this.sideToMove = this.sideToMove.opposite();
+        this.zobristKey ^= Zobrist.blackToMove();
+        this.enPassantSquare = PackedMove.isDoublePush(move) ? (from + to) >>> 1 : NO_SQUARE;
+        this.zobristKey ^= this.enPassantKey();
     }
 
-    private void saveMove(Move move) {
-        moves.add(move);
-        logger.info(move);
+    /**
+     * @return - as chaves das posições desde o último movimento irreversível até à anterior à atual,
+     * da mais antiga para a mais recente; são tantas como {@link #getHalfmoveClock()}.
+     */
+    private long[] positionKeys() {
+        int clock = this.getHalfmoveClock();
+        int fromHistory = Math.min(clock, this.historySize);
+        int fromPrevious = clock - fromHistory;
+        long[] keys = new long[clock];
+        System.arraycopy(this.previousKeys, this.previousKeys.length - fromPrevious, keys, 0, fromPrevious);
+        for (int i = 0; i < fromHistory; i++) keys[fromPrevious + i] = this.history[this.historySize - fromHistory + i].zobristKey;
+        return keys;
+    }
+
+    /**
+     * @return - a chave de Zobrist da posição antes do último movimento, ou 0 se a pilha de movimentos estiver vazia.
+     */
+    long previousZobristKey() {
+        return this.historySize > 0 ? this.history[this.historySize - 1].zobristKey : 0L;
+    }
+
+    private UndoRecord pushRecord() {
+        if (this.historySize == this.history.length) this.history = Arrays.copyOf(this.history, this.historySize * 2);
+        UndoRecord record = this.history[this.historySize];
+        if (record == null) record = this.history[this.historySize] = new UndoRecord();
+        this.historySize++;
+        return record;
+    }
+
+    /**
+     * Coloca uma peça numa casa, atualizando a grelha e os bitboards.
+     * Uma peça que já lá estivesse é retirada primeiro; uma peça nula apenas esvazia a casa.
+     */
+    private void putPiece(Piece piece, int square) {
+        this.removePiece(square);
+        if (piece == null) return;
+
+        long bit = Bitboard.bit(square);
+        int index = pieceIndex(piece.getType(), piece.getColor());
+        this.board[Bitboard.row(square)][Bitboard.col(square)].setPiece(piece);
+        this.pieceBitboards[index] |= bit;
+        this.zobristKey ^= Zobrist.piece(index, square);
+        if (piece.getType() == Type.PAWN) this.pawnKey ^= Zobrist.piece(index, square);
+        this.colorBitboards[piece.getColor().ordinal()] |= bit;
+        this.occupied |= bit;
+        this.middlegameScore += PieceSquareTables.middlegame(piece.getType(), piece.getColor(), square);
+        this.endgameScore += PieceSquareTables.endgame(piece.getType(), piece.getColor(), square);
+        this.phase += PieceSquareTables.phase(piece.getType());
+        if (piece.getType() == Type.KING) this.kingSquares[piece.getColor().ordinal()] = square;
+    }
+
+    /**
+     * Retira a peça de uma casa, atualizando a grelha e os bitboards.
+     *
+     * @return - A peça retirada, ou nulo se a casa estava vazia.
+     */
+    private Piece removePiece(int square) {
+        Square boardSquare = this.board[Bitboard.row(square)][Bitboard.col(square)];
+        Piece piece = boardSquare.getPiece();
+        if (piece == null) return null;
+
+        long bit = ~Bitboard.bit(square);
+        int index = pieceIndex(piece.getType(), piece.getColor());
+        boardSquare.setEmpty();
+        this.pieceBitboards[index] &= bit;
+        this.zobristKey ^= Zobrist.piece(index, square);
+        if (piece.getType() == Type.PAWN) this.pawnKey ^= Zobrist.piece(index, square);
+        this.colorBitboards[piece.getColor().ordinal()] &= bit;
+        this.occupied &= bit;
+        this.middlegameScore -= PieceSquareTables.middlegame(piece.getType(), piece.getColor(), square);
+        this.endgameScore -= PieceSquareTables.endgame(piece.getType(), piece.getColor(), square);
+        this.phase -= PieceSquareTables.phase(piece.getType());
+        if (piece.getType() == Type.KING && this.kingSquares[piece.getColor().ordinal()] == square)
+            this.kingSquares[piece.getColor().ordinal()] = NO_SQUARE;
+        return piece;
+    }
+
+    private void updateCastlingRights() {
+        int rights = 0;
+        if (isUnmoved(7, 4, Type.KING, PieceColor.WHITE)) {
+            if (isUnmoved(7, 7, Type.ROOK, PieceColor.WHITE)) rights |= WHITE_KING_SIDE;
+            if (isUnmoved(7, 0, Type.ROOK, PieceColor.WHITE)) rights |= WHITE_QUEEN_SIDE;
+        }
+        if (isUnmoved(0, 4, Type.KING, PieceColor.BLACK)) {
+            if (isUnmoved(0, 7, Type.ROOK, PieceColor.BLACK)) rights |= BLACK_KING_SIDE;
+            if (isUnmoved(0, 0, Type.ROOK, PieceColor.BLACK)) rights |= BLACK_QUEEN_SIDE;
+        }
+        this.zobristKey ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(rights);
+        this.castlingRights = rights;
+    }
+
+    /**
+     * Estado necessário para desfazer um movimento. Os registos são reutilizados entre movimentos
+     * para que fazer e desfazer movimentos não crie objetos.
+     */
+    private static final class UndoRecord implements Serializable {
+        private int move;
+        private Piece piece;        // Peça movida; numa promoção, o peão original, reposto ao desfazer
+        private Piece promoted;     // Peça que substituiu o peão numa promoção, ou nulo
+        private Piece captured;     // Peça capturada, ou nulo
+        private boolean pieceHadMoved;
+        private int castlingRights;
+        private int enPassantSquare;
+        private long zobristKey;    // Chave da posição antes do movimento
+
+        /**
+         * @return - o movimento, com a peça que chegou ao destino (numa promoção, a peça promovida).
+         */
+        private Move toMove() {
+            return new Move(this.promoted != null ? this.promoted : this.piece, Position.of(PackedMove.from(this.move)), Position.of(PackedMove.to(this.move)));
+        }
     }
 }
@@ -0,0 +1,125 @@
+package chess.core.board;
+
+import chess.core.PieceColor;
+import chess.core.board.pieces.Piece;
+
+/**
+ * Leitura e escrita de posições na notação FEN (Forsyth-Edwards), usada para preparar posições arbitrárias,
+ * por exemplo nos testes de perft.
+ * <p>
+ * Os direitos de roque são representados no {@link Board} pelo estado "hasMoved" do rei e das torres,
+ * pelo que ao carregar uma posição só ficam por mover as peças cujo roque o FEN permite.
+ * O tabuleiro não guarda os contadores de meios-lances e de lances: são ignorados ao ler e escritos como "0 1".
+ */
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String PIECE_LETTERS = "PNBRQK"; // Pela ordem de Type
+    private static final Type[] TYPES = Type.values();
+
+    private Fen() {
+    }
+
+    /**
+     * Substitui o conteúdo do tabuleiro pela posição descrita, apagando o histórico de movimentos.
+     *
+     * @param board - tabuleiro a preparar.
+     * @param fen   - posição em notação FEN; os campos de roque, "en passant" e contadores são opcionais.
+     * @throws IllegalArgumentException se o FEN não for válido.
+     */
+    public static void load(Board board, String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8 || fields.length < 2) throw new IllegalArgumentException("FEN inválido: " + fen);
+        String castling = fields.length > 2 ? fields[2] : "-";
+
+        board.resetBoard();
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (char letter : rows[row].toCharArray()) {
+                if (letter >= '1' && letter <= '8') {
+                    col += letter - '0';
+                    continue;
+                }
+
+                int index = PIECE_LETTERS.indexOf(Character.toUpperCase(letter));
+                if (index < 0 || col > 7) throw new IllegalArgumentException("FEN inválido: " + fen);
+                PieceColor pieceColor = Character.isUpperCase(letter) ? PieceColor.WHITE : PieceColor.BLACK;
+                Piece piece = PieceFactory.createPiece(TYPES[index], pieceColor);
+                piece.setHasMoved(!canCastle(piece, row, col, castling));
+                board.setPiece(piece, row, col++);
+            }
+            if (col != 8) throw new IllegalArgumentException("FEN inválido: " + fen);
+        }
+
+        switch (fields[1]) {
+            case "w" -> board.setSideToMove(PieceColor.WHITE);
+            case "b" -> board.setSideToMove(PieceColor.BLACK);
+            default -> throw new IllegalArgumentException("FEN inválido: " + fen);
+        }
+        if (fields.length > 3 && !fields[3].equals("-")) board.setEnPassantSquare(Bitboard.square(Position.of(fields[3])));
+    }
+
+    /**
+     * Descreve em notação FEN a posição atual do tabuleiro.
+     *
+     * @param board - tabuleiro a descrever.
+     * @return - a posição em notação FEN.
+     */
+    public static String toFen(Board board) {
+        return toFen(board.snapshot());
+    }
+
+    /**
+     * Descreve em notação FEN uma posição fotografada.
+     *
+     * @param snapshot - posição a descrever.
+     * @return - a posição em notação FEN.
+     */
+    public static String toFen(PositionSnapshot snapshot) {
+        StringBuilder result = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Type type = snapshot.getType(row, col);
+                if (type == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) result.append(empty);
+                empty = 0;
+                char letter = PIECE_LETTERS.charAt(type.ordinal());
+                result.append(snapshot.getColor(row, col) == PieceColor.WHITE ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) result.append(empty);
+            if (row < 7) result.append('/');
+        }
+
+        result.append(snapshot.getSideToMove() == PieceColor.WHITE ? " w " : " b ");
+        int rights = snapshot.getCastlingRights();
+        if (rights == 0) result.append('-');
+        if ((rights & Board.WHITE_KING_SIDE) != 0) result.append('K');
+        if ((rights & Board.WHITE_QUEEN_SIDE) != 0) result.append('Q');
+        if ((rights & Board.BLACK_KING_SIDE) != 0) result.append('k');
+        if ((rights & Board.BLACK_QUEEN_SIDE) != 0) result.append('q');
+
+        int enPassantSquare = snapshot.getEnPassantSquare();
+        result.append(' ').append(enPassantSquare == Board.NO_SQUARE ? "-" : Position.of(enPassantSquare).getPosition().toLowerCase());
+        return result.append(" 0 1").toString();
+    }
+
+    /**
+     * Verifica se a peça é um rei ou uma torre na casa inicial com o respetivo roque permitido pelo FEN.
+     */
+    private static boolean canCastle(Piece piece, int row, int col, String castling) {
+        boolean isWhite = piece.isWhite();
+        if (row != (isWhite ? 7 : 0)) return false;
+
+        String kingSide = isWhite ? "K" : "k";
+        String queenSide = isWhite ? "Q" : "q";
+        return switch (piece.getType()) {
+            case KING -> col == 4 && (castling.contains(kingSide) || castling.contains(queenSide));
+            case ROOK -> (col == 7 && castling.contains(kingSide)) || (col == 0 && castling.contains(queenSide));
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,210 @@
+package chess.core.board;
+
+import java.util.SplittableRandom;
+
+/**
+ * Ataques das peças deslizantes (torre, bispo e rainha) por "magic bitboards".
+ * <p>
+ * Para cada casa, as peças que podem bloquear os raios (a máscara, sem as casas da borda) são multiplicadas
+ * por um número "mágico" e deslocadas, dando um índice direto para uma tabela com o bitboard dos ataques.
+ * Assim, os ataques de uma casa para qualquer ocupação do tabuleiro custam um AND, uma multiplicação,
+ * um deslocamento e um acesso a um array.
+ * <p>
+ * Os números mágicos foram encontrados por tentativa com números aleatórios de semente fixa ({@link #main(String[])})
+ * e estão guardados como constantes, para que o arranque apenas preencha as tabelas. Procurá-los a cada arranque
+ * demorava mais de meio segundo.
+ */
+public final class MagicBitboards {
+    private static final long SEED = 0x6D61_6769_6362_6273L;
+    // (deltaLinha, deltaColuna)
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final long[] ROOK_MAGICS = {
+            0x0080004000802012L, 0x0040100040002000L, 0x890008200101C030L, 0x4080100080040800L,
+            0x018008001400808AL, 0x2200100882000144L, 0x8C00008230014804L, 0x018000A041000080L,
+            0x0021002080090040L, 0xB003004001048022L, 0x0022002040108200L, 0x0008800804801002L,
+            0x0002000804102200L, 0x0140800200040080L, 0x0001000401000200L, 0x1411000040820100L,
+            0x4140148000208040L, 0x0090084008E00540L, 0x1021030020001244L, 0x0208028010028048L,
+            0x3104008004080080L, 0x8001010004000208L, 0x1000440008018210L, 0x434002000410A041L,
+            0x0000400080008020L, 0x0088400480200080L, 0x8008408200220411L, 0x1000090100100024L,
+            0x0018000900110084L, 0x0000020080800400L, 0x0000010400021008L, 0x00400042000C0485L,
+            0x0A8000400140200AL, 0x8000401000C02006L, 0x00A0004800401001L, 0x0280200901001002L,
+            0x1D40040801001100L, 0x01020010C2000904L, 0x2051020104001008L, 0x048008804200110CL,
+            0x8A00400080208000L, 0x0090004020004001L, 0xB020001002848022L, 0x0412000C40220010L,
+            0x2011004800050030L, 0x1008020004008080L, 0x0142000108020084L, 0x04000845088A0004L,
+            0x0800502900800500L, 0x0000200040100840L, 0x1820001504204100L, 0x8200801000080280L,
+            0x0500080004008080L, 0x1400020004008080L, 0x0008022801500400L, 0x1020008774010200L,
+            0x0021008000402011L, 0x1000810040001029L, 0x4000102AC0600101L, 0x8082004008200412L,
+            0x8122000420081002L, 0x4012008104481002L, 0x9000410200881004L, 0x0B00040851012282L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0064410448008100L, 0x00A01290A6008000L, 0x0004040082100000L, 0x8891040282980130L,
+            0x4010882020000100L, 0x50010442C0005000L, 0x08284A1010092030L, 0x0400140082101012L,
+            0x4247103190088088L, 0x0004040812140820L, 0x1011088800408011L, 0x00000C2400808294L,
+            0x0004108820021040L, 0x0120010420048000L, 0x8000820090080824L, 0x008C02240A029004L,
+            0x2121091144412800L, 0x9020008908008098L, 0x200C851004008008L, 0x014110280411002AL,
+            0x0401000690400040L, 0x0001020290009000L, 0x2084B00402013002L, 0x0062000029090841L,
+            0x0A84503241100100L, 0x8028022008020820L, 0x800C208444080080L, 0x0040404004010200L,
+            0x0085001003004029L, 0x0009030040300802L, 0x200206000420D188L, 0x01908100A8240200L,
+            0x00082241B2288809L, 0x2012022000100100L, 0x0083014800290801L, 0x8000202020080080L,
+            0x050C0024000A0090L, 0x2041100100402400L, 0x0490089A00010110L, 0x4002042220024200L,
+            0x00811009048020B0L, 0x0000480404049100L, 0x4063040026001C00L, 0x000D242018049100L,
+            0x2080081100430404L, 0x0040090400200700L, 0x04080808C4940401L, 0x0090010445108180L,
+            0x80020801870A0005L, 0x4003008884200001L, 0x0050020100888020L, 0x0800000820880800L,
+            0x001084D002021020L, 0x1404048810010025L, 0x081404C408460004L, 0x4029020820410284L,
+            0x0102240058080806L, 0x0180008401411030L, 0x8044080202110420L, 0x08104B0064208800L,
+            0x10403008C0104124L, 0x1204028843080208L, 0x9000054404480A08L, 0x0040024801202082L
+    };
+    private static final Magic[] ROOK = new Magic[64];
+    private static final Magic[] BISHOP = new Magic[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            ROOK[square] = buildMagic(square, ROOK_DIRECTIONS, ROOK_MAGICS[square]);
+            BISHOP[square] = buildMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGICS[square]);
+        }
+    }
+
+    private MagicBitboards() {
+    }
+
+    /**
+     * Procura de novo os números mágicos e imprime-os no formato das constantes desta classe.
+     */
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        long[] rookMagics = new long[64];
+        long[] bishopMagics = new long[64];
+        for (int square = 0; square < 64; square++) {
+            rookMagics[square] = findMagic(square, ROOK_DIRECTIONS, random);
+            bishopMagics[square] = findMagic(square, BISHOP_DIRECTIONS, random);
+        }
+        printMagics("ROOK_MAGICS", rookMagics);
+        printMagics("BISHOP_MAGICS", bishopMagics);
+    }
+
+    /**
+     * @param square    - casa da torre.
+     * @param occupancy - bitboard de todas as casas ocupadas.
+     * @return - bitboard das casas atacadas, incluindo as casas das primeiras peças encontradas em cada direção.
+     */
+    public static long rook(int square, long occupancy) {
+        return ROOK[square].attacks(occupancy);
+    }
+
+    /**
+     * @param square    - casa do bispo.
+     * @param occupancy - bitboard de todas as casas ocupadas.
+     * @return - bitboard das casas atacadas, incluindo as casas das primeiras peças encontradas em cada direção.
+     */
+    public static long bishop(int square, long occupancy) {
+        return BISHOP[square].attacks(occupancy);
+    }
+
+    /**
+     * @param square    - casa da rainha.
+     * @param occupancy - bitboard de todas as casas ocupadas.
+     * @return - bitboard das casas atacadas, a união dos ataques de torre e de bispo.
+     */
+    public static long queen(int square, long occupancy) {
+        return ROOK[square].attacks(occupancy) | BISHOP[square].attacks(occupancy);
+    }
+
+    /**
+     * Preenche a tabela de ataques de uma casa com um número mágico já conhecido.
+     *
+     * @throws IllegalStateException se o número não servir para a casa.
+     */
+    private static Magic buildMagic(int square, int[][] directions, long magic) {
+        long mask = slidingAttacks(square, Bitboard.EMPTY, directions, true);
+        int bits = Bitboard.count(mask);
+        long[] table = new long[1 << bits];
+        if (!fillTable(square, directions, mask, magic, table, new int[table.length], 1))
+            throw new IllegalStateException("Número mágico inválido para a casa " + square);
+        return new Magic(mask, magic, 64 - bits, table);
+    }
+
+    /**
+     * Preenche a tabela com os ataques de todas as ocupações possíveis da máscara.
+     * Colisões só são aceites se os ataques forem iguais.
+     *
+     * @return - falso se o número mágico tiver colisões.
+     */
+    private static boolean fillTable(int square, int[][] directions, long mask, long magic, long[] table, int[] epoch, int attempt) {
+        int shift = 64 - Bitboard.count(mask);
+        long subset = Bitboard.EMPTY;
+        do {
+            int index = (int) ((subset * magic) >>> shift);
+            long attacks = slidingAttacks(square, subset, directions, false);
+            if (epoch[index] != attempt) {
+                epoch[index] = attempt;
+                table[index] = attacks;
+            } else if (table[index] != attacks) return false;
+            subset = (subset - mask) & mask; // Próximo subconjunto da máscara
+        } while (subset != Bitboard.EMPTY);
+        return true;
+    }
+
+    /**
+     * Tenta números aleatórios até encontrar um que indexe todas as ocupações da máscara sem colisões.
+     */
+    private static long findMagic(int square, int[][] directions, SplittableRandom random) {
+        long mask = slidingAttacks(square, Bitboard.EMPTY, directions, true);
+        long[] table = new long[1 << Bitboard.count(mask)];
+        int[] epoch = new int[table.length]; // Tentativa em que cada entrada foi preenchida, para não limpar a tabela
+        for (int attempt = 1; ; attempt++) {
+            long magic = random.nextLong() & random.nextLong() & random.nextLong(); // Poucos bits ativos funcionam melhor
+            if (Long.bitCount((mask * magic) & 0xFF00_0000_0000_0000L) < 6) continue;
+            if (fillTable(square, directions, mask, magic, table, epoch, attempt)) return magic;
+        }
+    }
+
+    private static boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+
+    private static void printMagics(String name, long[] magics) {
+        StringBuilder result = new StringBuilder("    private static final long[] " + name + " = {");
+        for (int square = 0; square < magics.length; square++) {
+            if (square > 0) result.append(",");
+            result.append(square % 4 == 0 ? "\n            " : " ").append(String.format("0x%016XL", magics[square]));
+        }
+        System.out.println(result.append("\n    };"));
+    }
+
+    /**
+     * Calcula os ataques percorrendo cada direção casa a casa até à primeira peça ou ao limite do tabuleiro.
+     * Usado apenas para preencher as tabelas.
+     */
+    private static long slidingAttacks(int square, long occupancy, int[][] directions, boolean excludeEdges) {
+        long attacks = Bitboard.EMPTY;
+        for (int[] dir : directions) {
+            int row = Bitboard.row(square) + dir[0];
+            int col = Bitboard.col(square) + dir[1];
+            while (isOnBoard(row, col)) {
+                // Na máscara, a última casa de cada direção não conta: está sempre ocupada ou não, sem mudar os ataques
+                if (excludeEdges && !isOnBoard(row + dir[0], col + dir[1])) break;
+
+                long bit = Bitboard.bit(row, col);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) break;
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Máscara, número mágico, deslocamento e tabela de ataques de uma casa.
+     */
+    private record Magic(long mask, long magic, int shift, long[] table) {
+        private int index(long occupancy) {
+            return (int) (((occupancy & this.mask) * this.magic) >>> this.shift);
+        }
+
+        private long attacks(long occupancy) {
+            return this.table[this.index(occupancy)];
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package chess.core.board;
+
+import java.util.Arrays;
+
+/**
+ * Lista reutilizável de movimentos codificados por {@link PackedMove}, guardados num array de {@code int}.
+ * Os geradores de movimentos acrescentam a uma lista existente; chamar {@link #clear()} permite
+ * reutilizá-la sem novas alocações.
+ */
+public final class MoveList {
+    public static final int DEFAULT_CAPACITY = 256; // Nenhuma posição legal tem mais de 218 movimentos.
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (this.size == this.moves.length) this.moves = Arrays.copyOf(this.moves, this.size * 2);
+        this.moves[this.size++] = move;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < this.size; i++)
+            if (this.moves[i] == move) return true;
+        return false;
+    }
+
+    public int get(int index) {
+        return this.moves[index];
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void set(int index, int move) {
+        this.moves[index] = move;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Descarta os movimentos a partir do índice dado, mantendo os anteriores.
+     *
+     * @param size - novo tamanho da lista, não superior ao atual.
+     */
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < this.size; i++) {
+            if (i > 0) result.append(", ");
+            result.append(PackedMove.toString(this.moves[i]));
+        }
+        return result.append("]").toString();
+    }
+}
@@ -0,0 +1,135 @@
+package chess.core.board;
+
+/**
+ * Codificação compacta de um movimento num único {@code int}, usada pela geração de movimentos
+ * para não criar objetos {@link Move} por cada movimento.
+ * <p>
+ * Disposição dos bits:
+ * <pre>
+ *  0-5   casa de origem (ver {@link Bitboard#square(int, int)})
+ *  6-11  casa de destino
+ * 12-14  tipo da peça movida (ordinal de {@link Type})
+ * 15-17  tipo da peça capturada (válido apenas com {@link #CAPTURE})
+ * 18-20  tipo da peça promovida (0 se não for uma promoção)
+ * 21     captura
+ * 22     captura "en passant"
+ * 23     roque
+ * 24     avanço duplo de peão
+ * </pre>
+ * O valor {@link #NONE} (zero) nunca corresponde a um movimento, pois a origem e o destino seriam a mesma casa.
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+    public static final int CAPTURE = 1 << 21;
+    public static final int EN_PASSANT = 1 << 22;
+    public static final int CASTLING = 1 << 23;
+    public static final int DOUBLE_PUSH = 1 << 24;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 15;
+    private static final int PROMOTION_SHIFT = 18;
+    private static final Type[] TYPES = Type.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * Codifica um movimento simples, sem captura.
+     *
+     * @param from  - casa de origem.
+     * @param to    - casa de destino.
+     * @param piece - tipo da peça movida.
+     * @return - o movimento codificado.
+     */
+    public static int of(int from, int to, Type piece) {
+        return from | (to << TO_SHIFT) | (piece.ordinal() << PIECE_SHIFT);
+    }
+
+    /**
+     * Codifica um movimento que captura a peça na casa de destino.
+     *
+     * @param from     - casa de origem.
+     * @param to       - casa de destino.
+     * @param piece    - tipo da peça movida.
+     * @param captured - tipo da peça capturada.
+     * @return - o movimento codificado.
+     */
+    public static int capture(int from, int to, Type piece, Type captured) {
+        return of(from, to, piece) | (captured.ordinal() << CAPTURED_SHIFT) | CAPTURE;
+    }
+
+    /**
+     * Acrescenta a um movimento de peão a peça para a qual é promovido.
+     *
+     * @param move      - movimento do peão até à última fila.
+     * @param promotion - tipo da nova peça.
+     * @return - o movimento codificado com a promoção.
+     */
+    public static int withPromotion(int move, Type promotion) {
+        return (move & ~(7 << PROMOTION_SHIFT)) | (promotion.ordinal() << PROMOTION_SHIFT);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & 63;
+    }
+
+    public static Type piece(int move) {
+        return TYPES[(move >>> PIECE_SHIFT) & 7];
+    }
+
+    /**
+     * @return - o tipo da peça capturada, ou nulo se o movimento não for uma captura.
+     */
+    public static Type captured(int move) {
+        return isCapture(move) ? TYPES[(move >>> CAPTURED_SHIFT) & 7] : null;
+    }
+
+    /**
+     * @return - o tipo da peça promovida, ou nulo se o movimento não for uma promoção.
+     */
+    public static Type promotion(int move) {
+        int promotion = (move >>> PROMOTION_SHIFT) & 7;
+        return promotion == 0 ? null : TYPES[promotion];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & 7) != 0;
+    }
+
+    /**
+     * @return - verdadeiro se o movimento não for uma captura nem uma promoção.
+     */
+    public static boolean isQuiet(int move) {
+        return (move & (CAPTURE | 7 << PROMOTION_SHIFT)) == 0;
+    }
+
+    /**
+     * Retorna o movimento no formato "E2E4", com a letra da peça promovida no fim (ex: "E7E8Q").
+     */
+    public static String toString(int move) {
+        if (move == NONE) return "-";
+        String result = Position.of(from(move)).getPosition() + Position.of(to(move)).getPosition();
+        return isPromotion(move) ? result + "NBRQ".charAt(promotion(move).ordinal() - 1) : result;
+    }
+}
@@ -0,0 +1,182 @@
+package chess.core.board;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Contagem de nós da árvore de movimentos legais até uma profundidade (perft).
+ * Serve para validar o gerador de movimentos contra contagens publicadas e para medir a sua velocidade.
+ * <p>
+ * A contagem pode ser feita numa só thread sobre o tabuleiro dado, ou repartida pelos movimentos da raiz
+ * num {@link ForkJoinPool}, em que cada tarefa trabalha sobre uma cópia do tabuleiro ({@link Board#copy()}).
+ * <p>
+ * Uso na linha de comandos: {@code Perft <profundidade> [--parallel] [FEN]}.
+ */
+public final class Perft {
+    private final Board board;
+    private final RulesMaster rulesMaster;
+    private final MoveList[] moveLists = new MoveList[64]; // Uma lista por nível, reutilizada entre nós
+
+    public Perft(Board board) {
+        this.board = board;
+        this.rulesMaster = new RulesMaster(board);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Uso: Perft <profundidade> [--parallel] [FEN]");
+            return;
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        boolean parallel = args.length > 1 && args[1].equals("--parallel");
+        StringBuilder fen = new StringBuilder();
+        for (int i = parallel ? 2 : 1; i < args.length; i++) fen.append(args[i]).append(' ');
+
+        Board board = new Board();
+        Fen.load(board, fen.isEmpty() ? Fen.START_POSITION : fen.toString());
+        Perft perft = new Perft(board);
+        Result result = parallel ? perft.measure(depth, ForkJoinPool.commonPool()) : perft.measure(depth);
+        System.out.println(result);
+    }
+
+    /**
+     * Conta, para cada movimento legal da raiz, as folhas da árvore que começa nesse movimento.
+     * A soma dos valores é igual a {@link #perft(int)}; comparar com outro programa mostra que movimento diverge.
+     *
+     * @param depth - profundidade, incluindo o movimento da raiz (pelo menos 1).
+     * @return - número de folhas por movimento, no formato "E2E4", pela ordem de geração.
+     */
+    public Map<String, Long> divide(int depth) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        this.rulesMaster.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            this.board.makeMove(moves.get(i));
+            result.put(PackedMove.toString(moves.get(i)), this.perft(depth - 1));
+            this.board.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Executa {@link #perft(int)} e mede o tempo gasto.
+     *
+     * @param depth - profundidade.
+     * @return - número de nós e tempo gasto.
+     */
+    public Result measure(int depth) {
+        long start = System.nanoTime();
+        long nodes = this.perft(depth);
+        return new Result(depth, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Executa {@link #perft(int, ForkJoinPool)} e mede o tempo gasto.
+     *
+     * @param depth - profundidade.
+     * @param pool  - pool onde repartir os movimentos da raiz.
+     * @return - número de nós e tempo gasto.
+     */
+    public Result measure(int depth, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long nodes = this.perft(depth, pool);
+        return new Result(depth, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Conta as folhas da árvore de movimentos legais com a profundidade dada, a partir da posição do tabuleiro.
+     * O tabuleiro fica na mesma posição no fim.
+     *
+     * @param depth - profundidade; 0 conta apenas a própria posição.
+     * @return - número de folhas.
+     */
+    public long perft(int depth) {
+        if (depth == 0) return 1;
+
+        MoveList moves = this.moveLists[depth];
+        if (moves == null) moves = this.moveLists[depth] = new MoveList();
+        moves.clear();
+        this.rulesMaster.generateLegalMoves(moves);
+        if (depth == 1) return moves.size(); // As folhas não precisam de ser jogadas
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            this.board.makeMove(moves.get(i));
+            nodes += this.perft(depth - 1);
+            this.board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Igual a {@link #perft(int)}, mas cada movimento da raiz é contado numa tarefa própria do pool,
+     * sobre uma cópia do tabuleiro. O tabuleiro original não é alterado.
+     *
+     * @param depth - profundidade.
+     * @param pool  - pool onde repartir os movimentos da raiz.
+     * @return - número de folhas.
+     */
+    public long perft(int depth, ForkJoinPool pool) {
+        if (depth <= 1) return this.perft(depth);
+
+        MoveList moves = new MoveList();
+        this.rulesMaster.generateLegalMoves(moves);
+        List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) tasks.add(new RootMoveTask(this.board, moves.get(i), depth - 1));
+
+        return pool.invoke(new RecursiveTask<Long>() {
+            @Override
+            protected Long compute() {
+                long nodes = 0;
+                for (RootMoveTask task : invokeAll(tasks)) nodes += task.join();
+                return nodes;
+            }
+        });
+    }
+
+    /**
+     * Resultado de uma medição de perft.
+     *
+     * @param depth        - profundidade.
+     * @param nodes        - número de folhas.
+     * @param elapsedNanos - tempo gasto, em nanossegundos.
+     */
+    public record Result(int depth, long nodes, long elapsedNanos) {
+        public long nodesPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : this.nodes * 1_000_000_000L / this.elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("perft(%d) = %d nós em %d ms (%d nós/s)",
+                    this.depth, this.nodes, this.elapsedNanos / 1_000_000, this.nodesPerSecond());
+        }
+    }
+
+    /**
+     * Conta a subárvore de um movimento da raiz sobre uma cópia do tabuleiro.
+     */
+    private static final class RootMoveTask extends RecursiveTask<Long> {
+        private final Board board;
+        private final int move;
+        private final int depth;
+
+        private RootMoveTask(Board board, int move, int depth) {
+            this.board = board.copy(); // Copiado na thread que cria as tarefas, antes de o original poder mudar
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            this.board.makeMove(this.move);
+            return new Perft(this.board).perft(this.depth);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package chess.core.board;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Leitura de partidas na notação PGN (Portable Game Notation), por exemplo para construir livros de aberturas.
+ * <p>
+ * Cada partida tem as etiquetas ("[Event ...]", "[Result ...]") e os movimentos em notação algébrica (SAN).
+ * Os comentários, variantes, anotações numéricas e números dos lances são ignorados.
+ */
+public final class Pgn {
+    private static final Pattern TAG = Pattern.compile("\\[(\\w+)\\s+\"(.*)\"]");
+    private static final Pattern SAN = Pattern.compile("([NBRQK])?([a-h])?([1-8])?x?([a-h][1-8])(?:=?([NBRQ]))?");
+    private static final String PIECE_LETTERS = "PNBRQK"; // Pela ordem de Type
+    private static final Type[] TYPES = Type.values();
+
+    private Pgn() {
+    }
+
+    /**
+     * Converte um movimento em notação algébrica (ex: "e4", "Nxf3", "exd8=Q+", "O-O") no movimento legal correspondente.
+     *
+     * @param rulesMaster - regras do tabuleiro onde o movimento é jogado.
+     * @param san         - movimento em notação algébrica; os sufixos "+", "#", "!" e "?" são ignorados.
+     * @return - o movimento codificado por {@link PackedMove}, ou {@link PackedMove#NONE} se não for legal ou for ambíguo.
+     */
+    public static int parseMove(RulesMaster rulesMaster, String san) {
+        MoveList moves = new MoveList();
+        rulesMaster.generateLegalMoves(moves);
+        String text = san.replaceAll("[+#!?]", "").replace('0', 'O');
+
+        if (text.equals("O-O") || text.equals("O-O-O")) {
+            int toCol = text.equals("O-O") ? 6 : 2;
+            for (int i = 0; i < moves.size(); i++)
+                if (PackedMove.isCastling(moves.get(i)) && Bitboard.col(PackedMove.to(moves.get(i))) == toCol) return moves.get(i);
+            return PackedMove.NONE;
+        }
+
+        Matcher matcher = SAN.matcher(text);
+        if (!matcher.matches()) return PackedMove.NONE;
+        Type type = matcher.group(1) == null ? Type.PAWN : TYPES[PIECE_LETTERS.indexOf(matcher.group(1))];
+        int fromCol = matcher.group(2) == null ? -1 : matcher.group(2).charAt(0) - 'a';
+        int fromRow = matcher.group(3) == null ? -1 : '8' - matcher.group(3).charAt(0);
+        int to = Bitboard.square(Position.of(matcher.group(4)));
+        Type promotion = matcher.group(5) == null ? null : TYPES[PIECE_LETTERS.indexOf(matcher.group(5))];
+
+        int result = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = PackedMove.from(move);
+            if (PackedMove.piece(move) != type || PackedMove.to(move) != to || PackedMove.promotion(move) != promotion) continue;
+            if ((fromCol >= 0 && Bitboard.col(from) != fromCol) || (fromRow >= 0 && Bitboard.row(from) != fromRow)) continue;
+            if (result != PackedMove.NONE) return PackedMove.NONE; // Ambíguo
+            result = move;
+        }
+        return result;
+    }
+
+    /**
+     * Lê as partidas de um ficheiro PGN uma a uma, sem guardar a coleção inteira em memória.
+     *
+     * @param reader   - texto em PGN, com uma ou mais partidas.
+     * @param consumer - recebe cada partida lida.
+     * @throws IOException se não for possível ler o texto.
+     */
+    public static void readGames(BufferedReader reader, Consumer<Game> consumer) throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        StringBuilder moveText = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            Matcher matcher = TAG.matcher(line);
+            if (matcher.matches()) {
+                if (!moveText.isEmpty()) { // Uma etiqueta depois dos movimentos começa a partida seguinte
+                    consumer.accept(new Game(tags, parseMoveText(moveText.toString())));
+                    tags = new LinkedHashMap<>();
+                    moveText.setLength(0);
+                }
+                tags.put(matcher.group(1), matcher.group(2));
+            } else if (!line.startsWith("%")) moveText.append(line).append('\n');
+        }
+        if (!moveText.toString().isBlank() || !tags.isEmpty()) consumer.accept(new Game(tags, parseMoveText(moveText.toString())));
+    }
+
+    /**
+     * Retira do texto dos movimentos os comentários, as variantes, as anotações, os números dos lances e o resultado.
+     */
+    private static List<String> parseMoveText(String moveText) {
+        StringBuilder text = new StringBuilder();
+        int variations = 0;
+        boolean comment = false;
+        boolean lineComment = false;
+        for (char letter : moveText.toCharArray()) {
+            if (lineComment) lineComment = letter != '\n';
+            else if (comment) comment = letter != '}';
+            else if (letter == '{') comment = true;
+            else if (letter == ';') lineComment = true;
+            else if (letter == '(') variations++;
+            else if (letter == ')') variations = Math.max(0, variations - 1);
+            else if (variations == 0) text.append(letter);
+        }
+
+        List<String> moves = new ArrayList<>();
+        for (String token : text.toString().replaceAll("\\d+\\.+", " ").trim().split("\\s+")) {
+            if (token.isEmpty() || token.startsWith("$") || token.equals("*") || token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2"))
+                continue;
+            moves.add(token);
+        }
+        return moves;
+    }
+
+    /**
+     * Partida lida de um ficheiro PGN.
+     *
+     * @param tags  - etiquetas da partida, pela ordem do ficheiro.
+     * @param moves - movimentos em notação algébrica, por ordem.
+     */
+    public record Game(Map<String, String> tags, List<String> moves) {
+        /**
+         * @return - o resultado da partida ("1-0", "0-1", "1/2-1/2" ou "*" se for desconhecido).
+         */
+        public String result() {
+            return this.tags.getOrDefault("Result", "*");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package chess.core.board;
+
+import chess.core.PieceColor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Pesos da avaliação estática: valor material e bónus por casa ("piece-square tables") de cada peça,
+ * separados para o meio-jogo e para o final, e o peso de cada peça na fase do jogo.
+ * <p>
+ * Os pesos são lidos do recurso {@value #RESOURCE} ao carregar a classe, para que possam ser afinados sem recompilar.
+ * Cada valor já inclui o material e o sinal da cor (positivo para as Brancas), pelo que o {@link Board}
+ * mantém a avaliação somando e subtraindo um valor por peça colocada ou retirada.
+ * <p>
+ * Os restantes pesos do recurso (por exemplo, os da estrutura de peões) são lidos por {@link #weight(String)}
+ * e {@link #weights(String, int)}.
+ */
+public final class PieceSquareTables {
+    private static final String RESOURCE = "evaluation.properties";
+    private static final Type[] TYPES = Type.values();
+    private static final int[][] MIDDLEGAME = new int[12][64]; // [tipo * 2 + cor][casa]
+    private static final int[][] ENDGAME = new int[12][64];
+    private static final int[] PHASE = new int[TYPES.length];
+    private static final Properties WEIGHTS = new Properties();
+    private static final int MAX_PHASE;
+
+    static {
+        try (InputStream input = PieceSquareTables.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (input == null) throw new IllegalStateException("Recurso não encontrado: " + RESOURCE);
+            WEIGHTS.load(input);
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao ler " + RESOURCE, e);
+        }
+
+        for (Type type : TYPES) {
+            String name = type.name().toLowerCase(Locale.ROOT);
+            PHASE[type.ordinal()] = weight(name + ".phase");
+            fillTable(MIDDLEGAME, type, weight(name + ".mg.value"), weights(name + ".mg.table", 64));
+            fillTable(ENDGAME, type, weight(name + ".eg.value"), weights(name + ".eg.table", 64));
+        }
+        MAX_PHASE = 16 * PHASE[Type.PAWN.ordinal()] + 4 * (PHASE[Type.KNIGHT.ordinal()] + PHASE[Type.BISHOP.ordinal()]
+                + PHASE[Type.ROOK.ordinal()]) + 2 * PHASE[Type.QUEEN.ordinal()] + 2 * PHASE[Type.KING.ordinal()];
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * @return - valor de final de uma peça numa casa, incluindo o material; negativo para as Pretas.
+     */
+    public static int endgame(Type type, PieceColor pieceColor, int square) {
+        return ENDGAME[index(type, pieceColor)][square];
+    }
+
+    /**
+     * @return - fase do jogo com todas as peças iniciais em jogo (abertura); 0 corresponde a um final só com reis.
+     */
+    public static int maxPhase() {
+        return MAX_PHASE;
+    }
+
+    /**
+     * @return - valor de meio-jogo de uma peça numa casa, incluindo o material; negativo para as Pretas.
+     */
+    public static int middlegame(Type type, PieceColor pieceColor, int square) {
+        return MIDDLEGAME[index(type, pieceColor)][square];
+    }
+
+    /**
+     * @return - peso de um tipo de peça na fase do jogo.
+     */
+    public static int phase(Type type) {
+        return PHASE[type.ordinal()];
+    }
+
+    /**
+     * @param key - nome do peso no recurso {@value #RESOURCE}.
+     * @return - valor do peso.
+     * @throws IllegalStateException se o peso não existir.
+     */
+    public static int weight(String key) {
+        String value = WEIGHTS.getProperty(key);
+        if (value == null) throw new IllegalStateException("Falta o peso " + key + " em " + RESOURCE);
+        return Integer.parseInt(value.trim());
+    }
+
+    /**
+     * @param key    - nome da lista de pesos no recurso {@value #RESOURCE}, separados por vírgulas.
+     * @param length - número de valores esperado.
+     * @return - os valores da lista.
+     * @throws IllegalStateException se a lista não existir ou não tiver o número de valores esperado.
+     */
+    public static int[] weights(String key, int length) {
+        String value = WEIGHTS.getProperty(key);
+        String[] values = value == null ? new String[0] : value.split(",");
+        if (values.length != length)
+            throw new IllegalStateException("A tabela " + key + " em " + RESOURCE + " deve ter " + length + " valores");
+
+        int[] table = new int[length];
+        for (int i = 0; i < length; i++) table[i] = Integer.parseInt(values[i].trim());
+        return table;
+    }
+
+    /**
+     * Preenche as entradas das duas cores: as Brancas usam a tabela tal como está, as Pretas a tabela espelhada e negativa.
+     */
+    private static void fillTable(int[][] table, Type type, int value, int[] bonus) {
+        for (int square = 0; square < 64; square++) {
+            table[index(type, PieceColor.WHITE)][square] = value + bonus[square];
+            table[index(type, PieceColor.BLACK)][square] = -(value + bonus[square ^ 56]); // square ^ 56 espelha a linha
+        }
+    }
+
+    private static int index(Type type, PieceColor pieceColor) {
+        return (type.ordinal() << 1) | pieceColor.ordinal();
+    }
+}
@@ -1,21 +1,79 @@
 package chess.core.board;
 
+import java.io.Serial;
 import java.io.Serializable;
 
+/**
+ * Posição de uma casa no tabuleiro.
+ * Existem apenas 64 instâncias partilhadas, uma por casa, obtidas através de {@link #of(int, int)}
+ * ou {@link #of(String)}, pelo que a geração de movimentos não cria novas posições.
+ */
 public class Position implements Serializable {
+    private static final Position[] POSITIONS = new Position[64];
+
+    static {
+        for (int row = 0; row < 8; row++)
+            for (int col = 0; col < 8; col++)
+                POSITIONS[(row << 3) | col] = new Position(row, col);
+    }
+
     public final int row;
     public final int col;
 
+    /**
+     * @deprecated usar {@link #of(int, int)}, que devolve a instância partilhada da casa.
+     */
+    @Deprecated
     public Position(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * @deprecated usar {@link #of(String)}, que devolve a instância partilhada da casa.
+     */
+    @Deprecated
     public Position(String position) {
         this.col = position.charAt(0) - 'A';
         this.row = 8 - Character.getNumericValue(position.charAt(1));
     }
 
+    /**
+     * Retorna a posição partilhada de uma casa.
+     *
+     * @param row - linha, de 0 (oitava fila) a 7 (primeira fila).
+     * @param col - coluna, de 0 (coluna A) a 7 (coluna H).
+     * @return - a posição da casa.
+     * @throws IllegalArgumentException se a linha ou a coluna estiverem fora do tabuleiro.
+     */
+    public static Position of(int row, int col) {
+        if (((row | col) & ~7) != 0)
+            throw new IllegalArgumentException("Posição fora do tabuleiro: (" + row + ", " + col + ")");
+        return POSITIONS[(row << 3) | col];
+    }
+
+    /**
+     * Retorna a posição partilhada de uma casa, dada no formato "A1" a "H8".
+     *
+     * @param position - posição como uma letra de "A" a "H" (ou "a" a "h") e um número de 1 a 8.
+     * @return - a posição da casa.
+     * @throws IllegalArgumentException se a posição não for uma casa do tabuleiro.
+     */
+    public static Position of(String position) {
+        if (position.length() != 2) throw new IllegalArgumentException("Posição inválida: " + position);
+        return of('8' - position.charAt(1), Character.toUpperCase(position.charAt(0)) - 'A');
+    }
+
+    /**
+     * Retorna a posição partilhada de uma casa a partir do seu índice (ver {@link Bitboard#square(int, int)}).
+     *
+     * @param square - índice da casa, de 0 (A8) a 63 (H1).
+     * @return - a posição da casa.
+     */
+    public static Position of(int square) {
+        return POSITIONS[square];
+    }
+
     public final boolean equals(String string) {
         return this.getPosition().equals(string);
     }
@@ -26,7 +84,7 @@ public class Position implements Serializable {
      * @return - posição à esquerda (coluna - 1) ou null se coluna-1 < 0
      */
     public Position getLeftPosition() {
-        return col - 1 < 0 ? null : new Position(row, col - 1);
+        return col - 1 < 0 ? null : of(row, col - 1);
     }
 
     /**
@@ -44,7 +102,7 @@ public class Position implements Serializable {
      * @return - posição à esquerda (coluna - 1) ou null se coluna-1 < 0
      */
     public Position getRightPosition() {
-        return col + 1 > 7 ? null : new Position(row, col + 1);
+        return col + 1 > 7 ? null : of(row, col + 1);
     }
 
     /**
@@ -106,6 +164,7 @@ public class Position implements Serializable {
 
     @Override
     public final boolean equals(Object o) {
+        if (this == o) return true;
         if (!(o instanceof Position position)) return false;
 
         return row == position.row && col == position.col;
@@ -114,4 +173,12 @@ public class Position implements Serializable {
     public String toString() {
         return getPosition();
     }
+
+    /**
+     * Substitui as posições desserializadas pela instância partilhada da mesma casa.
+     */
+    @Serial
+    private Object readResolve() {
+        return ((row | col) & ~7) == 0 ? of(row, col) : this;
+    }
 }
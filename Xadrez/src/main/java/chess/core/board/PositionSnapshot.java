@@ -0,0 +1,152 @@
+package chess.core.board;
+
+import chess.core.PieceColor;
+
+/**
+ * Fotografia imutável de uma posição: o tipo e a cor da peça em cada casa, o lado a jogar, os direitos de roque,
+ * a casa de "en passant", a chave de Zobrist e o último movimento, em pouco mais de cem bytes.
+ * <p>
+ * Ao contrário das {@link chess.core.Square} do {@link Board}, que mudam a cada movimento, uma fotografia nunca muda,
+ * pelo que pode ser lida por qualquer thread sem bloqueios nem cópias (desenhar, gravar, analisar, espectadores).
+ * <p>
+ * O histórico do jogo não é uma cadeia de fotografias: todas as fotografias de um jogo partilham a da posição inicial
+ * ({@link #getRoot()}) e o registo dos movimentos jogados, um {@code int} por meio-lance ({@link #getMove(int)}).
+ * Cada fotografia retém apenas a sua posição, e as anteriores são libertadas assim que deixarem de ser lidas.
+ */
+public final class PositionSnapshot {
+    private static final Type[] TYPES = Type.values();
+    private static final PieceColor[] COLORS = PieceColor.values();
+    private final byte[] pieces = new byte[64]; // [casa]: tipo * 2 + cor + 1, ou 0 se a casa estiver vazia
+    private final PositionSnapshot root;
+    private final int[] moves; // Partilhados com as outras fotografias do jogo; só são lidos até ply
+    private final long zobristKey;
+    private final long previousKey;
+    private final int lastMove;
+    private final int ply;
+    private final PieceColor sideToMove;
+    private final byte castlingRights;
+    private final byte enPassantSquare;
+
+    /**
+     * @param board - tabuleiro a fotografar.
+     * @param root  - fotografia da posição inicial do jogo, ou nulo se for esta.
+     * @param moves - movimentos do jogo indexados pelo meio-lance, ou nulo se for a posição inicial.
+     */
+    PositionSnapshot(Board board, PositionSnapshot root, int[] moves) {
+        for (int index = 0; index < 12; index++)
+            for (long squares = board.getPieces(TYPES[index >> 1], COLORS[index & 1]); squares != 0; squares &= squares - 1)
+                this.pieces[Bitboard.first(squares)] = (byte) (index + 1);
+        this.root = root != null ? root : this;
+        this.moves = moves;
+        this.zobristKey = board.getZobristKey();
+        this.previousKey = board.previousZobristKey();
+        this.lastMove = board.getLastPackedMove();
+        this.ply = board.getPly();
+        this.sideToMove = board.getSideToMove();
+        this.castlingRights = (byte) board.getCastlingRights();
+        this.enPassantSquare = (byte) board.getEnPassantSquare();
+    }
+
+    /**
+     * @return - máscara dos direitos de roque, como em {@link Board#getCastlingRights()}.
+     */
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    /**
+     * @param row - linha da casa.
+     * @param col - coluna da casa.
+     * @return - cor da peça na casa, ou nulo se estiver vazia.
+     */
+    public PieceColor getColor(int row, int col) {
+        int piece = this.pieces[Bitboard.square(row, col)];
+        return piece == 0 ? null : COLORS[(piece - 1) & 1];
+    }
+
+    /**
+     * @return - casa de "en passant", ou {@link Board#NO_SQUARE}.
+     */
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    /**
+     * @return - último movimento jogado, codificado por {@link PackedMove}, ou {@link PackedMove#NONE}.
+     */
+    public int getLastMove() {
+        return this.lastMove;
+    }
+
+    /**
+     * @param ply - meio-lance, de {@code getRoot().getPly()} a {@code getPly() - 1}.
+     * @return - o movimento jogado nesse meio-lance, codificado por {@link PackedMove}.
+     * @throws IndexOutOfBoundsException se o movimento não for desta fotografia.
+     */
+    public int getMove(int ply) {
+        if (ply < this.root.ply || ply >= this.ply) throw new IndexOutOfBoundsException("Meio-lance fora do jogo: " + ply);
+        return this.moves[ply];
+    }
+
+    /**
+     * @return - número de meios-lances jogados desde o início do jogo (ou desde a posição carregada).
+     */
+    public int getPly() {
+        return this.ply;
+    }
+
+    /**
+     * @return - chave de Zobrist da posição antes do último movimento, ou 0 se não houver.
+     */
+    public long getPreviousKey() {
+        return this.previousKey;
+    }
+
+    /**
+     * @return - fotografia da posição inicial do jogo, de onde partem os movimentos de {@link #getMove(int)};
+     * a própria fotografia se não tiver movimentos.
+     */
+    public PositionSnapshot getRoot() {
+        return this.root;
+    }
+
+    public PieceColor getSideToMove() {
+        return this.sideToMove;
+    }
+
+    /**
+     * @param row - linha da casa.
+     * @param col - coluna da casa.
+     * @return - tipo da peça na casa, ou nulo se estiver vazia.
+     */
+    public Type getType(int row, int col) {
+        int piece = this.pieces[Bitboard.square(row, col)];
+        return piece == 0 ? null : TYPES[(piece - 1) >> 1];
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return this.pieces[Bitboard.square(row, col)] == 0;
+    }
+
+    /**
+     * Cria um tabuleiro novo com esta posição, por exemplo para o analisar noutra thread. O histórico não é copiado.
+     *
+     * @return - um tabuleiro independente com a mesma posição.
+     */
+    public Board toBoard() {
+        Board board = new Board();
+        Fen.load(board, this.toFen());
+        return board;
+    }
+
+    /**
+     * @return - a posição em notação FEN.
+     */
+    public String toFen() {
+        return Fen.toFen(this);
+    }
+}
@@ -1,7 +1,7 @@
 package chess.core.board;
 
+import chess.core.GameStatus;
 import chess.core.PieceColor;
-import chess.core.Square;
 import chess.core.board.pieces.*;
 
 import java.io.Serializable;
@@ -12,8 +12,16 @@ import java.util.List;
  * A classe RulesMaster contém todas as regras do jogo.
  */
 public class RulesMaster implements Serializable {
+    public static final int DRAW_HALFMOVES = 150; // Regra dos 75 lances
+    private static final Type[] PROMOTION_TYPES = {Type.QUEEN, Type.ROOK, Type.BISHOP, Type.KNIGHT};
+    private static final Type[] TYPES = Type.values(); // Do menos para o mais valioso
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 20_000}; // [ordinal do tipo], em centipeões
+    private static final int MAX_EXCHANGES = 32;
+    private static final int DRAW_REPETITIONS = 4; // Quinta ocorrência da mesma posição
 
     private final Board board;
+    private transient MoveList scratchMoves; // Usada por hasLegalMoves e isLegalMove; MoveList não é serializável
+    private transient int[] exchangeGains;   // Usado por staticExchangeEvaluation, sem alocar em cada captura
 
     /**
      * Implementa um padrão de injeção de dependência
@@ -40,13 +48,111 @@ public class RulesMaster implements Serializable {
      */
     public List<Move> compromisingMoves(Position position, PieceColor pieceColor) {
         List<Move> compromiseMoves = new LinkedList<>();
+        int square = Bitboard.square(position);
+        if (Bitboard.isSet(this.board.getOccupancy(pieceColor), square)) return compromiseMoves; // Não se captura uma peça amiga
 
-        for (Position occupiedPosition : this.board.getAllPositionOccupied(pieceColor))
-            if (getValidCaptureMoves(occupiedPosition).contains(position))
-                compromiseMoves.add(new Move(this.board.getPiece(occupiedPosition), occupiedPosition, position));
+        long attackers = this.getAttackers(square, pieceColor);
+        if (this.board.isEmpty(position) && square != this.getEnPassantSquare(pieceColor))
+            attackers &= ~this.board.getPieces(Type.PAWN, pieceColor); // O peão só se move na diagonal para capturar
+
+        for (; attackers != 0; attackers &= attackers - 1) {
+            Position occupiedPosition = Position.of(Bitboard.first(attackers));
+            compromiseMoves.add(new Move(this.board.getPiece(occupiedPosition), occupiedPosition, position));
+        }
         return compromiseMoves;
     }
 
+    /**
+     * Acrescenta à lista todos os movimentos legais do lado a jogar, ou seja, os movimentos pseudo-legais
+     * que não deixam o próprio rei em xeque. O roque também não pode partir nem passar por uma casa atacada.
+     * <p>
+     * As peças que dão xeque e as peças cravadas são calculadas uma vez por posição e restringem os destinos
+     * de cada peça, sem fazer nem desfazer movimentos. A exceção é o "en passant", raro e com casos especiais
+     * (dois peões saem da mesma linha), que é verificado jogando-o.
+     *
+     * @param moves - lista onde acrescentar os movimentos codificados por {@link PackedMove}.
+     */
+    public void generateLegalMoves(MoveList moves) {
+        this.generateLegalMoves(Bitboard.ALL, false, false, moves);
+    }
+
+    /**
+     * Acrescenta à lista apenas os movimentos táticos legais do lado a jogar: as capturas, incluindo o "en passant",
+     * e as promoções. Os restantes movimentos para casas vazias nem chegam a ser gerados.
+     *
+     * @param moves - lista onde acrescentar os movimentos codificados por {@link PackedMove}.
+     */
+    public void generateLegalTacticalMoves(MoveList moves) {
+        this.generateLegalMoves(Bitboard.ALL, true, false, moves);
+    }
+
+    /**
+     * Acrescenta à lista todos os movimentos pseudo-legais das peças de uma cor.
+     * Pseudo-legais significa que seguem o movimento de cada peça, mas não se verifica se deixam o próprio rei em xeque.
+     * Este é o caminho usado pelo motor: não cria objetos por cada movimento gerado.
+     *
+     * @param pieceColor - cor das peças a mover.
+     * @param moves      - lista onde acrescentar os movimentos codificados por {@link PackedMove}.
+     */
+    public void generateMoves(PieceColor pieceColor, MoveList moves) {
+        int enPassantSquare = this.getEnPassantSquare(pieceColor);
+        for (long pieces = this.board.getOccupancy(pieceColor); pieces != 0; pieces &= pieces - 1)
+            this.generateMoves(Bitboard.first(pieces), enPassantSquare, false, moves);
+    }
+
+    /**
+     * Acrescenta à lista os movimentos pseudo-legais da peça numa casa.
+     *
+     * @param square - casa da peça (ver {@link Bitboard#square(int, int)}).
+     * @param moves  - lista onde acrescentar os movimentos codificados por {@link PackedMove}.
+     */
+    public void generateMoves(int square, MoveList moves) {
+        Piece piece = this.board.getPiece(Bitboard.row(square), Bitboard.col(square));
+        if (piece != null) this.generateMoves(square, this.getEnPassantSquare(piece.getColor()), false, moves);
+    }
+
+    /**
+     * Retorna as peças de uma cor que atacam uma casa, partindo da casa alvo: tabelas de ataques
+     * para peões, cavalos e rei, e ataques deslizantes para torres, bispos e rainhas.
+     *
+     * @param square     - casa a analisar (ver {@link Bitboard#square(int, int)}).
+     * @param pieceColor - cor das peças atacantes.
+     * @return - bitboard das casas das peças atacantes.
+     */
+    public long getAttackers(int square, PieceColor pieceColor) {
+        return this.getAttackers(square, pieceColor, this.board.getOccupancy());
+    }
+
+    /**
+     * Retorna o estado do jogo para o lado a jogar: xeque-mate ou afogamento se não tiver movimentos legais,
+     * consoante esteja ou não em xeque. A procura de movimentos pára no primeiro movimento legal encontrado.
+     *
+     * @return - estado do jogo.
+     */
+    public GameStatus getGameStatus() {
+        if (!this.isKingAlive(PieceColor.BLACK) || !this.isKingAlive(PieceColor.WHITE)) return GameStatus.KING_CAPTURED;
+        return this.getGameStatus(this.hasLegalMoves());
+    }
+
+    /**
+     * Retorna o estado do jogo para o lado a jogar quando já se sabe se tem movimentos legais,
+     * por exemplo depois de os gerar com {@link #generateLegalMoves(MoveList)}, sem os procurar de novo.
+     * Sem xeque-mate nem afogamento, o jogo é empatado automaticamente ao fim de 75 lances sem capturas nem
+     * movimentos de peão, ou quando a mesma posição ocorre pela quinta vez.
+     *
+     * @param hasLegalMoves - verdadeiro se o lado a jogar tiver pelo menos um movimento legal.
+     * @return - estado do jogo.
+     */
+    public GameStatus getGameStatus(boolean hasLegalMoves) {
+        if (!this.isKingAlive(PieceColor.BLACK) || !this.isKingAlive(PieceColor.WHITE)) return GameStatus.KING_CAPTURED;
+
+        boolean inCheck = this.isInCheck(this.board.getSideToMove());
+        if (hasLegalMoves && (this.board.getHalfmoveClock() >= DRAW_HALFMOVES || this.board.getRepetitionCount() >= DRAW_REPETITIONS))
+            return GameStatus.DRAW;
+        if (hasLegalMoves) return inCheck ? GameStatus.CHECK : GameStatus.IN_PROGRESS;
+        return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+    }
+
     /**
      * Retorna uma lista de movimentos possíveis para uma dada Peça e a respetiva posição.
      *
@@ -65,15 +171,27 @@ public class RulesMaster implements Serializable {
      * @return uma Lista de Posições de movimentos válidos, ou nulo se a Peça for de um tipo desconhecido.
      */
     public List<Position> getValidMoves(Piece piece, Position position) {
-        return switch (piece) {
-            case Pawn _ -> pawnValidMoves(position);
-            case Rook _ -> rookValidMoves(position);
-            case Knight _ -> knightValidMoves(position);
-            case Bishop _ -> bishopValidMoves(position);
-            case Queen _ -> queenValidMoves(position);
-            case King _ -> kingValidMoves(position);
-            case null, default -> new LinkedList<>(); // Ou outra ação apropriada
-        };
+        List<Position> positions = new LinkedList<>();
+        if (piece == null) return positions;
+
+        MoveList moves = new MoveList();
+        this.generateMoves(Bitboard.square(position), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            Position endPosition = Position.of(PackedMove.to(moves.get(i)));
+            if (!positions.contains(endPosition)) positions.add(endPosition); // As 4 promoções partilham o destino
+        }
+        return positions;
+    }
+
+    /**
+     * Verifica se o lado a jogar tem pelo menos um movimento legal.
+     * O rei é testado primeiro e a geração pára na primeira peça com um movimento legal.
+     *
+     * @return - verdadeiro se existir um movimento legal.
+     */
+    public boolean hasLegalMoves() {
+        this.generateLegalMoves(Bitboard.ALL, false, true, this.clearScratchMoves());
+        return !this.scratchMoves.isEmpty();
     }
 
     /**
@@ -87,7 +205,7 @@ public class RulesMaster implements Serializable {
      */
     public boolean isCastlingMove(Position initPosition, Position endPosition) {
         Piece piece = board.getPiece(initPosition);
-        Position rookInitPosition = endPosition.isOnRightOf(initPosition) ? new Position(initPosition.row, 7) : new Position(initPosition.row, 0);
+        Position rookInitPosition = endPosition.isOnRightOf(initPosition) ? Position.of(initPosition.row, 7) : Position.of(initPosition.row, 0);
 
         if (piece instanceof King && piece.hasNotMoved()) {
             if (board.areSquaresEmpty(initPosition, rookInitPosition)) { // Verifica se as casas entre o Rei e a Torre estão vazias.
@@ -115,25 +233,46 @@ public class RulesMaster implements Serializable {
         O peão capturado deve ter movido duas casas num lance, aterrando ao lado do peão que irá capturá-lo.
         A captura en passant deve ser realizada no lance imediatamente após o movimento do peão que está prestes a ser capturado. Se o jogador não fizer a captura en passant nesse turno, ele não poderá fazer isso depois.
         */
-        Move move = board.getLastMove();
         Piece capturingPiece = board.getPiece(initPosition); // peça que está a ser jogada e que irá capturar outra
-        Piece capturedPiece = move != null ? move.getPiece() : null; // peça que vai ser capturada
 
-        if (capturingPiece instanceof Pawn && capturedPiece instanceof Pawn)
-            if (Math.abs(move.getEndPosition().row - move.getInitPosition().row) == 2)
-                if (move.getEndPosition().isSideBySideOf(initPosition))
-                    if (board.getSquare(endPosition).isEmpty())
-                        return capturedPiece.getColor() != capturingPiece.getColor();
+        if (capturingPiece instanceof Pawn && Math.abs(endPosition.col - initPosition.col) == 1)
+            return Bitboard.square(endPosition) == this.getEnPassantSquare(capturingPiece.getColor());
         return false;
     }
 
     /**
-     * Verifica se o jogo terminou ao confirmar se algum dos reis foi capturado.
+     * Verifica se o jogo terminou por xeque-mate ou afogamento do lado a jogar, ou porque falta um dos reis.
      *
-     * @return true se alguma das peças do rei tiver sido capturada.
+     * @return true se o jogo tiver terminado.
      */
     public boolean isFinished() {
-        return !isKingAlive(PieceColor.BLACK) || !isKingAlive(PieceColor.WHITE);
+        return this.getGameStatus().isFinished();
+    }
+
+    /**
+     * Verifica se o rei de uma cor está em xeque.
+     *
+     * @param pieceColor - cor do rei.
+     * @return - verdadeiro se o rei estiver atacado por uma peça adversária.
+     */
+    public boolean isInCheck(PieceColor pieceColor) {
+        int kingSquare = this.board.getKingSquare(pieceColor);
+        return kingSquare != Board.NO_SQUARE && this.isSquareAttacked(kingSquare, pieceColor.opposite());
+    }
+
+    /**
+     * Verifica se um movimento é legal na posição atual, gerando apenas os movimentos da peça na casa de origem.
+     * Serve para validar movimentos guardados de outras posições (por exemplo, da tabela de transposição do motor).
+     *
+     * @param move - movimento codificado por {@link PackedMove}.
+     * @return - verdadeiro se o lado a jogar tiver exatamente esse movimento.
+     */
+    public boolean isLegalMove(int move) {
+        if (move == PackedMove.NONE) return false;
+
+        MoveList moves = this.clearScratchMoves();
+        this.generateLegalMoves(Bitboard.bit(PackedMove.from(move)), false, false, moves);
+        return moves.contains(move);
     }
 
     /**
@@ -151,224 +290,326 @@ public class RulesMaster implements Serializable {
     }
 
     /**
-     * Retorna a cor vencedora se o jogo tiver terminado.
+     * Verifica se uma casa é atacada por alguma peça de uma cor.
      *
-     * @return A Cor do último rei em jogo ou nulo se o jogo não tiver terminado.
+     * @param position   - posição a analisar.
+     * @param pieceColor - cor das peças atacantes.
+     * @return - verdadeiro se alguma peça dessa cor atacar a casa.
      */
-    public PieceColor whoWon() {
-        if (isFinished()) return isKingAlive(PieceColor.WHITE) ? PieceColor.WHITE : PieceColor.BLACK;
-        return null;
+    public boolean isSquareAttacked(Position position, PieceColor pieceColor) {
+        return this.isSquareAttacked(Bitboard.square(position), pieceColor);
     }
 
-    private List<Position> bishopValidMoves(Position position) {
-        int row = position.row;
-        int col = position.col;
-
-        // Direções: diagonais
-        // (deltaLinha, deltaColuna)
-        int[][] directions = {{-1, -1}, // Diagonal superior esquerda
-                {-1, 1},  // Diagonal superior direita
-                {1, -1},  // Diagonal inferior esquerda
-                {1, 1}    // Diagonal inferior direita
-        };
-        return linearMovement(directions, row, col);
-    }
-
-    private List<Position> getValidCaptureMoves(Position position) {
-        return this.board.getPiece(position) instanceof Pawn ? pawnValidCaptureMovement(position) : getValidMoves(position);
+    /**
+     * Verifica se uma casa é atacada por alguma peça de uma cor, independentemente de quem joga a seguir.
+     * Ao contrário de {@link #getAttackers(int, PieceColor)}, pára no primeiro tipo de peça que ataque,
+     * começando pelos ataques mais baratos de consultar.
+     *
+     * @param square     - casa a analisar (ver {@link Bitboard#square(int, int)}).
+     * @param pieceColor - cor das peças atacantes.
+     * @return - verdadeiro se alguma peça dessa cor atacar a casa.
+     */
+    public boolean isSquareAttacked(int square, PieceColor pieceColor) {
+        return this.isSquareAttacked(square, pieceColor, this.board.getOccupancy());
     }
 
-    private boolean isKingAlive(PieceColor pieceColor) {
-        for (Square square : this.board.getBoardAsList())
-            if ((square.getPiece() instanceof King) && (square.getPiece().getColor() == pieceColor)) return true;
-        return false;
+    /**
+     * Valor simples de cada tipo de peça, usado para avaliar trocas. O rei vale mais do que todas as outras juntas.
+     *
+     * @return - valor da peça em centipeões.
+     */
+    public static int pieceValue(Type type) {
+        return PIECE_VALUES[type.ordinal()];
     }
 
-    private List<Position> kingValidMoves(Position position) {
-        List<Position> moves = new LinkedList<>();
-        int row = position.row;
-        int col = position.col;
-
-        // Direções: uma casa em qualquer direção (8 direções)
-        // (deltaLinha, deltaColuna)
-        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1},   // Horizontal e Vertical
-                {-1, -1}, {-1, 1}, {1, -1}, {1, 1}  // Diagonais
-        };
+    /**
+     * Avaliação estática de trocas (SEE): o saldo de material de um movimento na casa de destino, supondo que
+     * cada lado recaptura sempre com a peça menos valiosa e que pode parar de trocar quando deixar de lhe convir.
+     * <p>
+     * Nenhum movimento é feito no tabuleiro: as peças que já trocaram são retiradas de uma cópia da ocupação,
+     * o que revela as peças deslizantes escondidas atrás delas (raios X). As cravadas não são consideradas.
+     *
+     * @param move - movimento do lado a jogar, codificado por {@link PackedMove}.
+     * @return - ganho de material em centipeões; negativo se o movimento perder material.
+     */
+    public int staticExchangeEvaluation(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        if (this.exchangeGains == null) this.exchangeGains = new int[MAX_EXCHANGES];
+        int[] gains = this.exchangeGains;
+        long occupancy = this.board.getOccupancy() & ~Bitboard.bit(from);
+        Type attacker = PackedMove.piece(move);
+        gains[0] = PackedMove.isCapture(move) ? pieceValue(PackedMove.captured(move)) : 0;
+        if (PackedMove.isEnPassant(move)) occupancy &= ~Bitboard.bit(Bitboard.square(Bitboard.row(from), Bitboard.col(to)));
+        if (PackedMove.isPromotion(move)) {
+            attacker = PackedMove.promotion(move);
+            gains[0] += pieceValue(attacker) - pieceValue(Type.PAWN);
+        }
 
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-
-            if (isValidPosition(newRow, newCol)) {
-                Piece targetPiece = board.getPiece(newRow, newCol);
-                if (targetPiece == null)// Casa vazia
-                    moves.add(new Position(newRow, newCol));
-                else if (targetPiece.isWhite() != board.getPiece(row, col).isWhite()) // Peça inimiga
-                    moves.add(new Position(newRow, newCol)); // Captura
-                // Não pode mover para casa com peça amiga (implicitamente não adicionado)
+        PieceColor pieceColor = this.board.getSideToMove().opposite();
+        int depth = 0;
+        while (depth + 1 < MAX_EXCHANGES) {
+            long attackers = this.getAttackers(to, pieceColor, occupancy) & occupancy;
+            if (attackers == Bitboard.EMPTY) break;
+            // O rei só pode recapturar se a casa já não for defendida
+            if (attackers == this.board.getPieces(Type.KING, pieceColor)
+                    && (this.getAttackers(to, pieceColor.opposite(), occupancy) & occupancy) != Bitboard.EMPTY) break;
+
+            depth++;
+            gains[depth] = pieceValue(attacker) - gains[depth - 1]; // Ganho se a peça que acabou de jogar for capturada
+            for (Type type : TYPES) {
+                long pieces = attackers & this.board.getPieces(type, pieceColor);
+                if (pieces == Bitboard.EMPTY) continue;
+                occupancy &= ~Bitboard.bit(Bitboard.first(pieces));
+                attacker = type;
+                break;
             }
+            pieceColor = pieceColor.opposite();
         }
 
-        Piece king = board.getPiece(position);
-        if (king.hasNotMoved()) {
-
-            // KING SIDE CASTLING
-            Piece targetRookKingSide = (king.getColor() == PieceColor.WHITE) ? board.getPiece(7, 7) : board.getPiece(0, 7);
-            Position[] targetPositionsKingSide = (king.getColor() == PieceColor.WHITE) ? new Position[]{new Position(7, 5), new Position(7, 6)} : new Position[]{new Position(0, 5), new Position(0, 6)};
-            Position kingSideCastlingTarget = (king.getColor() == PieceColor.WHITE) ? new Position(7, 6) : new Position(0, 6);
+        // Cada lado escolhe entre recapturar ou parar, do fim da sequência para o início
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
+    }
 
-            if (targetRookKingSide instanceof Rook && board.getSquare(targetPositionsKingSide[0]).isEmpty() && board.getSquare(targetPositionsKingSide[1]).isEmpty() && targetRookKingSide.hasNotMoved()) {
-                moves.add(kingSideCastlingTarget);
-            }
+    /**
+     * Retorna a cor vencedora se o jogo tiver terminado.
+     *
+     * @return A Cor que deu xeque-mate (ou do último rei em jogo), ou nulo se o jogo não tiver terminado ou for empate.
+     */
+    public PieceColor whoWon() {
+        return this.whoWon(this.getGameStatus());
+    }
 
-            // QUEEN SIDE CASTLING
-            Piece targetQueenQueenSide = (king.getColor() == PieceColor.WHITE) ? board.getPiece(7, 0) : board.getPiece(0, 0);
-            Position[] targetPositionsQueenSide = (king.getColor() == PieceColor.WHITE) ? new Position[]{new Position(7, 3), new Position(7, 2), new Position(7, 1)} : new Position[]{new Position(0, 3), new Position(0, 2), new Position(0, 1)};
-            Position queenSideCastlingTarget = (king.getColor() == PieceColor.WHITE) ? new Position(7, 2) : new Position(0, 2);
+    /**
+     * Retorna a cor vencedora a partir do estado do jogo já calculado, sem o calcular de novo.
+     *
+     * @param gameStatus - estado do jogo na posição atual (ver {@link #getGameStatus(boolean)}).
+     * @return A Cor que deu xeque-mate (ou do último rei em jogo), ou nulo se o jogo não tiver terminado ou for empate.
+     */
+    public PieceColor whoWon(GameStatus gameStatus) {
+        return switch (gameStatus) {
+            case CHECKMATE -> this.board.getSideToMove().opposite();
+            case KING_CAPTURED -> isKingAlive(PieceColor.WHITE) ? PieceColor.WHITE : PieceColor.BLACK;
+            default -> null;
+        };
+    }
 
-            if (targetQueenQueenSide instanceof Rook && board.getSquare(targetPositionsQueenSide[0]).isEmpty() && board.getSquare(targetPositionsQueenSide[1]).isEmpty() && targetQueenQueenSide.hasNotMoved()) {
-                moves.add(queenSideCastlingTarget);
-            }
+    /**
+     * Acrescenta um movimento por cada casa do bitboard que não tenha uma peça amiga, como captura se tiver uma inimiga.
+     */
+    private void addMoves(int from, long targets, Type type, PieceColor pieceColor, MoveList moves) {
+        long enemies = this.board.getOccupancy(pieceColor.opposite());
+        for (targets &= ~this.board.getOccupancy(pieceColor); targets != 0; targets &= targets - 1) {
+            int to = Bitboard.first(targets);
+            if (Bitboard.isSet(enemies, to)) moves.add(PackedMove.capture(from, to, type, this.capturedType(to)));
+            else moves.add(PackedMove.of(from, to, type));
         }
+    }
 
-        return moves;
+    private void addPawnMove(int move, int toRow, MoveList moves) {
+        if (toRow == 0 || toRow == 7) // Promoção: uma entrada por cada peça possível
+            for (Type promotion : PROMOTION_TYPES) moves.add(PackedMove.withPromotion(move, promotion));
+        else moves.add(move);
     }
 
-    private List<Position> knightValidMoves(Position position) {
-        int row = position.row;
-        int col = position.col;
-        List<Position> moves = new LinkedList<>();
-        Piece thisPiece = board.getPiece(row, col);
+    private Type capturedType(int square) {
+        return this.board.getPiece(Bitboard.row(square), Bitboard.col(square)).getType();
+    }
 
-        // Estes são os 8 movimentos possíveis do cavalo em termos de (linha, coluna)
-        int[][] directions = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private void castlingMoves(int square, PieceColor pieceColor, MoveList moves) {
+        boolean isWhite = pieceColor == PieceColor.WHITE;
+        int row = isWhite ? 7 : 0;
+        int rights = board.getCastlingRights();
 
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
+        // KING SIDE CASTLING: F e G vazias
+        long kingSide = Bitboard.bit(row, 5) | Bitboard.bit(row, 6);
+        if ((rights & (isWhite ? Board.WHITE_KING_SIDE : Board.BLACK_KING_SIDE)) != 0 && (board.getOccupancy() & kingSide) == 0)
+            moves.add(PackedMove.of(square, Bitboard.square(row, 6), Type.KING) | PackedMove.CASTLING);
 
-            if (isValidPosition(newRow, newCol)) {
-                Square nextSquare = board.getSquare(newRow, newCol);
+        // QUEEN SIDE CASTLING: B, C e D vazias
+        long queenSide = Bitboard.bit(row, 1) | Bitboard.bit(row, 2) | Bitboard.bit(row, 3);
+        if ((rights & (isWhite ? Board.WHITE_QUEEN_SIDE : Board.BLACK_QUEEN_SIDE)) != 0 && (board.getOccupancy() & queenSide) == 0)
+            moves.add(PackedMove.of(square, Bitboard.square(row, 2), Type.KING) | PackedMove.CASTLING);
+    }
 
-                if (nextSquare.isEmpty()) // Casa vazia
-                    moves.add(new Position(newRow, newCol));
-                else if (nextSquare.getPiece().isWhite() != thisPiece.isWhite()) // Peça inimiga
-                    moves.add(new Position(newRow, newCol)); // Captura
-                // Não pode mover para casa com peça amiga (implicitamente não adicionado)
-            }
+    private MoveList clearScratchMoves() {
+        if (this.scratchMoves == null) this.scratchMoves = new MoveList();
+        this.scratchMoves.clear();
+        return this.scratchMoves;
+    }
+
+    /**
+     * Gera os movimentos legais peça a peça, começando pelo rei: em xeque é muitas vezes a única peça que se pode mover.
+     *
+     * @param fromMask     - casas de origem a considerar.
+     * @param tacticalOnly - gerar apenas capturas e promoções.
+     * @param firstOnly    - parar na primeira peça que tenha algum movimento legal.
+     */
+    private void generateLegalMoves(long fromMask, boolean tacticalOnly, boolean firstOnly, MoveList moves) {
+        PieceColor pieceColor = this.board.getSideToMove();
+        PieceColor opponent = pieceColor.opposite();
+        int enPassantSquare = this.getEnPassantSquare(pieceColor);
+        int kingSquare = this.board.getKingSquare(pieceColor);
+        if (kingSquare == Board.NO_SQUARE) { // Posição preparada sem rei: não há xeques a evitar
+            for (long pieces = this.board.getOccupancy(pieceColor) & fromMask; pieces != 0; pieces &= pieces - 1)
+                this.generateMoves(Bitboard.first(pieces), enPassantSquare, tacticalOnly, moves);
+            return;
         }
-        return moves;
-    }
-
-    private List<Position> linearMovement(int[][] directions, int row, int col) {
-        List<Position> moves = new LinkedList<>();
-        Piece thisPiece = board.getPiece(row, col);
-        for (int[] dir : directions) {
-            int dRow = dir[0];
-            int dCol = dir[1];
-
-            for (int i = 1; i < 8; i++) { // Iterar ao longo da direção
-                int newRow = row + dRow * i;
-                int newCol = col + dCol * i;
-
-                if (isValidPosition(newRow, newCol)) {
-                    Square nextSquare = board.getSquare(newRow, newCol);
-                    if (nextSquare.isEmpty()) {  // Casa vazia
-                        moves.add(new Position(newRow, newCol));
-                        continue; // Passa para a próxima casa.
-                    } else if (thisPiece.isWhite() != nextSquare.getPiece().isWhite()) // Peça inimiga
-                        moves.add(new Position(newRow, newCol)); // Movimento de captura
-                    break;  // Encontrou uma peça (amiga ou inimiga), não pode mover mais nesta direção
-                }
+
+        long king = Bitboard.bit(kingSquare);
+        long checkers = this.getAttackers(kingSquare, opponent);
+        long pinned = this.getPinnedPieces(kingSquare, pieceColor);
+        long occupancyWithoutKing = this.board.getOccupancy() & ~king; // O rei não pode fugir ao longo do raio que o ataca
+        long checkMask = switch (Bitboard.count(checkers)) { // Destinos que resolvem o xeque: capturar ou bloquear
+            case 0 -> Bitboard.ALL;
+            case 1 -> checkers | AttackTables.between(kingSquare, Bitboard.first(checkers));
+            default -> Bitboard.EMPTY; // Xeque duplo: só o rei se pode mover
+        };
+        long pieces = this.board.getOccupancy(pieceColor) & fromMask & (checkMask == Bitboard.EMPTY ? king : Bitboard.ALL);
+
+        int initialSize = moves.size();
+        while (pieces != Bitboard.EMPTY) {
+            int from = (pieces & king) != 0 ? kingSquare : Bitboard.first(pieces);
+            pieces &= ~Bitboard.bit(from);
+
+            int start = moves.size();
+            this.generateMoves(from, enPassantSquare, tacticalOnly, moves);
+            int size = start;
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                int to = PackedMove.to(move);
+
+                boolean legal;
+                if (from == kingSquare) {
+                    if (PackedMove.isCastling(move))
+                        legal = checkers == Bitboard.EMPTY && !this.isSquareAttacked((from + to) >>> 1, opponent) && !this.isSquareAttacked(to, opponent);
+                    else legal = !this.isSquareAttacked(to, opponent, occupancyWithoutKing);
+                } else if (PackedMove.isEnPassant(move)) legal = this.isLegal(move, pieceColor);
+                else legal = Bitboard.isSet(checkMask, to) && (!Bitboard.isSet(pinned, from) || Bitboard.isSet(AttackTables.line(kingSquare, from), to));
+
+                if (legal) moves.set(size++, move);
             }
+            moves.truncate(size);
+            if (firstOnly && moves.size() > initialSize) return;
         }
-        return moves;
-    }
-
-    private List<Position> pawnValidCaptureMovement(Position position) {
-        int row = position.row;
-        int col = position.col;
-        Piece thisPiece = board.getPiece(row, col);
-        List<Position> moves = new LinkedList<>();
-        int direction = thisPiece.isWhite() ? -1 : 1;    // Direção do movimento do peão ao longo das linhas (-1 para brancas, +1 para pretas)
-        int[][] captureMovements = new int[][]{{direction, 1}, {direction, -1}}; // Movimento de captura para o En Passant
-
-        // 1. Capturas Diagonais
-        for (int[] captureMovement : captureMovements) {
-            int captureRow = row + captureMovement[0];
-            int captureCol = col + captureMovement[1];
-
-            if (isValidPosition(captureRow, captureCol)) {
-                Piece targetPiece = this.board.getPiece(captureRow, captureCol);
-                // Para capturar, deve haver uma peça inimiga na diagonal
-                if (targetPiece != null && targetPiece.isWhite() != thisPiece.isWhite())
-                    moves.add(new Position(captureRow, captureCol));
+    }
+
+    /**
+     * @param tacticalOnly - gerar apenas capturas e promoções: os destinos ficam limitados às peças inimigas,
+     *                     sem roque e sem avanços de peão que não sejam promoções.
+     */
+    private void generateMoves(int square, int enPassantSquare, boolean tacticalOnly, MoveList moves) {
+        Piece piece = this.board.getPiece(Bitboard.row(square), Bitboard.col(square));
+        long targets = tacticalOnly ? this.board.getOccupancy(piece.getColor().opposite()) : Bitboard.ALL;
+        switch (piece.getType()) {
+            case PAWN -> pawnMoves(square, piece.getColor(), enPassantSquare, tacticalOnly, moves);
+            case KNIGHT -> addMoves(square, AttackTables.knight(square) & targets, Type.KNIGHT, piece.getColor(), moves);
+            case BISHOP -> addMoves(square, MagicBitboards.bishop(square, this.board.getOccupancy()) & targets, Type.BISHOP, piece.getColor(), moves);
+            case ROOK -> addMoves(square, MagicBitboards.rook(square, this.board.getOccupancy()) & targets, Type.ROOK, piece.getColor(), moves);
+            case QUEEN -> addMoves(square, MagicBitboards.queen(square, this.board.getOccupancy()) & targets, Type.QUEEN, piece.getColor(), moves);
+            case KING -> {
+                addMoves(square, AttackTables.king(square) & targets, Type.KING, piece.getColor(), moves);
+                if (!tacticalOnly) castlingMoves(square, piece.getColor(), moves);
             }
         }
-
-        // 2. Movimento "En Passant"
-        Position left = new Position(position.row + direction, position.col - 1);
-        Position right = new Position(position.row + direction, position.col + 1);
-        if (isValidPosition(left.row, left.col) && isEnPassantMove(position, left)) moves.add(left);
-
-        if (isValidPosition(right.row, right.col) && isEnPassantMove(position, right)) moves.add(right);
-
-        return moves;
     }
 
-    private List<Position> pawnValidMoves(Position position) {
-        int row = position.row;
-        int col = position.col;
-        Piece thisPiece = board.getPiece(row, col);
-        List<Position> positions = new LinkedList<>();
-
-        int direction = thisPiece.isWhite() ? -1 : 1;    // Direção do movimento do peão ao longo das linhas (-1 para brancas, +1 para pretas)
-        int startRow = thisPiece.isWhite() ? 6 : 1;     // Linha inicial para peões desta cor
-
-
-        // 1. Movimento Simples para a Frente (uma casa)
-        int oneStepForwardRow = row + direction;
-        if (isValidPosition(oneStepForwardRow, col))
-            if (board.getSquare(oneStepForwardRow, col).isEmpty()) // Casa da frente deve estar vazia
-                positions.add(new Position(oneStepForwardRow, col));
+    /**
+     * Versão de {@link #getAttackers(int, PieceColor)} com uma ocupação dada, que pode não incluir peças já trocadas.
+     */
+    private long getAttackers(int square, PieceColor pieceColor, long occupancy) {
+        long queens = this.board.getPieces(Type.QUEEN, pieceColor);
+        return (AttackTables.pawn(pieceColor.opposite(), square) & this.board.getPieces(Type.PAWN, pieceColor))
+                | (AttackTables.knight(square) & this.board.getPieces(Type.KNIGHT, pieceColor))
+                | (AttackTables.king(square) & this.board.getPieces(Type.KING, pieceColor))
+                | (MagicBitboards.rook(square, occupancy) & (this.board.getPieces(Type.ROOK, pieceColor) | queens))
+                | (MagicBitboards.bishop(square, occupancy) & (this.board.getPieces(Type.BISHOP, pieceColor) | queens));
+    }
 
+    /**
+     * Retorna a casa para onde um peão da cor dada pode capturar "en passant", ou {@link Board#NO_SQUARE} se não existir.
+     * Existe apenas se o último movimento foi um avanço duplo de um peão inimigo: a casa é aquela sobre a qual ele passou.
+     */
+    private int getEnPassantSquare(PieceColor pieceColor) {
+        int square = board.getEnPassantSquare();
+        if (square == Board.NO_SQUARE) return Board.NO_SQUARE;
+        return Bitboard.row(square) == (pieceColor == PieceColor.WHITE ? 2 : 5) ? square : Board.NO_SQUARE;
+    }
 
-        // 2. Movimento Duplo para a Frente (duas casas, a partir da posição inicial)
-        // Só pode mover duas casas se a primeira já estiver livre e o peão estiver na sua casa inicial.
-        if (row == startRow) {
-            int twoStepsForwardRow = row + (2 * direction);
-            if (isValidPosition(twoStepsForwardRow, col) && board.getSquare(twoStepsForwardRow, col).isEmpty() && board.getSquare(oneStepForwardRow, col).isEmpty())
-                positions.add(new Position(twoStepsForwardRow, col));
+    /**
+     * Peças da cor dada cravadas ao seu rei: são a única peça entre o rei e uma torre, bispo ou rainha adversária
+     * alinhada com ele, pelo que só se podem mover ao longo dessa linha.
+     */
+    private long getPinnedPieces(int kingSquare, PieceColor pieceColor) {
+        PieceColor opponent = pieceColor.opposite();
+        long enemies = this.board.getOccupancy(opponent);
+        long queens = this.board.getPieces(Type.QUEEN, opponent);
+        // Atacantes que veriam o rei se as peças amigas não existissem
+        long snipers = (MagicBitboards.rook(kingSquare, enemies) & (this.board.getPieces(Type.ROOK, opponent) | queens))
+                | (MagicBitboards.bishop(kingSquare, enemies) & (this.board.getPieces(Type.BISHOP, opponent) | queens));
+
+        long pinned = Bitboard.EMPTY;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = AttackTables.between(kingSquare, Bitboard.first(snipers)) & this.board.getOccupancy();
+            if (Bitboard.count(blockers) == 1) pinned |= blockers & this.board.getOccupancy(pieceColor);
         }
-
-        // Adiciona também os movimentos de captura - o peão é diferente das outras peças
-        positions.addAll(pawnValidCaptureMovement(position));
-        return positions;
+        return pinned;
     }
 
-    private List<Position> queenValidMoves(Position position) {
-        List<Position> moves = new LinkedList<>();
-
-        // A rainha também se move como uma torre
-        moves.addAll(rookValidMoves(position));
+    private boolean isKingAlive(PieceColor pieceColor) {
+        return this.board.getKingSquare(pieceColor) != Board.NO_SQUARE;
+    }
 
-        // A rainha também se move como um bispo
-        moves.addAll(bishopValidMoves(position));
+    /**
+     * Verifica se um movimento pseudo-legal não deixa o próprio rei em xeque, fazendo-o e desfazendo-o no tabuleiro.
+     */
+    private boolean isLegal(int move, PieceColor pieceColor) {
+        this.board.makeMove(move);
+        boolean legal = !this.isInCheck(pieceColor);
+        this.board.unmakeMove();
+        return legal;
+    }
 
-        return moves;
+    /**
+     * Versão de {@link #isSquareAttacked(int, PieceColor)} com uma ocupação dada, por exemplo sem o próprio rei.
+     */
+    private boolean isSquareAttacked(int square, PieceColor pieceColor, long occupancy) {
+        long queens = this.board.getPieces(Type.QUEEN, pieceColor);
+
+        // Um peão ataca a casa se estiver numa das casas que um peão adversário nela atacaria
+        return (AttackTables.pawn(pieceColor.opposite(), square) & this.board.getPieces(Type.PAWN, pieceColor)) != 0
+                || (AttackTables.knight(square) & this.board.getPieces(Type.KNIGHT, pieceColor)) != 0
+                || (AttackTables.king(square) & this.board.getPieces(Type.KING, pieceColor)) != 0
+                || (MagicBitboards.rook(square, occupancy) & (this.board.getPieces(Type.ROOK, pieceColor) | queens)) != 0
+                || (MagicBitboards.bishop(square, occupancy) & (this.board.getPieces(Type.BISHOP, pieceColor) | queens)) != 0;
     }
 
-    private List<Position> rookValidMoves(Position position) {
-        int row = position.row;
-        int col = position.col;
+    private void pawnMoves(int square, PieceColor pieceColor, int enPassantSquare, boolean tacticalOnly, MoveList moves) {
+        int row = Bitboard.row(square);
+        int col = Bitboard.col(square);
+        int direction = pieceColor == PieceColor.WHITE ? -1 : 1;    // Direção do movimento do peão ao longo das linhas (-1 para brancas, +1 para pretas)
+        int startRow = pieceColor == PieceColor.WHITE ? 6 : 1;     // Linha inicial para peões desta cor
+        int forwardRow = row + direction;
+        if (!isValidPosition(forwardRow, col)) return;
+
+        // 1. Movimento Simples para a Frente (uma casa) e Movimento Duplo a partir da posição inicial
+        if ((!tacticalOnly || forwardRow == 0 || forwardRow == 7) && board.isEmpty(forwardRow, col)) {
+            addPawnMove(PackedMove.of(square, Bitboard.square(forwardRow, col), Type.PAWN), forwardRow, moves);
+            if (row == startRow && board.isEmpty(forwardRow + direction, col))
+                moves.add(PackedMove.of(square, Bitboard.square(forwardRow + direction, col), Type.PAWN) | PackedMove.DOUBLE_PUSH);
+        }
 
-        // Direções: horizontal e vertical
-        // (linha, coluna)
-        int[][] directions = {{-1, 0}, // Cima
-                {1, 0},  // Baixo
-                {0, -1}, // Esquerda
-                {0, 1}   // Direita
-        };
-        return linearMovement(directions, row, col);
+        // 2. Capturas Diagonais, incluindo o "En Passant"
+        long captures = AttackTables.pawn(pieceColor, square);
+        for (long targets = captures & board.getOccupancy(pieceColor.opposite()); targets != 0; targets &= targets - 1) {
+            int to = Bitboard.first(targets);
+            addPawnMove(PackedMove.capture(square, to, Type.PAWN, this.capturedType(to)), forwardRow, moves);
+        }
+        if (enPassantSquare != Board.NO_SQUARE && Bitboard.isSet(captures, enPassantSquare))
+            moves.add(PackedMove.capture(square, enPassantSquare, Type.PAWN, Type.PAWN) | PackedMove.EN_PASSANT);
     }
-}
\ No newline at end of file
+}
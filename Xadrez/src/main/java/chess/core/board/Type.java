@@ -1,5 +1,12 @@
 package chess.core.board;
 
 public enum Type {
-    PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING
+    PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING;
+
+    /**
+     * @return - nome da peça, igual ao da sua classe (por exemplo "Knight"), usado no XML e nas imagens da interface.
+     */
+    public String getPieceName() {
+        return this.name().charAt(0) + this.name().substring(1).toLowerCase();
+    }
 }
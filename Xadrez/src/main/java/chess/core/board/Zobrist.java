@@ -0,0 +1,60 @@
+package chess.core.board;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chaves aleatórias de 64 bits para o hashing de Zobrist das posições.
+ * A chave de uma posição é o XOR das chaves de cada peça na sua casa, dos direitos de roque,
+ * da coluna de "en passant" e do lado a jogar; o {@link Board} mantém-na com um XOR por cada alteração.
+ * <p>
+ * As chaves são geradas com uma semente fixa, pelo que a mesma posição tem sempre a mesma chave
+ * entre execuções (necessário para tabelas guardadas em ficheiro, como livros de aberturas).
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5EED_C0FF_EE15_600DL;
+    private static final long[][] PIECES = new long[12][64]; // [tipo * 2 + cor][casa]
+    private static final long[] CASTLING = new long[16];     // [máscara dos direitos de roque]
+    private static final long[] EN_PASSANT = new long[8];    // [coluna]
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] piece : PIECES)
+            for (int square = 0; square < 64; square++) piece[square] = random.nextLong();
+
+        long[] castlingRights = new long[4];
+        for (int i = 0; i < castlingRights.length; i++) castlingRights[i] = random.nextLong();
+        for (int rights = 0; rights < CASTLING.length; rights++)
+            for (int i = 0; i < castlingRights.length; i++)
+                if ((rights & (1 << i)) != 0) CASTLING[rights] ^= castlingRights[i];
+
+        for (int col = 0; col < EN_PASSANT.length; col++) EN_PASSANT[col] = random.nextLong();
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex - índice da peça, {@code tipo * 2 + cor}.
+     * @param square     - casa (ver {@link Bitboard#square(int, int)}).
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECES[pieceIndex][square];
+    }
+
+    /**
+     * @param castlingRights - máscara dos direitos de roque (ver {@link Board#getCastlingRights()}).
+     */
+    public static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    public static long enPassant(int col) {
+        return EN_PASSANT[col];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
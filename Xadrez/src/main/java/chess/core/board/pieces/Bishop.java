@@ -1,6 +1,7 @@
 package chess.core.board.pieces;
 
 import chess.core.PieceColor;
+import chess.core.board.Type;
 
 import java.io.Serializable;
 
@@ -10,6 +11,11 @@ public class Bishop extends Piece implements Serializable {
         super(pieceColor);
     }
 
+    @Override
+    public Type getType() {
+        return Type.BISHOP;
+    }
+
     public String toString() {
         return super.getColor().equals(PieceColor.BLACK) ? "♝" : "♗";
     }
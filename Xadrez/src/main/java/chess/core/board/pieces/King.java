@@ -1,6 +1,7 @@
 package chess.core.board.pieces;
 
 import chess.core.PieceColor;
+import chess.core.board.Type;
 
 import java.io.Serializable;
 
@@ -11,6 +12,11 @@ public class King extends Piece implements Serializable {
         super(pieceColor);
     }
 
+    @Override
+    public Type getType() {
+        return Type.KING;
+    }
+
     public String toString() {
         return super.getColor().equals(PieceColor.BLACK) ? "♚" : "♔";
     }
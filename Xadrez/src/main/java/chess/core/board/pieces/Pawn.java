@@ -1,6 +1,7 @@
 package chess.core.board.pieces;
 
 import chess.core.PieceColor;
+import chess.core.board.Type;
 
 import java.io.Serializable;
 
@@ -11,6 +12,11 @@ public class Pawn extends Piece implements Serializable {
     }
 
 
+    @Override
+    public Type getType() {
+        return Type.PAWN;
+    }
+
     public String toString() {
         return super.getColor().equals(PieceColor.BLACK) ? "♟" : "♙";
     }
@@ -1,6 +1,7 @@
 package chess.core.board.pieces;
 
 import chess.core.PieceColor;
+import chess.core.board.Type;
 
 import java.io.Serializable;
 
@@ -16,6 +17,13 @@ public abstract class Piece implements Serializable {
         return this.pieceColor;
     }
 
+    /**
+     * Retorna o tipo desta peça, usado para indexar os bitboards do tabuleiro.
+     *
+     * @return - Tipo da peça.
+     */
+    public abstract Type getType();
+
     public final boolean hasNotMoved() {
         return !this.hasMoved;
     }
@@ -32,6 +40,15 @@ public abstract class Piece implements Serializable {
         this.hasMoved = true;
     }
 
+    /**
+     * Repõe o estado "hasMoved", usado pelo tabuleiro para desfazer movimentos.
+     *
+     * @param hasMoved - verdadeiro se a peça já se moveu.
+     */
+    public final void setHasMoved(boolean hasMoved) {
+        this.hasMoved = hasMoved;
+    }
+
     public abstract String toString();
 
     @Override
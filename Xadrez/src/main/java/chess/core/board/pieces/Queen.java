@@ -1,6 +1,7 @@
 package chess.core.board.pieces;
 
 import chess.core.PieceColor;
+import chess.core.board.Type;
 
 import java.io.Serializable;
 
@@ -9,6 +10,11 @@ public class Queen extends Piece implements Serializable {
         super(pieceColor);
     }
 
+    @Override
+    public Type getType() {
+        return Type.QUEEN;
+    }
+
     public String toString() {
         return super.getColor().equals(PieceColor.BLACK) ? "♛" : "♕";
     }
@@ -0,0 +1,107 @@
+package chess.engine;
+
+import chess.core.PieceColor;
+import chess.core.board.Bitboard;
+import chess.core.board.Board;
+import chess.core.board.PieceSquareTables;
+import chess.core.board.Type;
+import chess.core.board.pieces.Piece;
+
+/**
+ * Avaliação estática de uma posição, em centipeões, do ponto de vista do lado a jogar.
+ * <p>
+ * Soma o material e os bónus por casa de {@link PieceSquareTables}, com uma avaliação de meio-jogo e outra de final
+ * misturadas segundo a fase do jogo: na abertura conta só a de meio-jogo e, à medida que as peças saem,
+ * a de final vai pesando mais. As somas e a fase são mantidas pelo {@link Board} a cada movimento,
+ * pelo que avaliar custa apenas algumas operações aritméticas.
+ * <p>
+ * A estas somam-se os termos da estrutura de peões ({@link PawnStructure}), lidos de uma {@link PawnHashTable}
+ * quando a procura tem uma, e a penalização dos peões passados bloqueados, que depende também das outras peças.
+ * <p>
+ * Com as asserções ativas ({@code java -ea}), cada avaliação é comparada com o cálculo completo a partir das casas.
+ */
+public final class Evaluation {
+    private Evaluation() {
+    }
+
+    /**
+     * Avalia sem tabela de peões, calculando a estrutura de peões de cada vez.
+     *
+     * @param board - tabuleiro a avaliar.
+     * @return - avaliação positiva se o lado a jogar estiver melhor.
+     */
+    public static int evaluate(Board board) {
+        long whitePawns = board.getPieces(Type.PAWN, PieceColor.WHITE);
+        long blackPawns = board.getPieces(Type.PAWN, PieceColor.BLACK);
+        return evaluate(board, PawnStructure.middlegame(whitePawns, blackPawns), PawnStructure.endgame(whitePawns, blackPawns),
+                PawnStructure.passedPawns(whitePawns, blackPawns, PieceColor.WHITE), PawnStructure.passedPawns(blackPawns, whitePawns, PieceColor.BLACK));
+    }
+
+    /**
+     * @param board     - tabuleiro a avaliar.
+     * @param pawnTable - tabela onde procurar (e guardar) a estrutura de peões.
+     * @return - avaliação positiva se o lado a jogar estiver melhor.
+     */
+    public static int evaluate(Board board, PawnHashTable pawnTable) {
+        int entry = pawnTable.probe(board);
+        return evaluate(board, pawnTable.middlegame(entry), pawnTable.endgame(entry),
+                pawnTable.passedPawns(entry, PieceColor.WHITE), pawnTable.passedPawns(entry, PieceColor.BLACK));
+    }
+
+    /**
+     * Calcula a avaliação percorrendo todas as casas do tabuleiro, sem usar os valores incrementais.
+     * Serve apenas para validar {@link #evaluate(Board)}.
+     *
+     * @param board - tabuleiro a avaliar.
+     * @return - avaliação do ponto de vista das Brancas.
+     */
+    public static int evaluateFromScratch(Board board) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        long[] pawns = new long[2];  // [ordinal da cor]
+        long[] pieces = new long[2];
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getPiece(square / 8, square % 8);
+            if (piece == null) continue;
+            middlegame += PieceSquareTables.middlegame(piece.getType(), piece.getColor(), square);
+            endgame += PieceSquareTables.endgame(piece.getType(), piece.getColor(), square);
+            phase += PieceSquareTables.phase(piece.getType());
+            pieces[piece.getColor().ordinal()] |= Bitboard.bit(square);
+            if (piece.getType() == Type.PAWN) pawns[piece.getColor().ordinal()] |= Bitboard.bit(square);
+        }
+
+        long whitePawns = pawns[PieceColor.WHITE.ordinal()];
+        long blackPawns = pawns[PieceColor.BLACK.ordinal()];
+        long whitePassed = PawnStructure.passedPawns(whitePawns, blackPawns, PieceColor.WHITE);
+        long blackPassed = PawnStructure.passedPawns(blackPawns, whitePawns, PieceColor.BLACK);
+        long white = pieces[PieceColor.WHITE.ordinal()];
+        long black = pieces[PieceColor.BLACK.ordinal()];
+        middlegame += PawnStructure.middlegame(whitePawns, blackPawns) + PawnStructure.blockedPassedPawns(whitePassed, black, PieceColor.WHITE, false)
+                - PawnStructure.blockedPassedPawns(blackPassed, white, PieceColor.BLACK, false);
+        endgame += PawnStructure.endgame(whitePawns, blackPawns) + PawnStructure.blockedPassedPawns(whitePassed, black, PieceColor.WHITE, true)
+                - PawnStructure.blockedPassedPawns(blackPassed, white, PieceColor.BLACK, true);
+        return taper(middlegame, endgame, phase);
+    }
+
+    /**
+     * Junta às somas incrementais do tabuleiro os termos dos peões, vindos da tabela ou calculados.
+     */
+    private static int evaluate(Board board, int pawnMiddlegame, int pawnEndgame, long whitePassed, long blackPassed) {
+        long white = board.getOccupancy(PieceColor.WHITE);
+        long black = board.getOccupancy(PieceColor.BLACK);
+        int middlegame = board.getMiddlegameScore() + pawnMiddlegame + PawnStructure.blockedPassedPawns(whitePassed, black, PieceColor.WHITE, false)
+                - PawnStructure.blockedPassedPawns(blackPassed, white, PieceColor.BLACK, false);
+        int endgame = board.getEndgameScore() + pawnEndgame + PawnStructure.blockedPassedPawns(whitePassed, black, PieceColor.WHITE, true)
+                - PawnStructure.blockedPassedPawns(blackPassed, white, PieceColor.BLACK, true);
+        int score = taper(middlegame, endgame, board.getPhase());
+        assert score == evaluateFromScratch(board) : "A avaliação incremental difere do cálculo completo";
+        return board.getSideToMove() == PieceColor.WHITE ? score : -score;
+    }
+
+    private static int taper(int middlegame, int endgame, int phase) {
+        int maxPhase = PieceSquareTables.maxPhase();
+        phase = Math.min(phase, maxPhase); // Promoções podem passar do máximo
+        return (middlegame * phase + endgame * (maxPhase - phase)) / maxPhase;
+    }
+}
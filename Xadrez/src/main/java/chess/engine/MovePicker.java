@@ -0,0 +1,210 @@
+package chess.engine;
+
+import chess.core.board.Board;
+import chess.core.board.MoveList;
+import chess.core.board.PackedMove;
+import chess.core.board.RulesMaster;
+
+/**
+ * Devolve os movimentos legais de um nó da procura um a um, pela ordem em que mais provavelmente causam um corte:
+ * <ol>
+ * <li>o movimento da tabela de transposição;</li>
+ * <li>as capturas e promoções que não perdem material ({@link RulesMaster#staticExchangeEvaluation(int)}),
+ * da vítima mais valiosa para a menos valiosa e, entre estas, do atacante menos valioso (MVV-LVA);</li>
+ * <li>os dois movimentos "killer" da profundidade, calmos e que causaram cortes noutros ramos;</li>
+ * <li>os restantes movimentos calmos, pela tabela de histórico;</li>
+ * <li>as capturas que perdem material.</li>
+ * </ol>
+ * Cada fase só gera os seus movimentos quando a anterior se esgota, pelo que um corte no movimento da tabela
+ * evita gerar os restantes. Dentro de uma fase, o melhor movimento é escolhido a cada pedido em vez de ordenar a lista.
+ * Cada movimento legal é devolvido exatamente uma vez, exceto na procura quiescente ({@link #resetTactical()}),
+ * que só recebe as capturas e promoções que não perdem material.
+ */
+final class MovePicker {
+    private static final int HASH = 0;
+    private static final int GENERATE_TACTICAL = 1;
+    private static final int GOOD_TACTICAL = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int GENERATE_QUIETS = 5;
+    private static final int QUIETS = 6;
+    private static final int BAD_TACTICAL = 7;
+    private static final int DONE = 8;
+    private final Board board;
+    private final RulesMaster rulesMaster;
+    private final int[] history;
+    private final MoveList moves = new MoveList();
+    private final MoveList badMoves = new MoveList(); // Capturas que perdem material, adiadas para o fim
+    private int[] scores = new int[MoveList.DEFAULT_CAPACITY];
+    private int stage;
+    private int index;
+    private int badIndex;
+    private boolean tacticalOnly;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+
+    /**
+     * @param history - tabela de histórico da procura, indexada por {@link #historyIndex(int, int)}.
+     */
+    MovePicker(Board board, RulesMaster rulesMaster, int[] history) {
+        this.board = board;
+        this.rulesMaster = rulesMaster;
+        this.history = history;
+    }
+
+    /**
+     * @return - índice de um movimento na tabela de histórico: cor a jogar, origem e destino.
+     */
+    static int historyIndex(int colorOrdinal, int move) {
+        return (colorOrdinal << 12) | (PackedMove.from(move) << 6) | PackedMove.to(move);
+    }
+
+    /**
+     * @return - verdadeiro se o último movimento devolvido for uma captura que perde material.
+     */
+    boolean isLosingCapture() {
+        return this.stage == BAD_TACTICAL;
+    }
+
+    /**
+     * @return - o próximo movimento legal, ou {@link PackedMove#NONE} se já não houver mais.
+     */
+    int next() {
+        while (true) {
+            switch (this.stage) {
+                case HASH -> {
+                    this.stage = GENERATE_TACTICAL;
+                    if (this.rulesMaster.isLegalMove(this.hashMove)) return this.hashMove;
+                }
+                case GENERATE_TACTICAL -> {
+                    this.moves.clear();
+                    this.badMoves.clear();
+                    this.rulesMaster.generateLegalTacticalMoves(this.moves);
+                    this.scoreTactical();
+                    this.stage = GOOD_TACTICAL;
+                }
+                case GOOD_TACTICAL -> {
+                    int move = this.pickBest();
+                    if (move == PackedMove.NONE) this.stage = this.tacticalOnly ? DONE : FIRST_KILLER;
+                    else if (move != this.hashMove) {
+                        if (!PackedMove.isCapture(move) || this.rulesMaster.staticExchangeEvaluation(move) >= 0) return move;
+                        if (!this.tacticalOnly) this.badMoves.add(move);
+                    }
+                }
+                case FIRST_KILLER -> {
+                    this.stage = SECOND_KILLER;
+                    if (this.isKillerCandidate(this.firstKiller)) return this.firstKiller;
+                }
+                case SECOND_KILLER -> {
+                    this.stage = GENERATE_QUIETS;
+                    if (this.secondKiller != this.firstKiller && this.isKillerCandidate(this.secondKiller)) return this.secondKiller;
+                }
+                case GENERATE_QUIETS -> {
+                    this.moves.clear();
+                    this.rulesMaster.generateLegalMoves(this.moves);
+                    this.scoreQuiets();
+                    this.stage = QUIETS;
+                }
+                case QUIETS -> {
+                    int move = this.pickBest();
+                    if (move == PackedMove.NONE) {
+                        this.stage = BAD_TACTICAL;
+                        this.badIndex = 0;
+                    } else return move;
+                }
+                case BAD_TACTICAL -> {
+                    if (this.badIndex < this.badMoves.size()) return this.badMoves.get(this.badIndex++);
+                    this.stage = DONE;
+                }
+                default -> {
+                    return PackedMove.NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepara a escolha dos movimentos de um novo nó.
+     *
+     * @param hashMove     - movimento da tabela de transposição, ou {@link PackedMove#NONE}; pode ser ilegal.
+     * @param firstKiller  - movimento "killer" mais recente da profundidade, ou {@link PackedMove#NONE}.
+     * @param secondKiller - movimento "killer" anterior da profundidade, ou {@link PackedMove#NONE}.
+     */
+    void reset(int hashMove, int firstKiller, int secondKiller) {
+        this.stage = HASH;
+        this.tacticalOnly = false;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+    }
+
+    /**
+     * Prepara a escolha dos movimentos de um nó da procura quiescente: só as capturas e promoções que não perdem material.
+     */
+    void resetTactical() {
+        this.stage = GENERATE_TACTICAL;
+        this.tacticalOnly = true;
+        this.hashMove = PackedMove.NONE;
+        this.firstKiller = PackedMove.NONE;
+        this.secondKiller = PackedMove.NONE;
+    }
+
+    private void ensureCapacity() {
+        if (this.scores.length < this.moves.size()) this.scores = new int[this.moves.size()];
+    }
+
+    private boolean isKillerCandidate(int move) {
+        return move != PackedMove.NONE && move != this.hashMove && PackedMove.isQuiet(move) && this.rulesMaster.isLegalMove(move);
+    }
+
+    /**
+     * Troca o movimento de maior pontuação ainda não devolvido para a posição atual e devolve-o.
+     */
+    private int pickBest() {
+        if (this.index >= this.moves.size()) return PackedMove.NONE;
+
+        int best = this.index;
+        for (int i = this.index + 1; i < this.moves.size(); i++)
+            if (this.scores[i] > this.scores[best]) best = i;
+
+        int move = this.moves.get(best);
+        this.moves.set(best, this.moves.get(this.index));
+        this.scores[best] = this.scores[this.index];
+        this.moves.set(this.index, move);
+        this.index++;
+        return move;
+    }
+
+    /**
+     * Retira da lista os movimentos táticos e os já devolvidos, e pontua os restantes pelo histórico.
+     */
+    private void scoreQuiets() {
+        this.ensureCapacity();
+        int colorOrdinal = this.board.getSideToMove().ordinal();
+        int size = 0;
+        for (int i = 0; i < this.moves.size(); i++) {
+            int move = this.moves.get(i);
+            if (!PackedMove.isQuiet(move) || move == this.hashMove || move == this.firstKiller || move == this.secondKiller) continue;
+
+            this.moves.set(size, move);
+            this.scores[size++] = this.history[historyIndex(colorOrdinal, move)];
+        }
+        this.moves.truncate(size);
+        this.index = 0;
+    }
+
+    /**
+     * Pontua as capturas por MVV-LVA; as promoções valem como a captura da peça promovida.
+     */
+    private void scoreTactical() {
+        this.ensureCapacity();
+        for (int i = 0; i < this.moves.size(); i++) {
+            int move = this.moves.get(i);
+            int score = PackedMove.isCapture(move) ? 16 * PackedMove.captured(move).ordinal() - PackedMove.piece(move).ordinal() : 0;
+            if (PackedMove.isPromotion(move)) score += 16 * PackedMove.promotion(move).ordinal();
+            this.scores[i] = score;
+        }
+        this.index = 0;
+    }
+}
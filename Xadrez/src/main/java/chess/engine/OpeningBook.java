@@ -0,0 +1,207 @@
+package chess.engine;
+
+import chess.core.board.Bitboard;
+import chess.core.board.Board;
+import chess.core.board.MoveList;
+import chess.core.board.PackedMove;
+import chess.core.board.RulesMaster;
+import chess.core.board.Type;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Livro de aberturas no formato binário do Polyglot: entradas de 16 bytes ordenadas pela chave da posição,
+ * cada uma com a chave (8 bytes), o movimento (2), o peso (2) e um campo de aprendizagem (4), em "big-endian".
+ * <p>
+ * O ficheiro é mapeado em memória ({@link FileChannel#map(FileChannel.MapMode, long, long, Arena)}) e as entradas
+ * de uma posição são encontradas por pesquisa binária, sem copiar o livro para a heap: só as páginas visitadas
+ * são lidas do disco.
+ * <p>
+ * As chaves são as do Polyglot ({@link #polyglotKey(Board)}), e não as de {@link chess.core.board.Zobrist}, pelo que
+ * tanto os livros construídos com {@link OpeningBookWriter} como os de outros programas podem ser usados.
+ * A instância pode ser partilhada por várias threads e deve ser fechada para libertar o mapeamento.
+ */
+public final class OpeningBook implements AutoCloseable {
+    static final int ENTRY_BYTES = 16;
+    private static final ValueLayout.OfLong KEY = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final Type[] PROMOTION_TYPES = {null, Type.KNIGHT, Type.BISHOP, Type.ROOK, Type.QUEEN}; // Pelo código do Polyglot
+    private final Arena arena;
+    private final MemorySegment entries;
+    private final long size;
+    private final Selection selection;
+
+    private OpeningBook(Arena arena, MemorySegment entries, Selection selection) {
+        this.arena = arena;
+        this.entries = entries;
+        this.size = entries.byteSize() / ENTRY_BYTES;
+        this.selection = selection;
+    }
+
+    /**
+     * Mapeia um livro em memória.
+     *
+     * @param path      - ficheiro do livro (.bin).
+     * @param selection - como escolher entre os movimentos de uma posição.
+     * @return - o livro aberto.
+     * @throws IOException se não for possível ler o ficheiro ou se o tamanho não for múltiplo de {@value #ENTRY_BYTES} bytes.
+     */
+    public static OpeningBook open(Path path, Selection selection) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() % ENTRY_BYTES != 0) throw new IOException("O livro " + path + " não está no formato Polyglot");
+            return new OpeningBook(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena), selection);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Codifica um movimento como no Polyglot: destino nos bits 0-5, origem nos bits 6-11 (coluna e depois fila,
+     * a contar da fila 1) e a peça promovida nos bits 12-14. O roque é codificado como o rei a capturar a torre.
+     *
+     * @param move - movimento codificado por {@link PackedMove}.
+     * @return - o movimento no formato do Polyglot.
+     */
+    static int encodeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        if (PackedMove.isCastling(move)) to = Bitboard.square(Bitboard.row(to), Bitboard.col(to) == 6 ? 7 : 0);
+
+        int promotion = 0;
+        for (int code = 1; code < PROMOTION_TYPES.length; code++)
+            if (PackedMove.promotion(move) == PROMOTION_TYPES[code]) promotion = code;
+        return promotion << 12 | encodeSquare(from) << 6 | encodeSquare(to);
+    }
+
+    /**
+     * @param board - posição.
+     * @return - chave da posição no formato do Polyglot, a usada nas entradas do livro.
+     */
+    public static long polyglotKey(Board board) {
+        return PolyglotKeys.key(board);
+    }
+
+    @Override
+    public void close() {
+        this.arena.close();
+    }
+
+    /**
+     * Procura os movimentos do livro para a posição do tabuleiro. Só são devolvidos movimentos legais,
+     * pois uma colisão de chaves pode dar movimentos de outra posição.
+     *
+     * @param board - posição a procurar.
+     * @return - os movimentos e os respetivos pesos, pela ordem do livro; vazia se a posição não estiver no livro.
+     */
+    public List<BookMove> getMoves(Board board) {
+        List<BookMove> result = new ArrayList<>();
+        long key = polyglotKey(board);
+        long index = this.firstIndex(key);
+        if (index >= this.size || this.key(index) != key) return result;
+
+        MoveList legalMoves = new MoveList();
+        new RulesMaster(board).generateLegalMoves(legalMoves);
+        for (; index < this.size && this.key(index) == key; index++) {
+            int bookMove = this.entries.get(SHORT, index * ENTRY_BYTES + 8) & 0xFFFF;
+            int weight = this.entries.get(SHORT, index * ENTRY_BYTES + 10) & 0xFFFF;
+            for (int i = 0; i < legalMoves.size(); i++) {
+                if (encodeMove(legalMoves.get(i)) != bookMove) continue;
+                result.add(new BookMove(legalMoves.get(i), weight));
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Escolhe um movimento do livro para a posição do tabuleiro, segundo a {@link Selection} do livro.
+     *
+     * @param board - posição a procurar.
+     * @return - o movimento codificado por {@link PackedMove}, ou {@link PackedMove#NONE} se a posição não estiver no livro.
+     */
+    public int selectMove(Board board) {
+        List<BookMove> moves = this.getMoves(board);
+        long totalWeight = 0;
+        BookMove best = null;
+        for (BookMove move : moves) {
+            totalWeight += move.weight();
+            if (best == null || move.weight() > best.weight()) best = move;
+        }
+        if (best == null || best.weight() == 0) return PackedMove.NONE;
+        if (this.selection == Selection.BEST) return best.move();
+
+        long target = ThreadLocalRandom.current().nextLong(totalWeight);
+        for (BookMove move : moves) {
+            target -= move.weight();
+            if (target < 0) return move.move();
+        }
+        return best.move();
+    }
+
+    /**
+     * @return - número de entradas do livro.
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Converte uma casa (A8 = 0) para a numeração do Polyglot (A1 = 0).
+     */
+    private static int encodeSquare(int square) {
+        return (7 - Bitboard.row(square)) * 8 + Bitboard.col(square);
+    }
+
+    /**
+     * Pesquisa binária pela primeira entrada com chave maior ou igual à dada, como inteiros sem sinal.
+     */
+    private long firstIndex(long key) {
+        long low = 0;
+        long high = this.size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(this.key(middle), key) < 0) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private long key(long index) {
+        return this.entries.get(KEY, index * ENTRY_BYTES);
+    }
+
+    /**
+     * Como escolher o movimento de uma posição com várias entradas no livro.
+     */
+    public enum Selection {
+        /**
+         * O movimento de maior peso.
+         */
+        BEST,
+        /**
+         * Um movimento ao acaso, com probabilidade proporcional ao peso, para variar as aberturas.
+         */
+        WEIGHTED_RANDOM
+    }
+
+    /**
+     * Movimento do livro para uma posição.
+     *
+     * @param move   - movimento codificado por {@link PackedMove}.
+     * @param weight - peso do movimento no livro (0 a 65535).
+     */
+    public record BookMove(int move, int weight) {
+    }
+}
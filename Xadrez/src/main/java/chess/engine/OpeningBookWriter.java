@@ -0,0 +1,120 @@
+package chess.engine;
+
+import chess.core.PieceColor;
+import chess.core.board.Board;
+import chess.core.board.Fen;
+import chess.core.board.PackedMove;
+import chess.core.board.Pgn;
+import chess.core.board.RulesMaster;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Constrói um {@link OpeningBook} a partir de uma coleção de partidas em PGN, para ser usado mais tarde pelo motor.
+ * <p>
+ * Cada movimento dos primeiros meios-lances de cada partida soma 2 pontos ao peso se o lado que o jogou ganhou
+ * e 1 se empatou; os movimentos que só aparecem em derrotas ficam com peso 0 e não são escritos.
+ * As partidas com movimentos ilegais ou ambíguos são usadas até ao primeiro desses movimentos.
+ */
+public final class OpeningBookWriter {
+    public static final int DEFAULT_MAX_PLY = 24;
+    private static final int MAX_WEIGHT = 0xFFFF;
+    private final Board board = new Board();
+    private final RulesMaster rulesMaster = new RulesMaster(this.board);
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>(); // [chave da posição][movimento Polyglot]
+    private final int maxPly;
+    private int games;
+
+    /**
+     * @param maxPly - número de meios-lances de cada partida a guardar no livro.
+     */
+    public OpeningBookWriter(int maxPly) {
+        if (maxPly <= 0) throw new IllegalArgumentException("O número de meios-lances deve ser positivo: " + maxPly);
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Constrói um livro a partir de um ficheiro PGN.
+     * Argumentos: ficheiro PGN, ficheiro do livro e, opcionalmente, o número de meios-lances por partida.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: OpeningBookWriter <partidas.pgn> <livro.bin> [meios-lances]");
+            return;
+        }
+        OpeningBookWriter writer = new OpeningBookWriter(args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY);
+        writer.addGames(Path.of(args[0]));
+        System.out.println(writer.write(Path.of(args[1])) + " entradas de " + writer.games + " partidas");
+    }
+
+    /**
+     * Acrescenta ao livro os primeiros meios-lances de uma partida, pesados pelo resultado.
+     *
+     * @param game - partida lida do PGN; as que começam noutra posição ("FEN") são ignoradas.
+     */
+    public void addGame(Pgn.Game game) {
+        if (game.tags().containsKey("FEN")) return;
+
+        Fen.load(this.board, Fen.START_POSITION);
+        this.games++;
+        String result = game.result();
+        for (int ply = 0; ply < Math.min(this.maxPly, game.moves().size()); ply++) {
+            int move = Pgn.parseMove(this.rulesMaster, game.moves().get(ply));
+            if (move == PackedMove.NONE) return;
+
+            boolean white = this.board.getSideToMove() == PieceColor.WHITE;
+            int points = result.equals("1/2-1/2") ? 1 : result.equals(white ? "1-0" : "0-1") ? 2 : 0;
+            this.weights.computeIfAbsent(OpeningBook.polyglotKey(this.board), key -> new HashMap<>())
+                    .merge(OpeningBook.encodeMove(move), points, Integer::sum);
+            this.board.makeMove(move);
+        }
+    }
+
+    /**
+     * Acrescenta ao livro todas as partidas de um ficheiro PGN.
+     *
+     * @param pgn - ficheiro PGN.
+     * @throws IOException se não for possível ler o ficheiro.
+     */
+    public void addGames(Path pgn) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(pgn, StandardCharsets.ISO_8859_1)) {
+            Pgn.readGames(reader, this::addGame);
+        }
+    }
+
+    /**
+     * Escreve o livro no formato do Polyglot, com as entradas ordenadas pela chave (sem sinal) e, em cada posição,
+     * do maior para o menor peso.
+     *
+     * @param path - ficheiro do livro; é substituído se existir.
+     * @return - número de entradas escritas.
+     * @throws IOException se não for possível escrever o ficheiro.
+     */
+    public int write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>(); // {chave, movimento, peso}
+        for (Map.Entry<Long, Map<Integer, Integer>> position : this.weights.entrySet())
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet())
+                if (move.getValue() > 0) entries.add(new long[]{position.getKey(), move.getKey(), Math.min(move.getValue(), MAX_WEIGHT)});
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            for (long[] entry : entries) {
+                output.writeLong(entry[0]);
+                output.writeShort((int) entry[1]);
+                output.writeShort((int) entry[2]);
+                output.writeInt(0); // Aprendizagem, não usada
+            }
+        }
+        return entries.size();
+    }
+}
@@ -0,0 +1,121 @@
+package chess.engine;
+
+import chess.core.PieceColor;
+import chess.core.board.Board;
+import chess.core.board.Type;
+
+import java.util.Arrays;
+
+/**
+ * Tabela de dispersão da estrutura de peões, indexada pela chave dos peões ({@link Board#getPawnKey()}).
+ * <p>
+ * A estrutura de peões muda raramente de um nó para o seguinte, pelo que quase todas as avaliações a encontram
+ * na tabela em vez de recalcular os termos de {@link PawnStructure}. Cada entrada guarda as avaliações de
+ * meio-jogo e de final e os peões passados de cada cor; uma entrada nova substitui sempre a anterior.
+ * <p>
+ * Ao contrário da {@link TranspositionTable}, não é partilhada entre threads: cada thread de procura tem a sua,
+ * pequena o suficiente para caber na cache do processador, sem sincronização. No fim da procura volta a um
+ * {@link PawnHashTablePool} e é reutilizada nas procuras seguintes.
+ */
+public final class PawnHashTable {
+    private static final int ENTRY_BYTES = 32; // Chave, avaliações e dois bitboards, arredondado
+    private static final int MAX_KILOBYTES = 1 << 20;
+    private static final int FILL_SAMPLE = 1000; // Entradas amostradas para a percentagem de ocupação
+    private final long[] keys;
+    private final int[] scores; // Meio-jogo nos 16 bits altos, final nos 16 baixos
+    private final long[] passedPawns; // Duas posições por entrada: [entrada * 2 + ordinal da cor]
+    private final int mask;
+    private long probes;
+    private long hits;
+    private long collisions;
+
+    /**
+     * @param kilobytes - memória ocupada pela tabela, em KB (1 a 1048576); o número de entradas é arredondado
+     *                  para baixo a uma potência de 2.
+     */
+    public PawnHashTable(int kilobytes) {
+        if (kilobytes < 1 || kilobytes > MAX_KILOBYTES) throw new IllegalArgumentException("Tamanho inválido: " + kilobytes + " KB");
+
+        int entries = Integer.highestOneBit(kilobytes * 1024 / ENTRY_BYTES);
+        this.keys = new long[entries];
+        this.scores = new int[entries];
+        this.passedPawns = new long[entries * 2];
+        this.mask = entries - 1;
+    }
+
+    /**
+     * @return - número de entradas da tabela.
+     */
+    public int capacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Apaga todas as entradas e as estatísticas.
+     * A tabela vazia é válida para a posição sem peões, cuja chave é 0 e cujos termos são todos 0.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.scores, 0);
+        Arrays.fill(this.passedPawns, 0L);
+        this.probes = 0;
+        this.hits = 0;
+        this.collisions = 0;
+    }
+
+    /**
+     * @return - consultas, sucessos, substituições de outra estrutura e ocupação estimada da tabela.
+     */
+    public TranspositionTable.Statistics getStatistics() {
+        int sample = Math.min(FILL_SAMPLE, this.keys.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++)
+            if (this.keys[i] != 0L) used++;
+        return new TranspositionTable.Statistics(this.probes, this.hits, this.collisions, 100.0 * used / sample);
+    }
+
+    /**
+     * @return - avaliação de final guardada numa entrada, do ponto de vista das Brancas.
+     */
+    int endgame(int entry) {
+        return (short) this.scores[entry];
+    }
+
+    /**
+     * @return - avaliação de meio-jogo guardada numa entrada, do ponto de vista das Brancas.
+     */
+    int middlegame(int entry) {
+        return this.scores[entry] >> 16;
+    }
+
+    /**
+     * @return - bitboard dos peões passados de uma cor guardado numa entrada.
+     */
+    long passedPawns(int entry, PieceColor pieceColor) {
+        return this.passedPawns[entry * 2 + pieceColor.ordinal()];
+    }
+
+    /**
+     * Procura a estrutura de peões do tabuleiro, calculando-a e guardando-a se não estiver na tabela.
+     *
+     * @return - índice da entrada, para {@link #middlegame(int)}, {@link #endgame(int)} e {@link #passedPawns(int, PieceColor)}.
+     */
+    int probe(Board board) {
+        long key = board.getPawnKey();
+        int entry = (int) (key ^ (key >>> 32)) & this.mask;
+        this.probes++;
+        if (this.keys[entry] == key) {
+            this.hits++;
+            return entry;
+        }
+        if (this.keys[entry] != 0L) this.collisions++;
+
+        long whitePawns = board.getPieces(Type.PAWN, PieceColor.WHITE);
+        long blackPawns = board.getPieces(Type.PAWN, PieceColor.BLACK);
+        this.keys[entry] = key;
+        this.scores[entry] = PawnStructure.middlegame(whitePawns, blackPawns) << 16 | (PawnStructure.endgame(whitePawns, blackPawns) & 0xFFFF);
+        this.passedPawns[entry * 2 + PieceColor.WHITE.ordinal()] = PawnStructure.passedPawns(whitePawns, blackPawns, PieceColor.WHITE);
+        this.passedPawns[entry * 2 + PieceColor.BLACK.ordinal()] = PawnStructure.passedPawns(blackPawns, whitePawns, PieceColor.BLACK);
+        return entry;
+    }
+}
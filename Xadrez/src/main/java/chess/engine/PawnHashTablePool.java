@@ -0,0 +1,68 @@
+package chess.engine;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Conjunto de tabelas de peões ({@link PawnHashTable}) reutilizadas entre procuras.
+ * <p>
+ * Cada thread de uma procura recebe uma tabela no início e devolve-a no fim, pelo que as tabelas (e o que já
+ * guardam das estruturas de peões) passam de uma procura para a seguinte, seja qual for a thread que procura.
+ * O conjunto guarda no máximo {@link #maxTables()} tabelas livres: com mais procuras em simultâneo, as tabelas
+ * a mais são criadas para a procura e descartadas no fim, e a memória retida nunca passa desse número de tabelas.
+ */
+public final class PawnHashTablePool {
+    private final Deque<PawnHashTable> idle = new ArrayDeque<>(); // A última devolvida é a primeira a sair
+    private final int kilobytes;
+    private final int maxTables;
+
+    /**
+     * @param kilobytes - tamanho de cada tabela, em KB (ver {@link PawnHashTable#PawnHashTable(int)}).
+     * @param maxTables - número máximo de tabelas livres guardadas.
+     */
+    public PawnHashTablePool(int kilobytes, int maxTables) {
+        if (maxTables < 1) throw new IllegalArgumentException("Número de tabelas inválido: " + maxTables);
+        this.kilobytes = kilobytes;
+        this.maxTables = maxTables;
+        this.idle.add(new PawnHashTable(kilobytes)); // Valida já o tamanho, em vez de na primeira procura
+    }
+
+    /**
+     * @return - uma tabela livre, a última devolvida, ou uma nova se não houver nenhuma.
+     */
+    public synchronized PawnHashTable acquire() {
+        PawnHashTable table = this.idle.pollFirst();
+        return table != null ? table : new PawnHashTable(this.kilobytes);
+    }
+
+    /**
+     * @return - número de tabelas livres guardadas.
+     */
+    public synchronized int idleTables() {
+        return this.idle.size();
+    }
+
+    /**
+     * @return - tamanho de cada tabela, em KB.
+     */
+    public int kilobytes() {
+        return this.kilobytes;
+    }
+
+    /**
+     * @return - número máximo de tabelas livres guardadas.
+     */
+    public int maxTables() {
+        return this.maxTables;
+    }
+
+    /**
+     * Devolve uma tabela obtida com {@link #acquire()}, que deixa de poder ser usada por quem a devolve.
+     * Se o conjunto já estiver cheio, a tabela é descartada.
+     *
+     * @param table - tabela a devolver.
+     */
+    public synchronized void release(PawnHashTable table) {
+        if (this.idle.size() < this.maxTables) this.idle.addFirst(table);
+    }
+}
@@ -0,0 +1,114 @@
+package chess.engine;
+
+import chess.core.PieceColor;
+import chess.core.board.Bitboard;
+import chess.core.board.PieceSquareTables;
+
+/**
+ * Termos da avaliação que dependem apenas dos peões: peões dobrados, isolados e passados.
+ * Como só dependem das casas dos peões, o resultado é guardado numa {@link PawnHashTable} pela chave dos peões,
+ * com os peões passados, usados por {@link #blockedPassedPawns} juntamente com as restantes peças.
+ * <p>
+ * Os pesos são lidos de {@link PieceSquareTables#weight(String)}; as avaliações são do ponto de vista das Brancas.
+ */
+final class PawnStructure {
+    private static final int DOUBLED_MIDDLEGAME = PieceSquareTables.weight("pawn.doubled.mg");
+    private static final int DOUBLED_ENDGAME = PieceSquareTables.weight("pawn.doubled.eg");
+    private static final int ISOLATED_MIDDLEGAME = PieceSquareTables.weight("pawn.isolated.mg");
+    private static final int ISOLATED_ENDGAME = PieceSquareTables.weight("pawn.isolated.eg");
+    private static final int[] PASSED_MIDDLEGAME = PieceSquareTables.weights("pawn.passed.mg", 8); // [fila relativa]
+    private static final int[] PASSED_ENDGAME = PieceSquareTables.weights("pawn.passed.eg", 8);
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long[][] PASSED_MASKS = new long[2][64]; // [ordinal da cor][casa]: casas à frente, nas 3 colunas
+
+    static {
+        for (int col = 0; col < 8; col++)
+            for (int row = 0; row < 8; row++) FILES[col] |= Bitboard.bit(row, col);
+        for (int col = 0; col < 8; col++)
+            ADJACENT_FILES[col] = (col > 0 ? FILES[col - 1] : Bitboard.EMPTY) | (col < 7 ? FILES[col + 1] : Bitboard.EMPTY);
+
+        for (int square = 0; square < 64; square++) {
+            long files = FILES[Bitboard.col(square)] | ADJACENT_FILES[Bitboard.col(square)];
+            for (int row = 0; row < 8; row++) {
+                long rank = 0xFFL << (row * 8);
+                if (row < Bitboard.row(square)) PASSED_MASKS[PieceColor.WHITE.ordinal()][square] |= files & rank;
+                if (row > Bitboard.row(square)) PASSED_MASKS[PieceColor.BLACK.ordinal()][square] |= files & rank;
+            }
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * Um peão passado com uma peça adversária na casa à sua frente só recebe metade do bónus.
+     *
+     * @param passed  - peões passados da cor dada.
+     * @param enemies - casas ocupadas pelas peças adversárias.
+     * @return - penalização (negativa), do ponto de vista da cor dada.
+     */
+    static int blockedPassedPawns(long passed, long enemies, PieceColor pieceColor, boolean endgame) {
+        int score = 0;
+        for (; passed != 0; passed &= passed - 1) {
+            int square = Bitboard.first(passed);
+            if (!Bitboard.isSet(enemies, pieceColor == PieceColor.WHITE ? square - 8 : square + 8)) continue;
+            int relativeRank = relativeRank(square, pieceColor);
+            score -= (endgame ? PASSED_ENDGAME[relativeRank] : PASSED_MIDDLEGAME[relativeRank]) / 2;
+        }
+        return score;
+    }
+
+    /**
+     * @return - avaliação de final da estrutura de peões.
+     */
+    static int endgame(long whitePawns, long blackPawns) {
+        return evaluate(whitePawns, blackPawns, PieceColor.WHITE, true) - evaluate(blackPawns, whitePawns, PieceColor.BLACK, true);
+    }
+
+    /**
+     * @return - avaliação de meio-jogo da estrutura de peões.
+     */
+    static int middlegame(long whitePawns, long blackPawns) {
+        return evaluate(whitePawns, blackPawns, PieceColor.WHITE, false) - evaluate(blackPawns, whitePawns, PieceColor.BLACK, false);
+    }
+
+    /**
+     * Um peão é passado se nenhum peão adversário estiver à sua frente, na mesma coluna ou nas vizinhas.
+     *
+     * @return - bitboard dos peões passados da cor dada.
+     */
+    static long passedPawns(long pawns, long enemyPawns, PieceColor pieceColor) {
+        long passed = Bitboard.EMPTY;
+        for (long remaining = pawns; remaining != 0; remaining &= remaining - 1) {
+            int square = Bitboard.first(remaining);
+            if ((PASSED_MASKS[pieceColor.ordinal()][square] & enemyPawns) == 0) passed |= Bitboard.bit(square);
+        }
+        return passed;
+    }
+
+    /**
+     * Soma os termos dos peões de uma cor, do ponto de vista dessa cor.
+     */
+    private static int evaluate(long pawns, long enemyPawns, PieceColor pieceColor, boolean endgame) {
+        int score = 0;
+        for (int col = 0; col < 8; col++) {
+            int count = Bitboard.count(pawns & FILES[col]);
+            if (count == 0) continue;
+            if (count > 1) score += (count - 1) * (endgame ? DOUBLED_ENDGAME : DOUBLED_MIDDLEGAME);
+            if ((pawns & ADJACENT_FILES[col]) == 0) score += count * (endgame ? ISOLATED_ENDGAME : ISOLATED_MIDDLEGAME);
+        }
+        for (long passed = passedPawns(pawns, enemyPawns, pieceColor); passed != 0; passed &= passed - 1) {
+            int relativeRank = relativeRank(Bitboard.first(passed), pieceColor);
+            score += endgame ? PASSED_ENDGAME[relativeRank] : PASSED_MIDDLEGAME[relativeRank];
+        }
+        return score;
+    }
+
+    /**
+     * @return - fila da casa contada a partir da primeira fila da cor (0 a 7).
+     */
+    private static int relativeRank(int square, PieceColor pieceColor) {
+        return pieceColor == PieceColor.WHITE ? 7 - Bitboard.row(square) : Bitboard.row(square);
+    }
+}
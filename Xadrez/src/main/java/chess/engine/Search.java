@@ -0,0 +1,457 @@
+package chess.engine;
+
+import chess.core.GameManager;
+import chess.core.board.Board;
+import chess.core.board.MoveList;
+import chess.core.board.PackedMove;
+import chess.core.board.RulesMaster;
+import chess.core.board.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Motor de procura: negamax com cortes alfa-beta, aprofundamento iterativo e procura de variante principal (PVS).
+ * <p>
+ * Cada iteração procura toda a árvore até à profundidade seguinte, começando pelo melhor movimento da anterior.
+ * Na PVS, o primeiro movimento de cada nó é procurado com a janela completa e os restantes com uma janela nula,
+ * que só prova que não são melhores; se algum for, é procurado de novo com a janela completa.
+ * <p>
+ * Os resultados de cada nó ficam numa {@link TranspositionTable}: uma posição a que se chega por outra ordem
+ * de movimentos, ou de novo na iteração seguinte, é resolvida pela tabela ou começa pelo melhor movimento já conhecido.
+ * <p>
+ * Os movimentos de cada nó são tentados por um {@link MovePicker}: o da tabela, as capturas por MVV-LVA,
+ * os movimentos "killer" da profundidade e os calmos pelo histórico. Quanto mais cedo aparecer o movimento
+ * que causa o corte, menos nós são visitados ({@link SearchResult#firstMoveCutoffPercentage()}).
+ * <p>
+ * No fim da profundidade pedida, a procura quiescente continua só com capturas e promoções até a posição ficar calma,
+ * para que a avaliação não seja feita a meio de uma troca (efeito de horizonte). O lado a jogar pode sempre
+ * ficar com a avaliação estática ("stand pat") em vez de capturar, e as capturas que perdem material pela
+ * {@link RulesMaster#staticExchangeEvaluation(int)}, ou que nem com a peça capturada chegam a alfa ("delta pruning"),
+ * não são tentadas. Perto das folhas da procura principal, as capturas que perdem material também são ignoradas.
+ * <p>
+ * Com várias threads ({@link SearchLimits#threads()}), a procura é "Lazy SMP": as threads auxiliares procuram
+ * a mesma raiz, cada uma sobre a sua cópia do tabuleiro ({@link Board#copy()}), partilhando apenas a tabela de
+ * transposição. Metade começa uma profundidade à frente, para que as threads não percorram a árvore em uníssono;
+ * o que cada uma guarda na tabela acelera as outras. O resultado é o da thread principal, que pára as auxiliares
+ * quando termina.
+ * <p>
+ * Com um {@link OpeningBook}, as posições do livro são respondidas pelo livro, sem procura.
+ * <p>
+ * Cada instância trabalha sobre o seu próprio tabuleiro e não é segura para várias threads; a tabela pode ser partilhada.
+ * Uma iteração interrompida pelos limites é descartada e fica o resultado da última iteração concluída.
+ */
+public final class Search {
+    public static final int MAX_DEPTH = 64;
+    public static final int MATE = 30_000; // Mate em n meios-lances vale MATE - n
+    private static final int INFINITY = 32_000;
+    private static final int TIME_CHECK_INTERVAL = 1024; // Nós entre consultas ao relógio (potência de 2)
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+    private static final int DEFAULT_PAWN_TABLE_KILOBYTES = 512;
+    private static final int MAX_HISTORY = 1 << 20; // Ao ser atingido, o histórico é reduzido a metade
+    private static final int DELTA_MARGIN = 200; // Margem da "delta pruning" para os bónus posicionais da captura
+    private static final int SEE_PRUNING_DEPTH = 2; // Profundidade até à qual as capturas que perdem material são ignoradas
+    private static final TranspositionTable SHARED_TABLE = new TranspositionTable(DEFAULT_TABLE_MEGABYTES);
+    // Duas procuras com todas as threads: no máximo 1 MB retido por processador
+    private static final PawnHashTablePool SHARED_PAWN_TABLES =
+            new PawnHashTablePool(DEFAULT_PAWN_TABLE_KILOBYTES, 2 * SearchLimits.DEFAULT_THREADS);
+    private final Board board;
+    private final TranspositionTable table;
+    private final RulesMaster rulesMaster;
+    private final PawnHashTablePool pawnTables;
+    private PawnHashTable pawnTable; // Obtida do conjunto durante a procura
+    private final MovePicker[] pickers = new MovePicker[MAX_DEPTH + 1]; // Um por nível, reutilizado entre nós
+    private final int[][] killers = new int[MAX_DEPTH + 1][2]; // Dois movimentos calmos que causaram cortes, por nível
+    private final int[] history = new int[2 * 64 * 64]; // [cor][origem][destino], ver MovePicker.historyIndex
+    private OpeningBook openingBook;
+    private long maxNodes;
+    private long deadline;
+    private long nodes;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+    private boolean canStop;
+    private volatile boolean stopped; // Também alterado pela thread principal, para parar as auxiliares
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+
+    /**
+     * Procura com a tabela de transposição partilhada por omissão ({@value #DEFAULT_TABLE_MEGABYTES} MB).
+     *
+     * @param board - tabuleiro a analisar; é alterado durante a procura e reposto no fim.
+     */
+    public Search(Board board) {
+        this(board, SHARED_TABLE);
+    }
+
+    /**
+     * Procura com as tabelas de peões de {@value #DEFAULT_PAWN_TABLE_KILOBYTES} KB partilhadas por todas as procuras,
+     * que guardam no máximo duas tabelas livres por processador.
+     *
+     * @param board - tabuleiro a analisar; é alterado durante a procura e reposto no fim.
+     * @param table - tabela de transposição, que pode ser partilhada com outras procuras.
+     */
+    public Search(Board board, TranspositionTable table) {
+        this(board, table, SHARED_PAWN_TABLES);
+    }
+
+    /**
+     * @param board      - tabuleiro a analisar; é alterado durante a procura e reposto no fim.
+     * @param table      - tabela de transposição, que pode ser partilhada com outras procuras.
+     * @param pawnTables - conjunto de onde a procura obtém uma tabela de peões por thread, devolvidas no fim.
+     */
+    public Search(Board board, TranspositionTable table, PawnHashTablePool pawnTables) {
+        this.board = board;
+        this.table = table;
+        this.rulesMaster = new RulesMaster(board);
+        this.pawnTables = pawnTables;
+    }
+
+    /**
+     * Procura o melhor movimento do jogador a jogar, sobre uma cópia do tabuleiro do jogo.
+     *
+     * @param game   - jogo a analisar; não é alterado.
+     * @param limits - limites da procura.
+     * @return - melhor movimento, avaliação, profundidade, nós e tempo gasto.
+     */
+    public static SearchResult bestMove(GameManager game, SearchLimits limits) {
+        Search search = new Search(game.copyBoard());
+        search.setOpeningBook(game.getOpeningBook());
+        return search.search(limits);
+    }
+
+    /**
+     * A tabela volta ao conjunto no fim da procura e é reutilizada pelas seguintes: as estruturas de peões
+     * não dependem da procura.
+     *
+     * @return - tabela de peões da thread principal na última procura, por exemplo para consultar a taxa de sucesso,
+     * ou nulo antes da primeira procura.
+     */
+    public PawnHashTable getPawnHashTable() {
+        return this.pawnTable;
+    }
+
+    /**
+     * @return - tabela de transposição usada pela procura, por exemplo para consultar as estatísticas.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return this.table;
+    }
+
+    /**
+     * Procura o melhor movimento do lado a jogar no tabuleiro, aprofundando até atingir os limites.
+     *
+     * @param limits - limites da procura.
+     * @return - melhor movimento, avaliação, profundidade, nós e tempo gasto; um movimento do livro tem profundidade 0.
+     */
+    public SearchResult search(SearchLimits limits) {
+        long start = System.nanoTime();
+        int bookMove = this.openingBook == null ? PackedMove.NONE : this.openingBook.selectMove(this.board);
+        if (bookMove != PackedMove.NONE) return new SearchResult(bookMove, 0, 0, 0, System.nanoTime() - start, 0, 0);
+
+        this.stopped = false;
+        this.table.newSearch();
+        this.pawnTable = this.pawnTables.acquire();
+
+        List<Search> helpers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i < limits.threads(); i++) {
+            Search helper = new Search(this.board.copy(), this.table, this.pawnTables);
+            helper.pawnTable = this.pawnTables.acquire();
+            int firstDepth = 1 + (i & 1);
+            helpers.add(helper);
+            threads.add(Thread.ofPlatform().daemon().name("search-helper-" + i)
+                    .start(() -> helper.iterate(firstDepth, limits.maxDepth(), Long.MAX_VALUE, Long.MAX_VALUE)));
+        }
+
+        this.iterate(1, limits.maxDepth(), limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE,
+                limits.maxTimeMillis() > 0 ? start + limits.maxTimeMillis() * 1_000_000 : Long.MAX_VALUE);
+
+        long nodes = this.nodes;
+        long betaCutoffs = this.betaCutoffs;
+        long firstMoveCutoffs = this.firstMoveCutoffs;
+        for (Search helper : helpers) helper.stopped = true;
+        try {
+            for (Thread thread : threads) thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Search helper : helpers) {
+            nodes += helper.nodes;
+            betaCutoffs += helper.betaCutoffs;
+            firstMoveCutoffs += helper.firstMoveCutoffs;
+            this.pawnTables.release(helper.pawnTable);
+        }
+        this.pawnTables.release(this.pawnTable); // A última a voltar, a primeira a sair na próxima procura
+        return new SearchResult(this.bestMove, this.bestScore, this.completedDepth, nodes, System.nanoTime() - start,
+                betaCutoffs, firstMoveCutoffs);
+    }
+
+    /**
+     * @param openingBook - livro consultado antes de cada procura, ou nulo para procurar sempre.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Conta um nó e verifica os limites: o de nós em cada nó, o de tempo de {@value #TIME_CHECK_INTERVAL} em
+     * {@value #TIME_CHECK_INTERVAL} nós.
+     *
+     * @return - verdadeiro se a procura tiver de parar.
+     */
+    private boolean countNode() {
+        this.nodes++;
+        if (this.canStop && (this.nodes >= this.maxNodes || ((this.nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() >= this.deadline)))
+            this.stopped = true;
+        return this.stopped;
+    }
+
+    /**
+     * Converte uma avaliação da tabela para o nó atual: um mate é guardado como distância ao nó e não à raiz.
+     */
+    private static int fromTableScore(int score, int ply) {
+        if (score >= MATE - MAX_DEPTH) return score - ply;
+        if (score <= -MATE + MAX_DEPTH) return score + ply;
+        return score;
+    }
+
+    private MovePicker getPicker(int ply) {
+        MovePicker picker = this.pickers[ply];
+        if (picker == null) picker = this.pickers[ply] = new MovePicker(this.board, this.rulesMaster, this.history);
+        return picker;
+    }
+
+    /**
+     * Repetir uma posição, da procura ou do jogo antes dela, é empate: o adversário pode repeti-la de novo.
+     * Ao fim de 75 lances sem capturas nem movimentos de peão o jogo também é empate, exceto se for xeque-mate.
+     */
+    private boolean isDraw() {
+        if (this.board.getRepetitionCount() > 0) return true;
+        return this.board.getHalfmoveClock() >= RulesMaster.DRAW_HALFMOVES && this.rulesMaster.hasLegalMoves();
+    }
+
+    private boolean isOutOfLimits() {
+        return this.nodes >= this.maxNodes || System.nanoTime() >= this.deadline;
+    }
+
+    /**
+     * Aprofundamento iterativo a partir da profundidade dada, até atingir os limites ou ser parado por outra thread.
+     * O resultado da última iteração concluída fica em bestMove, bestScore e completedDepth.
+     */
+    private void iterate(int firstDepth, int maxDepth, long maxNodes, long deadline) {
+        this.maxNodes = maxNodes;
+        this.deadline = deadline;
+        this.nodes = 0;
+        this.betaCutoffs = 0;
+        this.firstMoveCutoffs = 0;
+        this.canStop = false;
+        for (int[] plyKillers : this.killers) Arrays.fill(plyKillers, PackedMove.NONE);
+        Arrays.fill(this.history, 0);
+
+        MoveList rootMoves = new MoveList();
+        this.rulesMaster.generateLegalMoves(rootMoves);
+        this.bestMove = rootMoves.isEmpty() ? PackedMove.NONE : rootMoves.get(0);
+        this.bestScore = rootMoves.isEmpty() ? this.noMovesScore(0) : 0;
+        this.completedDepth = 0;
+        if (rootMoves.isEmpty()) return;
+
+        for (int depth = firstDepth; depth <= maxDepth; depth++) {
+            int alpha = -INFINITY;
+            int iterationMove = PackedMove.NONE;
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                this.board.makeMove(move);
+                int score = i == 0 ? -this.negamax(depth - 1, 1, -INFINITY, -alpha) : this.zeroWindowSearch(depth - 1, 1, alpha, INFINITY);
+                this.board.unmakeMove();
+                if (this.stopped) break;
+
+                if (score > alpha) {
+                    alpha = score;
+                    iterationMove = move;
+                }
+            }
+            if (this.stopped) return;
+
+            this.bestMove = iterationMove;
+            this.bestScore = alpha;
+            this.completedDepth = depth;
+            moveToFront(rootMoves, iterationMove);
+            this.canStop = true;
+            if (Math.abs(alpha) >= MATE - MAX_DEPTH || this.isOutOfLimits()) return; // Não vale a pena continuar
+        }
+    }
+
+    /**
+     * @return - material ganho pelo movimento: a peça capturada e, numa promoção, a diferença para o peão.
+     */
+    private static int materialGain(int move) {
+        int gain = PackedMove.isCapture(move) ? RulesMaster.pieceValue(PackedMove.captured(move)) : 0;
+        if (PackedMove.isPromotion(move)) gain += RulesMaster.pieceValue(PackedMove.promotion(move)) - RulesMaster.pieceValue(Type.PAWN);
+        return gain;
+    }
+
+    private static void moveToFront(MoveList moves, int move) {
+        for (int i = moves.size() - 1; i > 0; i--) {
+            if (moves.get(i) != move) continue;
+            moves.set(i, moves.get(0));
+            moves.set(0, move);
+            return;
+        }
+    }
+
+    /**
+     * Negamax com cortes alfa-beta ("fail-soft") e PVS.
+     *
+     * @return - avaliação do ponto de vista do lado a jogar, ou 0 se a procura tiver sido interrompida.
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (depth == 0) return this.quiescence(ply, alpha, beta);
+        if (this.countNode()) return 0;
+        if (this.isDraw()) return 0;
+        if (ply >= MAX_DEPTH) return Evaluation.evaluate(this.board, this.pawnTable);
+
+        long key = this.board.getZobristKey();
+        long entry = this.table.probe(key);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTableScore(TranspositionTable.score(entry), ply);
+            switch (TranspositionTable.bound(entry)) {
+                case TranspositionTable.EXACT -> {
+                    return score;
+                }
+                case TranspositionTable.LOWER_BOUND -> {
+                    if (score >= beta) return score;
+                }
+                default -> {
+                    if (score <= alpha) return score;
+                }
+            }
+        }
+
+        MovePicker picker = this.getPicker(ply);
+        boolean canPruneCaptures = depth <= SEE_PRUNING_DEPTH && !this.rulesMaster.isInCheck(this.board.getSideToMove());
+        // O movimento da tabela é validado pelo MovePicker, pois uma colisão de chaves pode dar um movimento ilegal
+        picker.reset(entry == TranspositionTable.NO_ENTRY ? PackedMove.NONE : TranspositionTable.move(entry),
+                this.killers[ply][0], this.killers[ply][1]);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        int searched = 0;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            if (canPruneCaptures && searched > 0 && picker.isLosingCapture()) continue;
+
+            this.board.makeMove(move);
+            int score = searched++ == 0 ? -this.negamax(depth - 1, ply + 1, -beta, -alpha) : this.zeroWindowSearch(depth - 1, ply + 1, alpha, beta);
+            this.board.unmakeMove();
+            if (this.stopped) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                }
+                if (alpha >= beta) { // Corte: o adversário não deixará chegar aqui
+                    this.recordCutoff(move, depth, ply, searched);
+                    break;
+                }
+            }
+        }
+        if (searched == 0) return this.noMovesScore(ply);
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        this.table.store(key, bestMove, toTableScore(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Avaliação de uma posição sem movimentos legais: mate (mais cedo é pior) ou afogamento.
+     */
+    private int noMovesScore(int ply) {
+        return this.rulesMaster.isInCheck(this.board.getSideToMove()) ? -MATE + ply : 0;
+    }
+
+    /**
+     * Procura quiescente: só capturas e promoções, até a posição ficar calma. Em xeque, todas as respostas são
+     * tentadas, pois ficar parado não é uma opção.
+     *
+     * @return - avaliação do ponto de vista do lado a jogar, ou 0 se a procura tiver sido interrompida.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        if (this.countNode()) return 0;
+        if (this.isDraw()) return 0;
+        if (ply >= MAX_DEPTH) return Evaluation.evaluate(this.board, this.pawnTable);
+
+        MovePicker picker = this.getPicker(ply);
+        boolean inCheck = this.rulesMaster.isInCheck(this.board.getSideToMove());
+        int standPat = -INFINITY;
+        int bestScore = -INFINITY;
+        if (inCheck) picker.reset(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        else {
+            standPat = bestScore = Evaluation.evaluate(this.board, this.pawnTable);
+            if (standPat >= beta) return standPat;
+            alpha = Math.max(alpha, standPat);
+            picker.resetTactical();
+        }
+
+        int searched = 0;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            searched++;
+            if (!inCheck && standPat + materialGain(move) + DELTA_MARGIN <= alpha) continue; // Nem a captura chega a alfa
+
+            this.board.makeMove(move);
+            int score = -this.quiescence(ply + 1, -beta, -alpha);
+            this.board.unmakeMove();
+            if (this.stopped) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) break;
+            }
+        }
+        if (inCheck && searched == 0) return -MATE + ply;
+        return bestScore;
+    }
+
+    /**
+     * Conta o corte e, se o movimento for calmo, guarda-o como "killer" do nível e reforça-o no histórico,
+     * com mais peso quanto maior a profundidade restante.
+     */
+    private void recordCutoff(int move, int depth, int ply, int searched) {
+        this.betaCutoffs++;
+        if (searched == 1) this.firstMoveCutoffs++;
+        if (!PackedMove.isQuiet(move)) return;
+
+        int[] plyKillers = this.killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int index = MovePicker.historyIndex(this.board.getSideToMove().ordinal(), move);
+        this.history[index] += depth * depth;
+        if (this.history[index] >= MAX_HISTORY)
+            for (int i = 0; i < this.history.length; i++) this.history[i] >>= 1;
+    }
+
+    private static int toTableScore(int score, int ply) {
+        if (score >= MATE - MAX_DEPTH) return score + ply;
+        if (score <= -MATE + MAX_DEPTH) return score - ply;
+        return score;
+    }
+
+    /**
+     * Procura PVS de um movimento que não é o primeiro, já jogado: primeiro com janela nula à volta de alfa,
+     * e de novo com a janela completa apenas se melhorar alfa sem chegar a beta.
+     *
+     * @return - avaliação do ponto de vista de quem fez o movimento.
+     */
+    private int zeroWindowSearch(int depth, int ply, int alpha, int beta) {
+        int score = -this.negamax(depth, ply, -alpha - 1, -alpha);
+        if (score > alpha && score < beta && !this.stopped) score = -this.negamax(depth, ply, -beta, -alpha);
+        return score;
+    }
+}
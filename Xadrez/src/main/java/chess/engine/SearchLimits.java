@@ -0,0 +1,58 @@
+package chess.engine;
+
+/**
+ * Limites de uma procura do motor. A procura aprofunda iterativamente até atingir um dos limites;
+ * os limites de nós e de tempo só são verificados depois de concluída a profundidade 1,
+ * para que exista sempre um movimento para jogar.
+ * <p>
+ * Por omissão, a procura usa uma thread por processador disponível (ver {@link Search}); uma procura reprodutível,
+ * com uma só thread, é pedida com {@link #withThreads(int)}.
+ *
+ * @param maxDepth      - profundidade máxima, em meios-lances (1 a {@link Search#MAX_DEPTH}).
+ * @param maxNodes      - número máximo de nós visitados pela thread principal, ou 0 para não limitar.
+ * @param maxTimeMillis - tempo máximo em milissegundos, ou 0 para não limitar.
+ * @param threads       - número de threads de procura, incluindo a principal.
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis, int threads) {
+    public static final int DEFAULT_THREADS = Math.min(Runtime.getRuntime().availableProcessors(), SearchLimits.MAX_THREADS);
+    private static final int MAX_THREADS = 256;
+
+    public SearchLimits {
+        if (maxDepth < 1 || maxDepth > Search.MAX_DEPTH)
+            throw new IllegalArgumentException("Profundidade inválida: " + maxDepth);
+        if (maxNodes < 0 || maxTimeMillis < 0) throw new IllegalArgumentException("Os limites não podem ser negativos.");
+        if (threads < 1 || threads > MAX_THREADS) throw new IllegalArgumentException("Número de threads inválido: " + threads);
+    }
+
+    /**
+     * @param depth - profundidade máxima, em meios-lances.
+     * @return - limites só de profundidade.
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param nodes - número máximo de nós.
+     * @return - limites só de nós.
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(Search.MAX_DEPTH, nodes, 0, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param millis - tempo máximo em milissegundos.
+     * @return - limites só de tempo.
+     */
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(Search.MAX_DEPTH, 0, millis, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param threads - número de threads de procura, incluindo a principal.
+     * @return - os mesmos limites com outro número de threads.
+     */
+    public SearchLimits withThreads(int threads) {
+        return new SearchLimits(this.maxDepth, this.maxNodes, this.maxTimeMillis, threads);
+    }
+}
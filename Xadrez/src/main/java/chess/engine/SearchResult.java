@@ -0,0 +1,45 @@
+package chess.engine;
+
+import chess.core.board.PackedMove;
+
+/**
+ * Resultado de uma procura do motor.
+ *
+ * @param move             - melhor movimento, codificado por {@link PackedMove}, ou {@link PackedMove#NONE} se não houver movimentos.
+ * @param score            - avaliação em centipeões do ponto de vista do lado a jogar; perto de {@link Search#MATE} é um mate.
+ * @param depth            - última profundidade concluída; 0 se o movimento vier do livro de aberturas.
+ * @param nodes            - número de nós visitados.
+ * @param elapsedNanos     - tempo gasto, em nanossegundos.
+ * @param betaCutoffs      - número de nós com corte beta.
+ * @param firstMoveCutoffs - número de cortes beta causados pelo primeiro movimento tentado.
+ */
+public record SearchResult(int move, int score, int depth, long nodes, long elapsedNanos, long betaCutoffs, long firstMoveCutoffs) {
+    /**
+     * Medida da qualidade da ordenação dos movimentos: com uma ordenação perfeita, todos os cortes são no primeiro.
+     *
+     * @return - percentagem dos cortes beta causados pelo primeiro movimento tentado.
+     */
+    public double firstMoveCutoffPercentage() {
+        return this.betaCutoffs == 0 ? 0 : 100.0 * this.firstMoveCutoffs / this.betaCutoffs;
+    }
+
+    public boolean isBookMove() {
+        return this.depth == 0 && this.move != PackedMove.NONE;
+    }
+
+    public boolean isMate() {
+        return Math.abs(this.score) >= Search.MATE - Search.MAX_DEPTH;
+    }
+
+    public long nodesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.nodes * 1_000_000_000L / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        if (this.isBookMove()) return PackedMove.toString(this.move) + " (livro de aberturas)";
+        return String.format("%s (avaliação %d, profundidade %d, %d nós em %d ms, %d nós/s, %.1f%% dos cortes no primeiro movimento)",
+                PackedMove.toString(this.move), this.score, this.depth, this.nodes, this.elapsedNanos / 1_000_000, this.nodesPerSecond(),
+                this.firstMoveCutoffPercentage());
+    }
+}
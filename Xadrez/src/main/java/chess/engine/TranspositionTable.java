@@ -0,0 +1,214 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tabela de transposição de tamanho fixo, partilhável entre várias threads de procura sem locks.
+ * <p>
+ * As entradas estão num único {@code long[]}, duas posições por entrada: a chave de Zobrist em XOR com os dados,
+ * e os dados (movimento, avaliação, profundidade, tipo de limite e idade). Uma leitura só é aceite se
+ * {@code chave ^ dados} voltar a dar a chave procurada, pelo que uma entrada escrita a meio por outra thread
+ * (chave de uma escrita, dados de outra) é simplesmente descartada em vez de corromper a procura.
+ * <p>
+ * As entradas estão agrupadas em baldes de {@value #BUCKET_SIZE}. Ao guardar uma posição nova num balde cheio,
+ * é substituída a entrada que vale menos: a de menor profundidade, descontando as de procuras anteriores.
+ */
+public final class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1; // A avaliação é pelo menos esta (corte beta)
+    public static final int UPPER_BOUND = 2; // A avaliação é no máximo esta (nenhum movimento melhorou alfa)
+    public static final long NO_ENTRY = 0L;
+    public static final int MAX_MEGABYTES = 8192; // 2^30 posições do array: o maior tamanho indexável com int
+    private static final int BUCKET_SIZE = 2;
+    private static final int ENTRY_BYTES = 16;
+    private static final int FILL_SAMPLE = 1000; // Baldes amostrados para a percentagem de ocupação
+    // Dados: movimento (bits 0-24), avaliação (25-40), profundidade (41-47), limite (48-49), idade (50-57), ocupada (63)
+    private static final int SCORE_SHIFT = 25;
+    private static final int DEPTH_SHIFT = 41;
+    private static final int BOUND_SHIFT = 48;
+    private static final int AGE_SHIFT = 50;
+    private static final long MOVE_MASK = (1L << SCORE_SHIFT) - 1;
+    private static final long OCCUPIED = 1L << 63;
+    private final long[] entries;
+    private final int bucketMask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private volatile int age;
+
+    /**
+     * @param megabytes - memória ocupada pela tabela, em MB (1 a {@value #MAX_MEGABYTES}); o número de baldes é
+     *                  arredondado para baixo a uma potência de 2.
+     */
+    public TranspositionTable(int megabytes) {
+        int capacity = capacityFor(megabytes);
+        this.entries = new long[capacity * 2];
+        this.bucketMask = capacity / BUCKET_SIZE - 1;
+    }
+
+    /**
+     * @return - tipo de limite da avaliação: {@link #EXACT}, {@link #LOWER_BOUND} ou {@link #UPPER_BOUND}.
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Número de entradas de uma tabela com um dado tamanho, sem a criar.
+     *
+     * @param megabytes - memória ocupada pela tabela, em MB.
+     * @return - capacidade da tabela, em entradas.
+     * @throws IllegalArgumentException se o tamanho não estiver entre 1 e {@value #MAX_MEGABYTES} MB.
+     */
+    public static int capacityFor(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) throw new IllegalArgumentException("Tamanho inválido: " + megabytes + " MB");
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (ENTRY_BYTES * BUCKET_SIZE));
+        return (int) (buckets * BUCKET_SIZE);
+    }
+
+    /**
+     * @return - profundidade guardada numa entrada.
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0x7F;
+    }
+
+    /**
+     * @return - melhor movimento guardado numa entrada, codificado por {@link chess.core.board.PackedMove}.
+     */
+    public static int move(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    /**
+     * @return - avaliação guardada numa entrada.
+     */
+    public static int score(long entry) {
+        return (short) (entry >>> SCORE_SHIFT);
+    }
+
+    /**
+     * Apaga todas as entradas e as estatísticas. Não deve ser chamado durante uma procura.
+     */
+    public void clear() {
+        Arrays.fill(this.entries, 0L);
+        this.probes.reset();
+        this.hits.reset();
+        this.collisions.reset();
+    }
+
+    /**
+     * @return - capacidade da tabela, em entradas.
+     */
+    public int capacity() {
+        return this.entries.length / 2;
+    }
+
+    /**
+     * Estatísticas de utilização desde a criação ou desde o último {@link #clear()}.
+     * A ocupação é estimada a partir dos primeiros baldes da tabela.
+     *
+     * @return - consultas, sucessos, colisões e ocupação.
+     */
+    public Statistics getStatistics() {
+        int buckets = Math.min(this.bucketMask + 1, FILL_SAMPLE);
+        int used = 0;
+        for (int i = 0; i < buckets * BUCKET_SIZE; i++)
+            if (this.entries[2 * i + 1] != 0L) used++;
+        return new Statistics(this.probes.sum(), this.hits.sum(), this.collisions.sum(), 100.0 * used / (buckets * BUCKET_SIZE));
+    }
+
+    /**
+     * Começa uma nova procura: as entradas das procuras anteriores passam a ser substituídas primeiro.
+     */
+    public void newSearch() {
+        this.age = (this.age + 1) & 0xFF;
+    }
+
+    /**
+     * Procura a entrada de uma posição.
+     *
+     * @param key - chave de Zobrist da posição.
+     * @return - os dados da entrada (ver {@link #move(long)}, {@link #score(long)}, {@link #depth(long)}
+     * e {@link #bound(long)}), ou {@link #NO_ENTRY} se a posição não estiver na tabela.
+     */
+    public long probe(long key) {
+        this.probes.increment();
+        int index = this.bucketIndex(key);
+        boolean occupied = false;
+        for (int i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+            long data = this.entries[i + 1];
+            if ((this.entries[i] ^ data) == key && data != 0L) {
+                this.hits.increment();
+                return data;
+            }
+            occupied |= data != 0L;
+        }
+        if (occupied) this.collisions.increment();
+        return NO_ENTRY;
+    }
+
+    /**
+     * Guarda o resultado da procura de uma posição, substituindo a entrada da mesma posição se existir,
+     * ou a entrada do balde que vale menos.
+     *
+     * @param key   - chave de Zobrist da posição.
+     * @param move  - melhor movimento encontrado, ou {@link chess.core.board.PackedMove#NONE}.
+     * @param score - avaliação.
+     * @param depth - profundidade restante da procura que produziu a avaliação.
+     * @param bound - tipo de limite: {@link #EXACT}, {@link #LOWER_BOUND} ou {@link #UPPER_BOUND}.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = this.bucketIndex(key);
+        int target = index;
+        int lowestWorth = Integer.MAX_VALUE;
+        for (int i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+            long data = this.entries[i + 1];
+            if (data == 0L || (this.entries[i] ^ data) == key) {
+                if (data != 0L && move == 0) move = move(data); // Mantém o melhor movimento conhecido da posição
+                target = i;
+                break;
+            }
+
+            int worth = depth(data) - 4 * ((this.age - (int) (data >>> AGE_SHIFT)) & 0xFF);
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                target = i;
+            }
+        }
+
+        long data = OCCUPIED | ((long) this.age << AGE_SHIFT) | ((long) bound << BOUND_SHIFT)
+                | ((long) Math.min(depth, 0x7F) << DEPTH_SHIFT) | ((score & 0xFFFFL) << SCORE_SHIFT) | (move & MOVE_MASK);
+        this.entries[target] = key ^ data;
+        this.entries[target + 1] = data;
+    }
+
+    private int bucketIndex(long key) {
+        return ((int) (key >>> 32) & this.bucketMask) * BUCKET_SIZE * 2; // Bits altos da chave
+    }
+
+    /**
+     * Estatísticas de utilização da tabela.
+     *
+     * @param probes         - número de consultas.
+     * @param hits           - consultas que encontraram a posição.
+     * @param collisions     - consultas falhadas em que o balde estava ocupado por outras posições.
+     * @param fillPercentage - percentagem estimada de entradas ocupadas.
+     */
+    public record Statistics(long probes, long hits, long collisions, double fillPercentage) {
+        public double hitRate() {
+            return this.probes == 0 ? 0 : 100.0 * this.hits / this.probes;
+        }
+
+        public double collisionRate() {
+            return this.probes == 0 ? 0 : 100.0 * this.collisions / this.probes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d consultas, %.1f%% sucessos, %.1f%% colisões, %.1f%% ocupada",
+                    this.probes, this.hitRate(), this.collisionRate(), this.fillPercentage);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package chess.userinterface;
 
 import chess.core.*;
 import chess.core.board.Position;
-import chess.core.board.pieces.Piece;
+import chess.core.board.PositionSnapshot;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,18 +14,22 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.net.URL;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 public class ChessBoardUI extends JFrame {
     private static final Color LIGHT_SQUARE_COLOR = new Color(240, 217, 181);
     private static final Color DARK_SQUARE_COLOR = new Color(181, 136, 99);
     private static final Color HIGHLIGHT_COLOR = new Color(75, 150, 255);
     private static final int SQUARE_SIZE = 100;
+    private static final SearchLimits ENGINE_LIMITS = SearchLimits.time(1000); // Tempo por jogada do computador
     private final JPanel boardPanel;
     private final Map<String, String> pieceImagePaths;
     private GameManager game;
-    private Piece selectedPiece = null;
+    private GameJournal journal; // Grava cada movimento logo que é jogado, ou nulo se não puder ser criado
+    private boolean journalPending; // Jogo novo: o diário só substitui o jogo gravado no primeiro movimento
+    private PieceColor engineColor = null; // Cor jogada pelo computador, ou nulo num jogo entre duas pessoas
+    private chess.core.board.Type selectedType = null; // Tipo da peça selecionada; "Type" sozinho é o de java.awt.Window
     private JPanel selectedSquareUI = null;
     private int sourceIndex = -1;
     private Position sourcePosition = null;
@@ -37,6 +43,7 @@ public class ChessBoardUI extends JFrame {
     public ChessBoardUI(GameManager game) {
         this.game = game;
         askToLoadGame();
+        askForEngine();
         setTitle("Tabuleiro de Xadrez");
         setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setResizable(false);
@@ -62,6 +69,7 @@ public class ChessBoardUI extends JFrame {
         setSize(800, 800);
         setLocationRelativeTo(null);
         setVisible(true);
+        playEngineMoveIfNeeded();
     }
 
     private static JPanel gameOverPanel(PieceColor winner) {
@@ -88,6 +96,19 @@ public class ChessBoardUI extends JFrame {
         drawBoard();
     }
 
+    private void askForEngine() {
+        String[] options = {"Dois jogadores", "Brancas contra o computador", "Pretas contra o computador"};
+        int choice = JOptionPane.showOptionDialog(this,
+                "Como deseja jogar?",
+                "Adversário",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null, options, options[0]);
+
+        if (choice == 1) engineColor = PieceColor.BLACK;
+        else if (choice == 2) engineColor = PieceColor.WHITE;
+    }
+
     private void askToLoadGame() {
         int choice = JOptionPane.showConfirmDialog(this,
                 "Deseja continuar o seu último jogo?",
@@ -97,13 +118,14 @@ public class ChessBoardUI extends JFrame {
 
         if (choice == JOptionPane.YES_OPTION) {
             System.out.println("Opção: Sim. Carregando o último jogo...");
-            this.game = Serialization.loadBoardGUI();
-        }
+            this.journal = Serialization.recoverBoardGUI();
+            this.game = this.journal != null ? this.journal.getGame() : Serialization.loadBoardGUI();
+        } else this.journalPending = true;
     }
 
     private void drawBoard() {
         boardPanel.removeAll();
-        List<Square> board = game.getBoard();
+        PositionSnapshot snapshot = game.getSnapshot(); // Não muda enquanto o tabuleiro é desenhado
 
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
@@ -112,22 +134,12 @@ public class ChessBoardUI extends JFrame {
                 squareUI.setBackground(this.getOriginalSquareColor(row, col));
 
                 final int currentIndex = (row * 8) + col;
+                final Position currentPosition = Position.of(row, col);
+                final chess.core.board.Type typeInSquare = snapshot.getType(row, col);
+                final PieceColor colorInSquare = snapshot.getColor(row, col);
 
-                final Position currentPosition;
-                final Piece pieceInSquare;
-
-                if (currentIndex < board.size()) {
-                    Square currentSquare = board.get(currentIndex);
-                    pieceInSquare = currentSquare.getPiece();
-                    currentPosition = currentSquare.getPosition();
-                } else {
-                    currentPosition = new Position((char) ('A' + col), 8 - row);
-                    pieceInSquare = null;
-                    System.err.println("Erro: Índice do tabuleiro fora dos limites: " + currentIndex);
-                }
-
-                if (pieceInSquare != null) {
-                    String pieceKey = (pieceInSquare.isWhite() ? "white" : "black") + pieceInSquare.getClass().getSimpleName();
+                if (typeInSquare != null) {
+                    String pieceKey = (colorInSquare == PieceColor.WHITE ? "white" : "black") + typeInSquare.getPieceName();
                     String imagePath = pieceImagePaths.get(pieceKey);
 
                     if (imagePath != null) {
@@ -146,7 +158,7 @@ public class ChessBoardUI extends JFrame {
                 squareUI.addMouseListener(new MouseAdapter() {
                     @Override
                     public void mouseClicked(MouseEvent e) {
-                        handleSquareClick(squareUI, currentPosition, pieceInSquare, currentIndex);
+                        handleSquareClick(squareUI, currentPosition, typeInSquare, colorInSquare, currentIndex);
                     }
                 });
 
@@ -187,32 +199,33 @@ public class ChessBoardUI extends JFrame {
         return (row + col) % 2 == 0 ? LIGHT_SQUARE_COLOR : DARK_SQUARE_COLOR;
     }
 
-    private void handleSquareClick(JPanel clickedSquareUI, Position clickedPosition, Piece pieceAtClickedPosition, int clickedIndex) {
-        if (selectedPiece == null) {
-            if (pieceAtClickedPosition != null) {
-                if (pieceAtClickedPosition.getColor() == game.nextPlayer()) {
-                    selectedPiece = pieceAtClickedPosition;
+    private void handleSquareClick(JPanel clickedSquareUI, Position clickedPosition, chess.core.board.Type typeAtClickedPosition, PieceColor colorAtClickedPosition, int clickedIndex) {
+        if (selectedType == null) {
+            if (typeAtClickedPosition != null) {
+                if (colorAtClickedPosition == game.nextPlayer()) {
+                    selectedType = typeAtClickedPosition;
                     selectedSquareUI = clickedSquareUI;
                     sourcePosition = clickedPosition;
                     sourceIndex = clickedIndex;
                     clickedSquareUI.setBackground(HIGHLIGHT_COLOR);
-                    System.out.println("Peça selecionada: " + selectedPiece.getClass().getSimpleName() + " em " + sourcePosition);
+                    System.out.println("Peça selecionada: " + selectedType.getPieceName() + " em " + sourcePosition);
                 } else System.out.println("Não é a vez dessa cor jogar.");
             } else System.out.println("Nenhuma peça para selecionar nesta casa.");
         } else {
             if (clickedPosition.equals(sourcePosition)) {
                 selectedSquareUI.setBackground(getOriginalSquareColor(sourceIndex));
-                selectedPiece = null;
+                selectedType = null;
                 selectedSquareUI = null;
                 sourcePosition = null;
                 sourceIndex = -1;
                 System.out.println("Peça desselecionada.");
             } else {
-                System.out.println("Tentando mover " + selectedPiece.getClass().getSimpleName() + " de " + sourcePosition + " para " + clickedPosition);
-                game.play(selectedPiece, sourcePosition, clickedPosition);
+                System.out.println("Tentando mover " + selectedType.getPieceName() + " de " + sourcePosition + " para " + clickedPosition);
+                if (game.getValidMoves(sourcePosition).contains(clickedPosition)) startJournal();
+                game.play(sourcePosition, clickedPosition);
 
                 selectedSquareUI.setBackground(getOriginalSquareColor(sourceIndex));
-                selectedPiece = null;
+                selectedType = null;
                 selectedSquareUI = null;
                 sourcePosition = null;
                 sourceIndex = -1;
@@ -220,6 +233,7 @@ public class ChessBoardUI extends JFrame {
                 System.out.println("Movimento processado. Tabuleiro atualizado.");
 
                 if (game.isFinished()) showGameOverDialog();
+                else playEngineMoveIfNeeded();
             }
         }
     }
@@ -260,13 +274,44 @@ public class ChessBoardUI extends JFrame {
             gameOverDialog.dispose(); // Fecha o diálogo
             resetGame();             // Reinicia o jogo
             this.setEnabled(true);   // Reativa a janela principal
+            playEngineMoveIfNeeded(); // O computador começa se jogar com as Brancas
         });
         return playAgainButton;
     }
 
+    /**
+     * Se for a vez do computador, procura e joga o seu movimento numa thread de fundo,
+     * com a janela desativada para que o tabuleiro não mude durante a procura.
+     */
+    private void playEngineMoveIfNeeded() {
+        if (engineColor == null || game.nextPlayer() != engineColor || game.isFinished()) return;
+
+        startJournal();
+        this.setEnabled(false);
+        new SwingWorker<SearchResult, Void>() {
+            @Override
+            protected SearchResult doInBackground() {
+                return game.playEngineMove(ENGINE_LIMITS);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    System.out.println("Movimento do computador: " + get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Erro: O computador não conseguiu jogar: " + e.getMessage());
+                }
+                setEnabled(true);
+                drawBoard();
+                if (game.isFinished()) showGameOverDialog();
+            }
+        }.execute();
+    }
+
     private void saveBoard() {
-        XML.create(this.game.getBoard());
-        Serialization.saveBoardGUI(this.game);
+        XML.create(this.game.getSnapshot());
+        if (this.journal != null) Serialization.closeJournalGUI(this.journal);
+        else if (!this.journalPending) Serialization.saveBoardGUI(this.game); // Sem movimentos, fica o jogo gravado
     }
 
     private void showGameOverDialog() {
@@ -288,4 +333,14 @@ public class ChessBoardUI extends JFrame {
         gameOverDialog.setLocationRelativeTo(this);
         gameOverDialog.setVisible(true);
     }
+
+    /**
+     * Começa o diário de um jogo novo antes do seu primeiro movimento, substituindo o jogo gravado.
+     * Até lá, quem responde "Não" a continuar o último jogo ainda o pode retomar na próxima vez.
+     */
+    private void startJournal() {
+        if (!this.journalPending) return;
+        this.journalPending = false;
+        this.journal = Serialization.journalBoardGUI(this.game);
+    }
 }
\ No newline at end of file
@@ -4,21 +4,31 @@ import chess.core.PieceColor;
 import chess.core.GameManager;
 import chess.core.Square;
 import chess.core.board.Position;
+import chess.core.board.PositionSnapshot;
 import chess.core.board.pieces.Piece;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
 
-import java.io.Serializable;
 import java.util.List;
 
-public class ConsoleInterface implements Serializable {
-    final GameManager gameManager = new GameManager();
+public class ConsoleInterface {
+    final GameManager gameManager;
 
     public ConsoleInterface() {
+        this(new GameManager());
     }
 
     /**
-     * Verifica se o jogo terminou ao confirmar se algum dos reis foi capturado.
+     * @param gameManager - jogo a continuar na consola, por exemplo um jogo gravado.
+     */
+    public ConsoleInterface(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    /**
+     * Verifica se o jogo terminou por xeque-mate ou afogamento.
      *
-     * @return true se alguma das peças do rei tiver sido capturada.
+     * @return true se o jogo tiver terminado.
      */
     public boolean isFinished() {
         return gameManager.isFinished();
@@ -56,6 +66,16 @@ public class ConsoleInterface implements Serializable {
         gameManager.play(initPosition, endPosition);
     }
 
+    /**
+     * O computador joga o melhor movimento que encontrar para a cor a jogar.
+     *
+     * @param limits - limites da procura (profundidade, nós ou tempo).
+     * @return - resultado da procura.
+     */
+    public SearchResult playEngineMove(SearchLimits limits) {
+        return gameManager.playEngineMove(limits);
+    }
+
     /**
      * Reinicia o jogo, recolocando as peças.
      */
@@ -101,7 +121,7 @@ public class ConsoleInterface implements Serializable {
     /**
      * Retorna a cor vencedora se o jogo tiver terminado.
      *
-     * @return A Cor do último rei em jogo ou nulo se o jogo não tiver terminado.
+     * @return A Cor que deu xeque-mate, ou nulo se o jogo não tiver terminado ou for empate.
      */
     public PieceColor whoWon() {
         return gameManager.whoWon();
@@ -115,4 +135,22 @@ public class ConsoleInterface implements Serializable {
     public List<Square> getBoard() {
         return gameManager.getBoard();
     }
+
+    /**
+     * Retorna o jogo desta consola, por exemplo para o gravar.
+     *
+     * @return O {@link GameManager} do jogo.
+     */
+    public GameManager getGameManager() {
+        return gameManager;
+    }
+
+    /**
+     * Retorna a fotografia imutável da posição atual.
+     *
+     * @return A {@link PositionSnapshot} publicada depois do último movimento.
+     */
+    public PositionSnapshot getSnapshot() {
+        return gameManager.getSnapshot();
+    }
 }
@@ -0,0 +1,99 @@
+import chess.core.PieceColor;
+import chess.core.board.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para as consultas de ataques a partir da casa alvo ({@link RulesMaster#getAttackers},
+ * {@link RulesMaster#compromisingMoves}, {@link RulesMaster#isSquareAttacked}), comparadas com a implementação
+ * anterior, que gerava todos os movimentos da cor atacante e procurava os que chegavam à casa.
+ */
+class AttackQueryTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String PROMOTIONS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String EN_PASSANT = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final int GAMES = 10;
+    private static final int MAX_PLY = 40;
+
+    /**
+     * Implementação anterior de {@link RulesMaster#compromisingMoves}: os movimentos da cor que chegam à casa,
+     * sem roques, com os peões só nas capturas e uma entrada por promoção.
+     *
+     * @return - casas de origem dos movimentos.
+     */
+    private static TreeSet<Integer> referenceCompromising(RulesMaster rules, int square, PieceColor pieceColor) {
+        TreeSet<Integer> origins = new TreeSet<>();
+        MoveList moves = new MoveList();
+        rules.generateMoves(pieceColor, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (PackedMove.to(move) != square || PackedMove.isCastling(move)) continue;
+            if (PackedMove.piece(move) == Type.PAWN && !PackedMove.isCapture(move)) continue;
+            origins.add(PackedMove.from(move));
+        }
+        return origins;
+    }
+
+    private static TreeSet<Integer> origins(List<Move> moves) {
+        TreeSet<Integer> origins = new TreeSet<>();
+        for (Move move : moves) assertTrue(origins.add(Bitboard.square(move.getInitPosition())), "Uma entrada por peça");
+        return origins;
+    }
+
+    @Test
+    @DisplayName("Teste das consultas de ataques contra a implementação anterior, em posições de jogos aleatórios")
+    void testAgainstMoveGenerator() {
+        Random random = new Random(10);
+        int queries = 0;
+        for (String fen : new String[]{Fen.START_POSITION, KIWIPETE, PROMOTIONS, EN_PASSANT}) {
+            for (int game = 0; game < GAMES; game++) {
+                Board board = new Board();
+                Fen.load(board, fen);
+                RulesMaster rules = new RulesMaster(board);
+                MoveList moves = new MoveList();
+                for (int ply = 0; ply < MAX_PLY; ply++) {
+                    for (int square = 0; square < 64; square++) {
+                        for (PieceColor color : PieceColor.values()) {
+                            String context = fen + " +" + ply + ", casa " + square + ", " + color;
+                            assertEquals(referenceCompromising(rules, square, color),
+                                    origins(rules.compromisingMoves(Position.of(square), color)), context);
+                            long attackers = rules.getAttackers(square, color);
+                            assertEquals(attackers != 0, rules.isSquareAttacked(square, color), context);
+                            assertEquals(0, attackers & ~board.getOccupancy(color), "Só peças da cor atacante: " + context);
+                            queries++;
+                        }
+                    }
+
+                    moves.clear();
+                    rules.generateLegalMoves(moves);
+                    if (moves.isEmpty()) break;
+                    board.makeMove(moves.get(random.nextInt(moves.size())));
+                }
+            }
+        }
+        assertTrue(queries > 100_000, queries + " consultas");
+    }
+
+    @Test
+    @DisplayName("Teste das regras dos ataques: peças amigas, avanços e capturas de peão, \"en passant\"")
+    void testFixedPosition() {
+        Board board = new Board();
+        Fen.load(board, "4k3/8/8/3pP3/8/2n5/1P6/4K2R w K d6 0 1");
+        RulesMaster rules = new RulesMaster(board);
+
+        assertTrue(rules.compromisingMoves(Position.of("H1"), PieceColor.WHITE).isEmpty(), "Uma casa com uma peça amiga não é comprometida");
+        assertEquals(Bitboard.bit(Position.of("E1")) | Bitboard.bit(Position.of("H1")), rules.getAttackers(Bitboard.square(Position.of("F1")), PieceColor.WHITE));
+        assertEquals(Bitboard.bit(Position.of("B2")), rules.getAttackers(Bitboard.square(Position.of("C3")), PieceColor.WHITE), "O peão ataca na diagonal");
+        assertEquals(1, rules.compromisingMoves(Position.of("C3"), PieceColor.WHITE).size(), "O peão captura o cavalo");
+        assertTrue(rules.compromisingMoves(Position.of("B3"), PieceColor.WHITE).isEmpty(), "O avanço do peão não compromete a casa");
+        assertTrue(rules.compromisingMoves(Position.of("A3"), PieceColor.WHITE).isEmpty(), "Uma diagonal vazia não é uma captura");
+        assertTrue(rules.isSquareAttacked(Position.of("A3"), PieceColor.WHITE), "Mas a casa é atacada pelo peão");
+        assertEquals(1, rules.compromisingMoves(Position.of("D6"), PieceColor.WHITE).size(), "A casa de \"en passant\" é comprometida pelo peão");
+    }
+}
@@ -0,0 +1,89 @@
+import chess.core.PieceColor;
+import chess.core.board.Board;
+import chess.core.board.Fen;
+import chess.core.board.MoveList;
+import chess.core.board.PieceSquareTables;
+import chess.core.board.RulesMaster;
+import chess.engine.Evaluation;
+import chess.engine.PawnHashTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para a avaliação estática incremental.
+ */
+class EvaluationTest {
+    private static int whiteScore(Board board) {
+        int score = Evaluation.evaluate(board);
+        return board.getSideToMove() == PieceColor.WHITE ? score : -score;
+    }
+
+    @Test
+    @DisplayName("Teste da avaliação incremental contra o cálculo completo em jogos aleatórios")
+    void testIncrementalMatchesFromScratch() {
+        Board board = new Board();
+        RulesMaster rulesMaster = new RulesMaster(board);
+        MoveList moves = new MoveList();
+        PawnHashTable pawnTable = new PawnHashTable(64);
+        Random random = new Random(16);
+
+        for (int game = 0; game < 50; game++) {
+            Fen.load(board, Fen.START_POSITION);
+            assertEquals(PieceSquareTables.maxPhase(), board.getPhase(), "A posição inicial está na fase máxima");
+            for (int ply = 0; ply < 150; ply++) {
+                moves.clear();
+                rulesMaster.generateLegalMoves(moves);
+                if (moves.isEmpty()) break;
+                board.makeMove(moves.get(random.nextInt(moves.size())));
+                assertEquals(Evaluation.evaluateFromScratch(board), whiteScore(board), "Avaliação diferente em " + Fen.toFen(board));
+                assertEquals(Evaluation.evaluate(board), Evaluation.evaluate(board, pawnTable), "Tabela de peões diferente em " + Fen.toFen(board));
+                assertEquals(board.copy().getPawnKey(), board.getPawnKey(), "Chave dos peões diferente em " + Fen.toFen(board));
+            }
+            while (board.getHistorySize() > 0) board.unmakeMove();
+            assertEquals(Evaluation.evaluateFromScratch(board), whiteScore(board), "Desfazer deve repor a avaliação");
+            assertEquals(board.copy().getPawnKey(), board.getPawnKey(), "Desfazer deve repor a chave dos peões");
+        }
+        assertTrue(pawnTable.getStatistics().hitRate() > 50, "A estrutura de peões repete-se entre posições: " + pawnTable.getStatistics());
+    }
+
+    @Test
+    @DisplayName("Teste da estrutura de peões: peões dobrados, isolados, passados e bloqueados")
+    void testPawnStructure() {
+        Board board = new Board();
+        Fen.load(board, "4k3/pp6/8/8/8/8/PP6/4K3 w - - 0 1");
+        int base = Evaluation.evaluate(board);
+
+        Fen.load(board, "4k3/pp6/8/8/8/P7/P7/4K3 w - - 0 1"); // Peões brancos dobrados e isolados
+        assertTrue(Evaluation.evaluate(board) < base - 20, "Os peões dobrados e isolados valem menos");
+
+        Fen.load(board, "4k3/8/8/7P/8/8/8/4K3 w - - 0 1"); // Peão passado em H5
+        int passed = Evaluation.evaluate(board);
+        Fen.load(board, "4k3/8/7n/7P/8/8/8/4K3 w - - 0 1");
+        int blocked = Evaluation.evaluate(board);
+        Fen.load(board, "4k3/8/8/7P/8/8/7n/4K3 w - - 0 1");
+        assertTrue(Evaluation.evaluate(board) > blocked + 10, "O peão passado bloqueado pelo cavalo vale menos");
+        assertTrue(passed > 100, "O peão passado vale mais do que o material");
+
+        Fen.load(board, "4k3/8/8/8/8/8/1P6/4K3 w - - 0 1");
+        long pawnKey = board.getPawnKey();
+        Fen.load(board, "8/8/3k4/8/8/8/1P6/6K1 b - - 0 1");
+        assertEquals(pawnKey, board.getPawnKey(), "A chave dos peões não depende das outras peças nem do lado a jogar");
+    }
+
+    @Test
+    @DisplayName("Teste de simetria: a posição espelhada tem a avaliação simétrica")
+    void testSymmetry() {
+        Board board = new Board();
+        Fen.load(board, Fen.START_POSITION);
+        assertEquals(0, Evaluation.evaluate(board), "A posição inicial é equilibrada");
+
+        Fen.load(board, "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        int score = Evaluation.evaluate(board);
+        Fen.load(board, "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1");
+        assertEquals(score, Evaluation.evaluate(board), "Do ponto de vista do lado a jogar, as duas posições são iguais");
+    }
+}
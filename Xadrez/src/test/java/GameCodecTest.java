@@ -0,0 +1,112 @@
+import chess.core.GameCodec;
+import chess.core.GameManager;
+import chess.core.board.Type;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para o formato binário dos jogos gravados.
+ */
+class GameCodecTest {
+    private static final String POSITION = "4k3/1P6/8/3pP3/8/8/8/R3K2R w KQ d6 0 1";
+
+    /**
+     * Jogo com "en passant", promoção a Cavalo e roque, a partir de uma posição com "en passant" possível.
+     */
+    private static GameManager playedGame() {
+        GameManager game = new GameManager(null);
+        game.loadPosition(POSITION);
+        game.play("E5", "D6");
+        game.play("E8", "F7");
+        game.play(Type.KNIGHT, "B7", "B8");
+        game.play("F7", "F6");
+        game.play("E1", "G1");
+        assertEquals(5, game.getSnapshot().getPly(), "Todos os movimentos são legais");
+        return game;
+    }
+
+    @Test
+    @DisplayName("Teste da gravação: o jogo lido tem a mesma posição e o mesmo histórico")
+    void testRoundTrip() throws IOException {
+        GameManager game = playedGame();
+        Path file = Files.createTempFile("game", ".bin");
+        try {
+            GameCodec.save(game, file);
+            assertEquals(12 + 34 + 5 * 2 + 4, Files.size(file), "Cabeçalho, posição, 2 bytes por movimento e CRC");
+
+            GameManager loaded = GameCodec.load(file);
+            assertEquals(game.getSnapshot().toFen(), loaded.getSnapshot().toFen());
+            assertEquals(game.getSnapshot().getZobristKey(), loaded.getSnapshot().getZobristKey());
+            while (loaded.undoMove()) ;
+            assertEquals(POSITION, loaded.getSnapshot().toFen(), "Os movimentos lidos podem ser desfeitos até à posição gravada");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Teste de ficheiros corrompidos ou truncados")
+    void testCorruptedFile() throws IOException {
+        Path file = Files.createTempFile("game", ".bin");
+        try {
+            GameCodec.save(playedGame(), file);
+            byte[] bytes = Files.readAllBytes(file);
+
+            byte[] corrupted = bytes.clone();
+            corrupted[20] ^= 1;
+            Files.write(file, corrupted);
+            assertThrows(IOException.class, () -> GameCodec.load(file), "O CRC não confere");
+
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+            assertThrows(IOException.class, () -> GameCodec.load(file), "Ficheiro truncado");
+
+            Files.write(file, new byte[]{1, 2, 3});
+            assertThrows(IOException.class, () -> GameCodec.load(file), "Não é um jogo gravado");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Teste da migração: um jogo gravado com a serialização Java é lido e regravado no formato novo")
+    void testLegacyFile() throws IOException {
+        Path file = Files.createTempFile("legacy", ".bin");
+        try (InputStream legacy = GameCodecTest.class.getResourceAsStream("/legacyGame.bin")) {
+            assertNotNull(legacy, "Ficheiro antigo de teste");
+            Files.write(file, legacy.readAllBytes());
+            long legacySize = Files.size(file);
+
+            GameManager game = GameCodec.load(file);
+            assertEquals(20, game.getLegalMoves().size());
+            GameCodec.save(game, file);
+            assertTrue(Files.size(file) * 20 < legacySize, "O formato novo tem " + Files.size(file) + " bytes, o antigo " + legacySize);
+            assertEquals(game.getSnapshot().toFen(), GameCodec.load(file).getSnapshot().toFen());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Teste da migração: um jogo da consola gravado com a serialização Java é lido com o mesmo filtro")
+    void testLegacyConsoleFile() throws IOException {
+        Path file = Files.createTempFile("legacyConsole", ".bin");
+        try (InputStream legacy = GameCodecTest.class.getResourceAsStream("/legacyConsole.bin")) {
+            assertNotNull(legacy, "Ficheiro antigo de teste");
+            Files.write(file, legacy.readAllBytes());
+
+            GameManager game = GameCodec.load(file);
+            assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 0 1", game.getSnapshot().toFen());
+            assertEquals(3, game.getSnapshot().getPly(), "Os movimentos antigos são repetidos");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
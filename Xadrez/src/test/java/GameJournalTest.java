@@ -0,0 +1,134 @@
+import chess.core.GameJournal;
+import chess.core.GameManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para o diário dos jogos: o jogo tem de ser reconstruído depois de uma falha.
+ */
+class GameJournalTest {
+    private Path directory;
+    private Path checkpoint;
+    private Path journalFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("journal");
+        this.checkpoint = this.directory.resolve("game.bin");
+        this.journalFile = this.directory.resolve("game.bin.journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(this.directory);
+    }
+
+    /**
+     * Joga uma abertura com um movimento desfeito a meio: 5 movimentos e 1 desfazer.
+     */
+    private static void playOpening(GameManager game) {
+        game.play("E2", "E4");
+        game.play("E7", "E5");
+        game.play("G1", "F3");
+        game.play("B8", "C6");
+        game.undoMove();
+        game.play("G8", "F6");
+        game.play("F1", "C4");
+    }
+
+    @Test
+    @DisplayName("Teste da recuperação: o jogo é reconstruído a partir do ponto de controlo e do diário, sem ser fechado")
+    void testRecovery() throws IOException {
+        GameManager game = new GameManager(null);
+        GameJournal journal = GameJournal.create(game, this.checkpoint, GameJournal.Policy.everyMove());
+        long checkpointSize = Files.size(this.checkpoint);
+        playOpening(game);
+        assertEquals(7, journal.size(), "Um registo por alteração");
+        assertTrue(Files.size(this.journalFile) <= 12 + 7 * 2, "Cada registo ocupa um byte ou dois");
+        assertEquals(checkpointSize, Files.size(this.checkpoint), "O ponto de controlo não é regravado a cada movimento");
+
+        // A aplicação "falha": o diário não é fechado
+        try (GameJournal recovered = GameJournal.recover(this.checkpoint, GameJournal.Policy.everyMove())) {
+            assertEquals(game.getSnapshot().toFen(), recovered.getGame().getSnapshot().toFen());
+            assertEquals(5, recovered.getGame().getSnapshot().getPly());
+            assertEquals(0, recovered.size(), "O jogo recuperado é logo gravado num ponto de controlo");
+            assertTrue(recovered.getGame().undoMove(), "Os movimentos recuperados podem ser desfeitos");
+        }
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Teste de diários estragados: um registo escrito a meio ou um diário antigo são ignorados")
+    void testDamagedJournal() throws IOException {
+        GameManager game = new GameManager(null);
+        GameJournal.create(game, this.checkpoint, GameJournal.Policy.everyMoves(4)); // A aplicação falha sem o fechar
+        playOpening(game);
+        String expected = game.getSnapshot().toFen();
+        Files.write(this.journalFile, new byte[]{(byte) 0x80}, StandardOpenOption.APPEND); // Registo incompleto
+
+        byte[] staleJournal;
+        try (GameJournal recovered = GameJournal.recover(this.checkpoint, GameJournal.Policy.everyMove())) {
+            assertEquals(expected, recovered.getGame().getSnapshot().toFen(), "O registo incompleto é ignorado");
+            recovered.getGame().undoMove();
+            staleJournal = Files.readAllBytes(this.journalFile);
+            expected = recovered.getGame().getSnapshot().toFen();
+        }
+        Files.write(this.journalFile, staleJournal); // Compactação interrompida antes de esvaziar o diário
+        try (GameJournal recovered = GameJournal.recover(this.checkpoint, GameJournal.Policy.everyMove())) {
+            assertEquals(expected, recovered.getGame().getSnapshot().toFen(), "Um diário de outro ponto de controlo não é repetido");
+        }
+    }
+
+    @Test
+    @DisplayName("Teste da compactação: o diário é esvaziado de tantos em tantos registos e quando o jogo recomeça")
+    void testCompaction() throws IOException {
+        GameManager game = new GameManager(null);
+        try (GameJournal journal = GameJournal.create(game, this.checkpoint, GameJournal.Policy.everyMillis(50).withCompactAfter(3))) {
+            playOpening(game);
+            assertEquals(1, journal.size(), "Compactado depois do 3.º e do 6.º registo");
+            assertTrue(Files.size(this.journalFile) <= 12 + 2);
+
+            game.resetGame();
+            assertEquals(0, journal.size(), "Um jogo novo começa num ponto de controlo");
+            game.play("D2", "D4");
+        }
+        assertThrows(IllegalArgumentException.class, () -> new GameJournal.Policy(0, 0, 1), "O diário tem de ser enviado para o disco");
+
+        try (GameJournal recovered = GameJournal.recover(this.checkpoint, GameJournal.Policy.everyMove())) {
+            assertEquals(1, recovered.getGame().getSnapshot().getPly());
+        }
+    }
+
+    @Test
+    @DisplayName("Teste do envio para o disco: por número de registos, ou periodicamente mesmo com o jogo parado")
+    void testSync() throws IOException, InterruptedException {
+        GameManager game = new GameManager(null);
+        try (GameJournal journal = GameJournal.create(game, this.checkpoint, GameJournal.Policy.everyMoves(3))) {
+            game.play("E2", "E4");
+            game.play("E7", "E5");
+            assertEquals(2, journal.getUnsyncedRecords());
+            game.play("G1", "F3");
+            assertEquals(0, journal.getUnsyncedRecords(), "Enviados ao 3.º registo");
+        }
+
+        try (GameJournal journal = GameJournal.recover(this.checkpoint, GameJournal.Policy.everyMillis(20))) {
+            journal.getGame().play("B8", "C6");
+            long deadline = System.nanoTime() + 2_000_000_000L;
+            while (journal.getUnsyncedRecords() > 0 && System.nanoTime() < deadline) Thread.sleep(5);
+            assertEquals(0, journal.getUnsyncedRecords(), "Enviado pela tarefa periódica, sem outro movimento");
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import chess.core.GameManager;
+import chess.core.GameRegistry;
+import chess.core.PieceColor;
+import chess.core.board.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para o registo de jogos: muitos jogos em paralelo não podem interferir uns com os outros.
+ */
+class GameRegistryTest {
+    private static final int THREADS = 8;
+    private static final int GAMES_PER_THREAD = 25;
+    private static final int MAX_PLY = 80;
+
+    /**
+     * Joga movimentos aleatórios, alternando entre vários jogos do registo, e compara cada jogo com um tabuleiro
+     * de referência que só esta thread conhece.
+     *
+     * @return - número de movimentos jogados.
+     */
+    private static int playRandomGames(GameRegistry registry, long seed) {
+        Random random = new Random(seed);
+        long[] ids = new long[GAMES_PER_THREAD];
+        Board[] references = new Board[GAMES_PER_THREAD];
+        for (int i = 0; i < GAMES_PER_THREAD; i++) {
+            ids[i] = registry.create();
+            references[i] = new Board();
+            Fen.load(references[i], Fen.START_POSITION);
+        }
+
+        int played = 0;
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            for (int i = 0; i < GAMES_PER_THREAD; i++) {
+                moves.clear();
+                new RulesMaster(references[i]).generateLegalMoves(moves);
+                if (moves.isEmpty()) continue;
+
+                int move = moves.get(random.nextInt(moves.size()));
+                if (PackedMove.isPromotion(move) && PackedMove.promotion(move) != Type.QUEEN) continue; // O jogo promove a Rainha
+                references[i].makeMove(move);
+                long key = registry.write(ids[i], game -> {
+                    game.play(Position.of(PackedMove.from(move)), Position.of(PackedMove.to(move)));
+                    return game.copyBoard().getZobristKey();
+                });
+                assertEquals(references[i].getZobristKey(), key, "O jogo " + ids[i] + " divergiu da referência");
+                played++;
+            }
+        }
+
+        for (long id : ids) {
+            long key = registry.write(id, game -> {
+                while (game.undoMove()) ;
+                return game.copyBoard().getZobristKey();
+            });
+            assertEquals(startKey(), key, "Desfazer tudo repõe a posição inicial");
+            assertTrue(registry.remove(id));
+        }
+        return played;
+    }
+
+    /**
+     * @return - número de movimentos legais, contando cada promoção uma só vez, como {@link GameManager#getLegalMoves()}.
+     */
+    private static int legalMoveCount(Board board) {
+        MoveList moves = new MoveList();
+        new RulesMaster(board).generateLegalMoves(moves);
+        int count = 0;
+        for (int i = 0; i < moves.size(); i++)
+            if (!PackedMove.isPromotion(moves.get(i)) || PackedMove.promotion(moves.get(i)) == Type.QUEEN) count++;
+        return count;
+    }
+
+    private static long startKey() {
+        Board board = new Board();
+        Fen.load(board, Fen.START_POSITION);
+        return board.getZobristKey();
+    }
+
+    @Test
+    @DisplayName("Teste de stress: jogos aleatórios em paralelo não interferem uns com os outros")
+    void testConcurrentGames() throws Exception {
+        GameRegistry registry = new GameRegistry(THREADS * GAMES_PER_THREAD, null);
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int thread = 0; thread < THREADS; thread++) {
+                long seed = thread;
+                results.add(executor.submit(() -> playRandomGames(registry, seed)));
+            }
+        }
+
+        int played = 0;
+        for (Future<Integer> result : results) played += result.get(); // Relança as falhas das threads
+        assertTrue(played > THREADS * GAMES_PER_THREAD * MAX_PLY / 2, "Foram jogados " + played + " movimentos");
+        assertEquals(0, registry.size(), "Todos os jogos foram removidos");
+    }
+
+    @Test
+    @DisplayName("Teste das leituras otimistas: veem sempre um estado consistente enquanto outra thread joga")
+    void testReadsDuringWrites() throws Exception {
+        GameRegistry registry = new GameRegistry(1, null);
+        long id = registry.create();
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            Future<Integer> writer = executor.submit(() -> {
+                Random random = new Random(22);
+                for (int i = 0; i < 2000; i++)
+                    registry.write(id, game -> {
+                        if (game.isFinished() || random.nextInt(8) == 0) game.resetGame();
+                        List<Move> moves = game.getLegalMoves();
+                        Move move = moves.get(random.nextInt(moves.size()));
+                        game.play(move.getInitPosition(), move.getEndPosition());
+                        return null;
+                    });
+                return 2000;
+            });
+            results.add(writer);
+            for (int thread = 1; thread < THREADS; thread++)
+                results.add(executor.submit(() -> {
+                    int reads = 0;
+                    while (!writer.isDone()) {
+                        Board board = registry.read(id, GameManager::copyBoard);
+                        assertEquals(board.computeZobristKey(), board.getZobristKey(), "A cópia é de uma posição completa");
+                        int[] counts = registry.read(id, game -> new int[]{game.getLegalMoves().size(), legalMoveCount(game.copyBoard())});
+                        assertEquals(counts[1], counts[0], "Os movimentos legais são os da posição lida");
+                        reads++;
+                    }
+                    return reads;
+                }));
+        }
+        for (Future<Integer> result : results) result.get(); // Relança as falhas das threads
+    }
+
+    @Test
+    @DisplayName("Teste da memória por jogo: o histórico retido não cresce com o jogo e pode ser desfeito até ao início")
+    void testMemoryPerGame() {
+        int games = 64;
+        GameRegistry registry = new GameRegistry(games, null);
+        Random random = new Random(21);
+        int longest = 0;
+        for (int i = 0; i < games; i++) {
+            long id = registry.create();
+            longest = Math.max(longest, registry.write(id, game -> {
+                while (!game.isFinished()) {
+                    List<Move> moves = game.getLegalMoves();
+                    Move move = moves.get(random.nextInt(moves.size()));
+                    game.play(move.getInitPosition(), move.getEndPosition());
+                    assertTrue(game.getRetainedUndoRecords() <= RulesMaster.DRAW_HALFMOVES + 1,
+                            game.getRetainedUndoRecords() + " registos retidos ao meio-lance " + game.getSnapshot().getPly());
+                }
+                return game.getSnapshot().getPly();
+            }));
+            if (i % 8 != 0) continue;
+
+            String start = registry.read(id, game -> game.getSnapshot().getRoot().toFen());
+            String undone = registry.write(id, game -> {
+                while (game.undoMove()) ;
+                return game.getSnapshot().toFen();
+            });
+            assertEquals(start, undone, "Desfazer para lá dos registos retidos repete o jogo desde o início");
+        }
+        assertTrue(longest > RulesMaster.DRAW_HALFMOVES + 1, "O jogo mais longo, com " + longest + " meios-lances, excede os registos retidos");
+    }
+
+    @Test
+    @DisplayName("Teste do limite de jogos do registo")
+    void testCapacity() {
+        GameRegistry registry = new GameRegistry(2, null);
+        long first = registry.create();
+        long second = registry.create();
+        assertNotEquals(first, second, "Cada jogo tem o seu identificador");
+        assertThrows(IllegalStateException.class, registry::create, "O registo está cheio");
+
+        registry.write(first, game -> {
+            game.play("E2", "E4");
+            return null;
+        });
+        assertEquals(PieceColor.BLACK, registry.read(first, GameManager::nextPlayer));
+        assertEquals(PieceColor.WHITE, registry.read(second, GameManager::nextPlayer), "Jogar num jogo não altera o outro");
+        assertTrue(registry.remove(first));
+        assertFalse(registry.remove(first), "O jogo já foi removido");
+        registry.create();
+        assertEquals(2, registry.size());
+        assertThrows(IllegalArgumentException.class, () -> registry.read(first, GameManager::isFinished));
+        assertEquals(4, new GameRegistry(1, 3, null).stripes(), "O número de bloqueios é uma potência de 2");
+    }
+}
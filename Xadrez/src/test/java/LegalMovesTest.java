@@ -0,0 +1,178 @@
+import chess.core.GameManager;
+import chess.core.GameStatus;
+import chess.core.PieceColor;
+import chess.core.board.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes diferenciais do gerador de movimentos legais (xeques e cravadas) contra uma referência simples:
+ * gerar os movimentos pseudo-legais e jogar cada um para ver se deixa o próprio rei em xeque.
+ */
+class LegalMovesTest {
+    private Board board;
+    private RulesMaster rulesMaster;
+
+    @BeforeEach
+    void setUp() {
+        board = new Board();
+        rulesMaster = new RulesMaster(board);
+    }
+
+    /**
+     * Referência: movimentos pseudo-legais que, depois de jogados, não deixam o rei em xeque.
+     * O roque também não pode partir de xeque nem passar por uma casa atacada.
+     */
+    private int[] referenceMoves() {
+        PieceColor pieceColor = board.getSideToMove();
+        MoveList pseudoLegal = new MoveList();
+        MoveList legal = new MoveList();
+        rulesMaster.generateMoves(pieceColor, pseudoLegal);
+
+        for (int i = 0; i < pseudoLegal.size(); i++) {
+            int move = pseudoLegal.get(i);
+            if (PackedMove.isCastling(move)) {
+                int from = PackedMove.from(move);
+                if (rulesMaster.isInCheck(pieceColor) || rulesMaster.isSquareAttacked((from + PackedMove.to(move)) >>> 1, pieceColor.opposite()))
+                    continue;
+            }
+            board.makeMove(move);
+            if (!rulesMaster.isInCheck(pieceColor)) legal.add(move);
+            board.unmakeMove();
+        }
+        return sorted(legal);
+    }
+
+    private int[] legalMoves() {
+        MoveList moves = new MoveList();
+        rulesMaster.generateLegalMoves(moves);
+        return sorted(moves);
+    }
+
+    private int[] legalTacticalMoves() {
+        MoveList moves = new MoveList();
+        rulesMaster.generateLegalTacticalMoves(moves);
+        return sorted(moves);
+    }
+
+    private static int[] sorted(MoveList moves) {
+        int[] result = new int[moves.size()];
+        for (int i = 0; i < result.length; i++) result[i] = moves.get(i);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void assertSameAsReference(String fen) {
+        Fen.load(board, fen);
+        assertArrayEquals(referenceMoves(), legalMoves(), "Movimentos legais diferentes em " + fen);
+    }
+
+    @Test
+    @DisplayName("Teste diferencial em jogos aleatórios")
+    void testRandomGames() {
+        Random random = new Random(2024);
+        for (int game = 0; game < 100; game++) {
+            Fen.load(board, Fen.START_POSITION);
+            for (int ply = 0; ply < 200; ply++) {
+                int[] expected = referenceMoves();
+                assertArrayEquals(expected, legalMoves(), "Movimentos legais diferentes em " + Fen.toFen(board));
+                assertEquals(expected.length > 0, rulesMaster.hasLegalMoves(), "hasLegalMoves diferente em " + Fen.toFen(board));
+                assertArrayEquals(Arrays.stream(expected).filter(move -> !PackedMove.isQuiet(move)).toArray(), legalTacticalMoves(),
+                        "Capturas e promoções diferentes em " + Fen.toFen(board));
+                for (int move : expected) assertTrue(rulesMaster.isLegalMove(move), "isLegalMove falhou em " + Fen.toFen(board));
+                if (expected.length == 0) break;
+                board.makeMove(expected[random.nextInt(expected.length)]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Teste diferencial em posições com cravadas, xeques duplos e \"en passant\"")
+    void testSpecialPositions() {
+        assertSameAsReference("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertSameAsReference("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertSameAsReference("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertSameAsReference("4k3/8/8/8/1b6/8/3N4/4K3 w - - 0 1");         // Cavalo cravado pelo bispo
+        assertSameAsReference("4k3/8/8/8/8/5n2/8/r3K3 w - - 0 1");          // Xeque duplo
+        assertSameAsReference("8/8/8/KPp4r/8/8/8/7k w - c6 0 1");           // "En passant" que descobre a torre
+        assertSameAsReference("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        assertSameAsReference("4k3/8/8/8/8/8/5r2/R3K2R w KQ - 0 1");        // Roque através de casa atacada
+    }
+
+    @Test
+    @DisplayName("Teste de cravada: o cavalo cravado não tem movimentos")
+    void testPinnedKnight() {
+        Fen.load(board, "4k3/8/8/8/1b6/8/3N4/4K3 w - - 0 1");
+        MoveList moves = new MoveList();
+        rulesMaster.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++)
+            assertNotEquals(Type.KNIGHT, PackedMove.piece(moves.get(i)), "O cavalo está cravado ao rei");
+    }
+
+    @Test
+    @DisplayName("Teste de GameManager.play: o rei não pode ficar em xeque")
+    void testPlayRejectsIllegalMoves() {
+        GameManager game = new GameManager();
+        game.loadPosition("4k3/8/8/8/8/8/5r2/4K3 w - - 0 1");
+
+        assertFalse(game.getValidMoves(Position.of("E1")).contains(Position.of("E2")), "E2 é atacada pela torre");
+        game.play("E1", "E2");
+        assertNotNull(game.copyBoard().getPiece("E1"), "O movimento ilegal não deve ser realizado");
+        assertEquals(PieceColor.WHITE, game.nextPlayer(), "Continua a ser a vez das brancas");
+
+        game.play("E1", "F2");
+        assertEquals(Type.KING, game.copyBoard().getPiece("F2").getType(), "O rei pode capturar a torre desprotegida");
+        assertEquals(5, game.getLegalMoves().size(), "O rei preto tem 5 movimentos");
+    }
+
+    @Test
+    @DisplayName("Teste do estado do jogo: xeque, xeque-mate e afogamento")
+    void testGameStatus() {
+        GameManager game = new GameManager();
+        assertEquals(GameStatus.IN_PROGRESS, game.getGameStatus());
+
+        game.play("F2", "F3");
+        game.play("E7", "E5");
+        game.play("G2", "G4");
+        game.play("D8", "H4"); // Mate do louco
+        assertEquals(GameStatus.CHECKMATE, game.getGameStatus());
+        assertTrue(game.isFinished(), "O jogo termina com o xeque-mate");
+        assertEquals(PieceColor.BLACK, game.whoWon(), "As pretas dão xeque-mate");
+        assertEquals(Bitboard.square(Position.of("E1")), game.copyBoard().getKingSquare(PieceColor.WHITE));
+
+        game.loadPosition("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertEquals(GameStatus.STALEMATE, game.getGameStatus());
+        assertTrue(game.isFinished(), "O jogo termina com o afogamento");
+        assertNull(game.whoWon(), "O afogamento é empate");
+
+        game.loadPosition("4k3/8/8/8/8/8/4r3/4K3 w - - 0 1");
+        assertEquals(GameStatus.CHECK, game.getGameStatus());
+        assertFalse(game.isFinished(), "O rei pode capturar a torre");
+    }
+
+    @Test
+    @DisplayName("Teste do empate automático: a mesma posição pela quinta vez termina o jogo")
+    void testAutomaticDraw() {
+        GameManager game = new GameManager();
+        game.play("E2", "E4");
+        for (int i = 0; i < 4; i++) {
+            assertFalse(game.isFinished(), "A posição só ocorreu " + (i + 1) + " vezes");
+            game.play("G8", "F6");
+            game.play("G1", "F3");
+            game.play("F6", "G8");
+            game.play("F3", "G1");
+        }
+        assertEquals(GameStatus.DRAW, game.getGameStatus());
+        assertNull(game.whoWon(), "O empate não tem vencedor");
+        assertEquals(16, game.copyBoard().getHalfmoveClock(), "Meios-lances desde o avanço do peão");
+
+        game.play("B8", "C6");
+        assertEquals(PieceColor.BLACK, game.nextPlayer(), "Depois do empate não são aceites mais movimentos");
+    }
+}
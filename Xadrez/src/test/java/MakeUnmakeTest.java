@@ -0,0 +1,138 @@
+import chess.core.PieceColor;
+import chess.core.board.*;
+import chess.core.board.pieces.Piece;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para a pilha de movimentos do tabuleiro: desfazer tem de repor exatamente o estado anterior.
+ */
+class MakeUnmakeTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String PROMOTIONS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String EN_PASSANT = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final int GAMES = 40;
+    private static final int MAX_PLY = 60;
+
+    /**
+     * Fotografia de tudo o que um movimento altera: bitboards, grelha (as próprias peças e o seu estado "hasMoved"),
+     * direitos de roque, "en passant", lado a jogar, chaves, avaliação incremental e histórico.
+     */
+    private record State(long[] bitboards, Piece[] pieces, boolean[] moved, int castlingRights, int enPassantSquare,
+                         PieceColor sideToMove, long zobristKey, long pawnKey, int middlegame, int endgame, int phase,
+                         String history) {
+        static State of(Board board) {
+            long[] bitboards = new long[12];
+            for (Type type : Type.values())
+                for (PieceColor color : PieceColor.values())
+                    bitboards[type.ordinal() * 2 + color.ordinal()] = board.getPieces(type, color);
+            Piece[] pieces = new Piece[64];
+            boolean[] moved = new boolean[64];
+            for (int square = 0; square < 64; square++) {
+                pieces[square] = board.getPiece(Bitboard.row(square), Bitboard.col(square));
+                moved[square] = pieces[square] != null && !pieces[square].hasNotMoved();
+            }
+            return new State(bitboards, pieces, moved, board.getCastlingRights(), board.getEnPassantSquare(),
+                    board.getSideToMove(), board.getZobristKey(), board.getPawnKey(), board.getMiddlegameScore(),
+                    board.getEndgameScore(), board.getPhase(), board.getHistoryMovesText());
+        }
+
+        void assertRestored(State after, String context) {
+            assertArrayEquals(this.bitboards, after.bitboards, "Bitboards " + context);
+            for (int square = 0; square < 64; square++) {
+                assertSame(this.pieces[square], after.pieces[square], "Peça na casa " + square + " " + context);
+                assertEquals(this.moved[square], after.moved[square], "Estado \"hasMoved\" na casa " + square + " " + context);
+            }
+            assertEquals(this.castlingRights, after.castlingRights, "Direitos de roque " + context);
+            assertEquals(this.enPassantSquare, after.enPassantSquare, "Casa de \"en passant\" " + context);
+            assertEquals(this.sideToMove, after.sideToMove, "Lado a jogar " + context);
+            assertEquals(this.zobristKey, after.zobristKey, "Chave de Zobrist " + context);
+            assertEquals(this.pawnKey, after.pawnKey, "Chave dos peões " + context);
+            assertEquals(this.middlegame, after.middlegame, "Avaliação de meio-jogo " + context);
+            assertEquals(this.endgame, after.endgame, "Avaliação de final " + context);
+            assertEquals(this.phase, after.phase, "Fase " + context);
+            assertEquals(this.history, after.history, "Histórico " + context);
+        }
+    }
+
+    @Test
+    @DisplayName("Teste de fazer e desfazer: jogos aleatórios desfeitos até ao início repõem cada estado intermédio")
+    void testRandomGames() {
+        Random random = new Random(4);
+        int[] special = new int[3]; // Roques, "en passant" e promoções jogados
+        for (String fen : new String[]{Fen.START_POSITION, KIWIPETE, PROMOTIONS, EN_PASSANT}) {
+            for (int game = 0; game < GAMES; game++) {
+                Board board = new Board();
+                Fen.load(board, fen);
+                List<State> states = new ArrayList<>();
+                MoveList moves = new MoveList();
+                for (int ply = 0; ply < MAX_PLY; ply++) {
+                    moves.clear();
+                    new RulesMaster(board).generateLegalMoves(moves);
+                    if (moves.isEmpty()) break;
+
+                    int move = moves.get(random.nextInt(moves.size()));
+                    if (PackedMove.isCastling(move)) special[0]++;
+                    if (PackedMove.isEnPassant(move)) special[1]++;
+                    if (PackedMove.isPromotion(move)) special[2]++;
+                    states.add(State.of(board));
+                    board.makeMove(move);
+                    assertEquals(states.size(), board.getHistorySize());
+                }
+
+                for (int ply = states.size() - 1; ply >= 0; ply--) {
+                    board.unmakeMove();
+                    states.get(ply).assertRestored(State.of(board), "depois de desfazer o meio-lance " + ply + " de " + fen);
+                }
+                assertEquals(0, board.getHistorySize());
+                assertThrows(IllegalStateException.class, board::unmakeMove, "Não há mais movimentos para desfazer");
+            }
+        }
+        assertTrue(Arrays.stream(special).allMatch(count -> count > 0), "Houve roques, \"en passant\" e promoções: " + Arrays.toString(special));
+    }
+
+    @Test
+    @DisplayName("Teste do histórico de uma promoção: mostra a peça promovida e desfazer repõe o peão")
+    void testPromotionHistory() {
+        Board board = new Board();
+        Fen.load(board, "4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        Piece pawn = board.getPiece("B7");
+        board.makeMove(PackedMove.withPromotion(PackedMove.of(Bitboard.square(Position.of("B7")), Bitboard.square(Position.of("B8")), Type.PAWN), Type.KNIGHT));
+
+        assertEquals(Type.KNIGHT, board.getLastMove().getPiece().getType(), "O histórico mostra a peça promovida");
+        assertSame(board.getPiece("B8"), board.getHistoryMovesList().getFirst().getPiece());
+        board.unmakeMove();
+        assertSame(pawn, board.getPiece("B7"), "Desfazer repõe o peão original");
+    }
+
+    @Test
+    @DisplayName("Teste do histórico descartado: só fica o último movimento irreversível, que ainda pode ser desfeito")
+    void testTrimHistory() {
+        Board board = new Board();
+        Fen.load(board, Fen.START_POSITION);
+        board.makeMove(PackedMove.of(Bitboard.square(Position.of("G1")), Bitboard.square(Position.of("F3")), Type.KNIGHT));
+        board.trimHistory();
+        assertEquals(1, board.getHistorySize(), "Um movimento de cavalo não descarta nada");
+        board.makeMove(PackedMove.of(Bitboard.square(Position.of("G8")), Bitboard.square(Position.of("F6")), Type.KNIGHT));
+        board.makeMove(PackedMove.of(Bitboard.square(Position.of("E2")), Bitboard.square(Position.of("E4")), Type.PAWN) | PackedMove.DOUBLE_PUSH);
+        long key = board.getZobristKey();
+
+        board.trimHistory();
+        assertEquals(1, board.getHistorySize(), "Ficou só o avanço do peão");
+        assertEquals(3, board.getPly(), "Os meios-lances descartados continuam a contar");
+        assertEquals(0, board.getHalfmoveClock());
+        assertEquals(key, board.getZobristKey());
+
+        board.unmakeMove();
+        assertEquals(2, board.getPly());
+        assertEquals(board.computeZobristKey(), board.getZobristKey(), "O último movimento foi desfeito");
+        assertThrows(IllegalStateException.class, board::unmakeMove, "Os movimentos anteriores foram descartados");
+    }
+}
@@ -0,0 +1,134 @@
+import chess.core.GameManager;
+import chess.core.board.*;
+import chess.engine.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para a leitura de PGN e para o livro de aberturas.
+ */
+class OpeningBookTest {
+    private static final String GAMES = """
+            [Event "Teste"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {comentário} Nc6 (2... d6 3. d4) 3. Bb5 a6 1-0
+
+            [Event "Teste"]
+            [Result "0-1"]
+
+            1. e4 c5 2. Nf3 d6 $1 3. d4 cxd4 0-1
+
+            [Event "Teste"]
+            [Result "1/2-1/2"]
+
+            1. d4 d5 2. c4 e6 1/2-1/2
+            """;
+
+    private static List<Pgn.Game> readGames() throws IOException {
+        List<Pgn.Game> games = new ArrayList<>();
+        Pgn.readGames(new BufferedReader(new StringReader(GAMES)), games::add);
+        return games;
+    }
+
+    private static Path writeBook() throws IOException {
+        OpeningBookWriter writer = new OpeningBookWriter(OpeningBookWriter.DEFAULT_MAX_PLY);
+        for (Pgn.Game game : readGames()) writer.addGame(game);
+        Path path = Files.createTempFile("openingBook", ".bin");
+        writer.write(path);
+        return path;
+    }
+
+    @Test
+    @DisplayName("Teste da leitura de PGN: etiquetas, comentários, variantes e notação algébrica")
+    void testPgn() throws IOException {
+        List<Pgn.Game> games = readGames();
+        assertEquals(3, games.size());
+        assertEquals("1-0", games.get(0).result());
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"), games.get(0).moves());
+
+        Board board = new Board();
+        RulesMaster rulesMaster = new RulesMaster(board);
+        Fen.load(board, "r3k2r/1P6/8/8/8/R7/8/R3K2R w KQkq - 0 1");
+        assertEquals("E1G1", PackedMove.toString(Pgn.parseMove(rulesMaster, "O-O")));
+        assertEquals("E1C1", PackedMove.toString(Pgn.parseMove(rulesMaster, "0-0-0")));
+        assertEquals("B7A8Q", PackedMove.toString(Pgn.parseMove(rulesMaster, "bxa8=Q+")));
+        assertEquals("A1A2", PackedMove.toString(Pgn.parseMove(rulesMaster, "R1a2")));
+        assertEquals(PackedMove.NONE, Pgn.parseMove(rulesMaster, "Ra2"), "Movimento ambíguo");
+        assertEquals(PackedMove.NONE, Pgn.parseMove(rulesMaster, "Nf3f4"), "Movimento inválido");
+        assertEquals(PackedMove.NONE, Pgn.parseMove(rulesMaster, "Ke3"), "Movimento ilegal");
+    }
+
+    @Test
+    @DisplayName("Teste das chaves do Polyglot: valores de referência da especificação do formato")
+    void testPolyglotKeys() {
+        Board board = new Board();
+        String[][] positions = {
+                {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "463b96181691fc9c"},
+                {"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", "823c9b50fd114196"},
+                {"rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2", "0756b94461c50fb0"},
+                {"rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2", "662fafb965db29d4"},
+                {"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", "22a48b5a8e47ff78"},
+                {"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3", "652a607ca3f242c1"},
+                {"rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4", "00fdd303c946bdd9"},
+                {"rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3", "3c8123ea7b067637"},
+                {"rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4", "5c3f9b829b279560"}};
+        for (String[] position : positions) {
+            Fen.load(board, position[0]);
+            assertEquals(Long.parseUnsignedLong(position[1], 16), OpeningBook.polyglotKey(board), position[0]);
+        }
+
+        Fen.load(board, Fen.START_POSITION);
+        for (String move : List.of("e4", "d5", "e5", "f5")) board.makeMove(Pgn.parseMove(new RulesMaster(board), move));
+        assertEquals(0x22a48b5a8e47ff78L, OpeningBook.polyglotKey(board), "A mesma chave depois de jogar os movimentos");
+    }
+
+    @Test
+    @DisplayName("Teste do livro de aberturas: pesos pelo resultado e pesquisa pela chave da posição")
+    void testOpeningBook() throws IOException {
+        Path path = writeBook();
+        Board board = new Board();
+        try (OpeningBook book = OpeningBook.open(path, OpeningBook.Selection.BEST)) {
+            Fen.load(board, Fen.START_POSITION);
+            List<OpeningBook.BookMove> moves = book.getMoves(board);
+            assertEquals(2, moves.size(), "1. e4 (vitória e derrota) e 1. d4 (empate)");
+            assertEquals("E2E4", PackedMove.toString(moves.get(0).move()));
+            assertEquals(2, moves.get(0).weight());
+            assertEquals("E2E4", PackedMove.toString(book.selectMove(board)));
+
+            board.makeMove(book.selectMove(board));
+            assertEquals("C7C5", PackedMove.toString(book.selectMove(board)), "1... e5 só aparece numa derrota");
+
+            Fen.load(board, "4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+            assertEquals(PackedMove.NONE, book.selectMove(board), "Posição fora do livro");
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    @DisplayName("Teste do motor com livro: joga o movimento do livro sem procurar")
+    void testEngineUsesBook() throws IOException {
+        Path path = writeBook();
+        try (OpeningBook book = OpeningBook.open(path, OpeningBook.Selection.WEIGHTED_RANDOM)) {
+            GameManager game = new GameManager();
+            game.setOpeningBook(book);
+            SearchResult result = game.playEngineMove(SearchLimits.depth(4));
+            assertTrue(result.isBookMove());
+            assertEquals(0, result.nodes());
+            assertTrue(List.of("E2E4", "D2D4").contains(PackedMove.toString(result.move())));
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
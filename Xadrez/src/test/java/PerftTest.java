@@ -0,0 +1,99 @@
+import chess.core.board.Board;
+import chess.core.board.Fen;
+import chess.core.board.Perft;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para o gerador de movimentos, através da contagem de nós (perft).
+ * As posições e as contagens de referência são as publicadas na Chess Programming Wiki ("Perft Results").
+ */
+class PerftTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_4_MIRRORED = "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1";
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+    /**
+     * Carrega a posição e verifica as contagens, da profundidade 1 até ao tamanho do array.
+     */
+    private static void assertPerft(String fen, long... expected) {
+        Board board = new Board();
+        Fen.load(board, fen);
+        Perft perft = new Perft(board);
+        for (int depth = 1; depth <= expected.length; depth++)
+            assertEquals(expected[depth - 1], perft.perft(depth), "perft(" + depth + ") de " + fen);
+    }
+
+    @Test
+    @DisplayName("Teste de perft a partir da posição inicial")
+    void testStartPosition() {
+        assertPerft(Fen.START_POSITION, 20, 400, 8_902, 197_281);
+    }
+
+    @Test
+    @DisplayName("Teste de perft na posição \"Kiwipete\" (roques, \"en passant\" e promoções)")
+    void testKiwipete() {
+        assertPerft(KIWIPETE, 48, 2_039, 97_862);
+    }
+
+    @Test
+    @DisplayName("Teste de perft num final de torres e peões (\"en passant\" com xeque descoberto)")
+    void testPosition3() {
+        assertPerft(POSITION_3, 14, 191, 2_812, 43_238, 674_624);
+    }
+
+    @Test
+    @DisplayName("Teste de perft com promoções e roque sob ataque")
+    void testPosition4() {
+        assertPerft(POSITION_4, 6, 264, 9_467);
+        assertPerft(POSITION_4_MIRRORED, 6, 264, 9_467);
+    }
+
+    @Test
+    @DisplayName("Teste de perft com promoção que dá xeque")
+    void testPosition5() {
+        assertPerft(POSITION_5, 44, 1_486, 62_379);
+    }
+
+    @Test
+    @DisplayName("Teste de divide: a soma por movimento da raiz é igual ao perft")
+    void testDivide() {
+        Board board = new Board();
+        Fen.load(board, KIWIPETE);
+        Map<String, Long> divide = new Perft(board).divide(2);
+
+        assertEquals(48, divide.size(), "Deve existir uma entrada por movimento legal");
+        assertEquals(2_039, divide.values().stream().mapToLong(Long::longValue).sum(), "A soma deve ser igual a perft(2)");
+        assertEquals(KIWIPETE, Fen.toFen(board), "O tabuleiro deve ficar na posição inicial");
+    }
+
+    @Test
+    @DisplayName("Teste de perft repartido pelos movimentos da raiz num ForkJoinPool")
+    void testParallelPerft() {
+        Board board = new Board();
+        Fen.load(board, KIWIPETE);
+        long zobristKey = board.getZobristKey();
+
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            assertEquals(97_862, new Perft(board).perft(3, pool), "O resultado deve ser igual ao de uma só thread");
+        }
+        assertEquals(zobristKey, board.getZobristKey(), "O tabuleiro original não deve ser alterado");
+    }
+
+    @Test
+    @DisplayName("Teste de leitura e escrita de FEN")
+    void testFenRoundTrip() {
+        Board board = new Board();
+        Fen.load(board, POSITION_4_MIRRORED);
+        assertEquals(POSITION_4_MIRRORED, Fen.toFen(board), "A posição escrita deve ser igual à lida");
+        assertEquals(board.computeZobristKey(), board.getZobristKey(), "A chave incremental deve ser igual à calculada");
+        assertThrows(IllegalArgumentException.class, () -> Fen.load(board, "8/8/8 w - - 0 1"), "Devem existir 8 filas");
+    }
+}
@@ -0,0 +1,63 @@
+import chess.core.GameManager;
+import chess.core.PieceColor;
+import chess.core.board.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para as fotografias imutáveis da posição.
+ */
+class PositionSnapshotTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Teste da fotografia: descreve a posição e não muda com o tabuleiro")
+    void testSnapshot() {
+        Board board = new Board();
+        Fen.load(board, KIWIPETE);
+        PositionSnapshot snapshot = board.snapshot();
+        assertEquals(KIWIPETE, snapshot.toFen());
+        assertEquals(Type.QUEEN, snapshot.getType(5, 5));
+        assertEquals(PieceColor.WHITE, snapshot.getColor(5, 5));
+        assertTrue(snapshot.isEmpty(4, 0));
+        assertEquals(board.getZobristKey(), snapshot.getZobristKey());
+
+        MoveList moves = new MoveList();
+        new RulesMaster(board).generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            assertEquals(board.computeZobristKey(), board.snapshot().toBoard().getZobristKey(), "A cópia a partir da fotografia tem a mesma posição");
+            board.unmakeMove();
+        }
+        assertEquals(KIWIPETE, snapshot.toFen(), "A fotografia não muda com o tabuleiro");
+    }
+
+    @Test
+    @DisplayName("Teste do histórico de fotografias publicado pelo GameManager")
+    void testGameHistory() {
+        GameManager game = new GameManager();
+        PositionSnapshot start = game.getSnapshot();
+        game.play("E2", "E4");
+        game.play("E7", "E5");
+        PositionSnapshot current = game.getSnapshot();
+        assertEquals(2, current.getPly());
+        assertEquals("E7E5", PackedMove.toString(current.getLastMove()));
+        assertSame(start, current.getRoot(), "As fotografias do jogo partilham a posição inicial");
+        assertEquals("E2E4", PackedMove.toString(current.getMove(0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> current.getMove(2));
+
+        game.undoMove();
+        assertEquals(1, game.getSnapshot().getPly());
+        assertEquals(current.getPreviousKey(), game.getSnapshot().getZobristKey(), "Desfazer volta à posição anterior");
+        assertEquals(PieceColor.BLACK, game.getSnapshot().getSideToMove());
+        game.play("D7", "D5");
+        assertEquals(Type.PAWN, current.getType(3, 4), "As fotografias antigas não mudam");
+        assertEquals("E7E5", PackedMove.toString(current.getMove(1)), "Nem os seus movimentos");
+
+        game.resetGame();
+        assertNotSame(start, game.getSnapshot().getRoot(), "Um jogo novo começa um histórico novo");
+        assertSame(game.getSnapshot(), game.getSnapshot().getRoot());
+    }
+}
@@ -45,6 +45,36 @@ class PositionTest {
         assertEquals(3, posD4.col, "Para 'D4', a coluna deve ser 3");
     }
 
+    // --- Testes para as fábricas partilhadas ---
+
+    @Test
+    @DisplayName("Teste de Position.of(int, int) devolver sempre a mesma instância")
+    void testOfIntIntIsInterned() {
+        Position pos = Position.of(4, 3); // D4
+        assertSame(pos, Position.of(4, 3), "A mesma casa deve devolver a mesma instância");
+        assertEquals(4, pos.row, "A linha deve ser 4 para D4");
+        assertEquals(3, pos.col, "A coluna deve ser 3 para D4");
+        assertEquals(new Position(4, 3), pos, "A instância partilhada deve ser igual a uma posição construída");
+    }
+
+    @Test
+    @DisplayName("Teste de Position.of(String) (ex: 'E4', 'e4')")
+    void testOfString() {
+        assertSame(Position.of(4, 4), Position.of("E4"), "'E4' deve corresponder à linha 4, coluna 4");
+        assertSame(Position.of("E4"), Position.of("e4"), "A letra da coluna não deve depender de maiúsculas");
+        assertSame(Position.of(7, 0), Position.of("A1"), "'A1' deve corresponder à linha 7, coluna 0");
+        assertSame(Position.of(0, 7), Position.of("H8"), "'H8' deve corresponder à linha 0, coluna 7");
+    }
+
+    @Test
+    @DisplayName("Teste de Position.of com casas fora do tabuleiro")
+    void testOfOutsideBoard() {
+        assertThrows(IllegalArgumentException.class, () -> Position.of(8, 0), "A linha 8 está fora do tabuleiro");
+        assertThrows(IllegalArgumentException.class, () -> Position.of(0, -1), "A coluna -1 está fora do tabuleiro");
+        assertThrows(IllegalArgumentException.class, () -> Position.of("I1"), "A coluna I não existe");
+        assertThrows(IllegalArgumentException.class, () -> Position.of("A9"), "A fila 9 não existe");
+    }
+
     // --- Testes para equals ---
 
     @Test
@@ -0,0 +1,143 @@
+import chess.core.GameManager;
+import chess.core.PieceColor;
+import chess.core.board.Bitboard;
+import chess.core.board.Board;
+import chess.core.board.Fen;
+import chess.core.board.PackedMove;
+import chess.core.board.Position;
+import chess.core.board.Type;
+import chess.engine.PawnHashTablePool;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para o motor de procura.
+ */
+class SearchTest {
+    @Test
+    @DisplayName("Teste de mate num lance")
+    void testMateInOne() {
+        Board board = new Board();
+        Fen.load(board, "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search(board).search(SearchLimits.depth(4));
+
+        assertEquals("A1A8", PackedMove.toString(result.move()), "A torre dá mate na última fila");
+        assertTrue(result.isMate(), "A avaliação deve ser de mate");
+        assertEquals(Search.MATE - 1, result.score());
+        assertEquals("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", Fen.toFen(board), "O tabuleiro deve ficar na posição inicial");
+    }
+
+    @Test
+    @DisplayName("Teste de captura da peça desprotegida")
+    void testWinsMaterial() {
+        Board board = new Board();
+        Fen.load(board, "4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        assertEquals("D2D5", PackedMove.toString(new Search(board).search(SearchLimits.depth(3)).move()));
+    }
+
+    @Test
+    @DisplayName("Teste da procura quiescente: não captura um peão defendido no horizonte")
+    void testQuiescence() {
+        Board board = new Board();
+        Fen.load(board, "4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1");
+        SearchResult result = new Search(board, new TranspositionTable(1)).search(SearchLimits.depth(1));
+        assertNotEquals("D2D5", PackedMove.toString(result.move()), "O peão de D5 está defendido pelo de C6");
+    }
+
+    @Test
+    @DisplayName("Teste dos limites de nós e de tempo")
+    void testLimits() {
+        Board board = new Board();
+        Fen.load(board, Fen.START_POSITION);
+
+        SearchResult byNodes = new Search(board).search(SearchLimits.nodes(5_000).withThreads(1));
+        assertTrue(byNodes.depth() >= 1, "A profundidade 1 é sempre concluída");
+        assertTrue(byNodes.nodes() <= 5_000 + 1, "A procura deve parar no limite de nós");
+
+        SearchResult byTime = new Search(board).search(SearchLimits.time(50));
+        assertNotEquals(PackedMove.NONE, byTime.move());
+        assertTrue(byTime.elapsedNanos() < 1_000_000_000L, "A procura deve parar perto do limite de tempo");
+        assertThrows(IllegalArgumentException.class, () -> SearchLimits.depth(0));
+    }
+
+    @Test
+    @DisplayName("Teste da ordenação dos movimentos: a maioria dos cortes é no primeiro movimento")
+    void testMoveOrdering() {
+        Board board = new Board();
+        Fen.load(board, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        SearchResult result = new Search(board, new TranspositionTable(1)).search(SearchLimits.depth(5).withThreads(1));
+
+        assertTrue(result.betaCutoffs() > 0);
+        assertTrue(result.firstMoveCutoffs() <= result.betaCutoffs());
+        assertTrue(result.firstMoveCutoffPercentage() > 80, "Cortes no primeiro movimento: " + result.firstMoveCutoffPercentage() + "%");
+    }
+
+    @Test
+    @DisplayName("Teste da procura com várias threads (Lazy SMP)")
+    void testParallelSearch() {
+        Board board = new Board();
+        Fen.load(board, "4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        long zobristKey = board.getZobristKey();
+
+        SearchResult result = new Search(board, new TranspositionTable(1)).search(SearchLimits.depth(5).withThreads(4));
+        assertEquals("D2D5", PackedMove.toString(result.move()));
+        assertEquals(5, result.depth(), "A profundidade reportada é a da thread principal");
+        assertEquals(zobristKey, board.getZobristKey(), "O tabuleiro original não deve ser alterado");
+
+        result = new Search(board).search(SearchLimits.time(100).withThreads(4));
+        assertTrue(result.elapsedNanos() < 1_000_000_000L, "As threads auxiliares devem parar com a principal");
+    }
+
+    @Test
+    @DisplayName("Teste de GameManager.playEngineMove para as duas cores")
+    void testPlayEngineMove() {
+        GameManager game = new GameManager();
+        game.playEngineMove(SearchLimits.depth(2));
+        assertEquals(PieceColor.BLACK, game.nextPlayer(), "O motor jogou pelas brancas");
+        game.playEngineMove(SearchLimits.depth(2));
+        assertEquals(PieceColor.WHITE, game.nextPlayer(), "O motor jogou pelas pretas");
+        assertFalse(game.isFinished());
+    }
+
+    @Test
+    @DisplayName("Teste das tabelas de peões devolvidas ao conjunto e reutilizadas entre procuras")
+    void testPawnTableReuse() {
+        Board board = new Board();
+        Fen.load(board, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        PawnHashTablePool pool = new PawnHashTablePool(64, 2);
+        Search first = new Search(board, new TranspositionTable(1), pool);
+        assertNull(first.getPawnHashTable(), "A tabela só é obtida na procura");
+        first.search(SearchLimits.depth(3).withThreads(1));
+        long probes = first.getPawnHashTable().getStatistics().probes();
+
+        Search second = new Search(board.copy(), new TranspositionTable(1), pool);
+        second.search(SearchLimits.depth(3).withThreads(1));
+        assertSame(first.getPawnHashTable(), second.getPawnHashTable(), "A segunda procura reutiliza a tabela devolvida");
+        assertTrue(second.getPawnHashTable().getStatistics().probes() > probes, "As estatísticas continuam as da primeira procura");
+
+        new Search(board.copy(), new TranspositionTable(1), pool).search(SearchLimits.depth(3).withThreads(4));
+        assertEquals(2, pool.idleTables(), "As tabelas a mais das threads auxiliares são descartadas");
+    }
+
+    @Test
+    @DisplayName("Teste das cópias do tabuleiro: a procura vê as repetições e o relógio dos 75 lances do jogo")
+    void testCopyKeepsRepetitions() {
+        GameManager game = new GameManager(null);
+        for (String[] move : new String[][]{{"G1", "F3"}, {"G8", "F6"}, {"F3", "G1"}, {"F6", "G8"}}) game.play(move[0], move[1]);
+
+        Board copy = game.copyBoard().copy(); // Como nas threads auxiliares
+        assertEquals(1, copy.getRepetitionCount(), "A posição inicial já ocorreu no jogo");
+        assertEquals(4, copy.getHalfmoveClock());
+        copy.makeMove(PackedMove.of(Bitboard.square(Position.of("G1")), Bitboard.square(Position.of("F3")), Type.KNIGHT));
+        assertEquals(1, copy.getRepetitionCount(), "Voltar a jogar Cf3 repete a posição do primeiro lance");
+        assertEquals(5, copy.getHalfmoveClock());
+        copy.makeMove(PackedMove.of(Bitboard.square(Position.of("E7")), Bitboard.square(Position.of("E5")), Type.PAWN));
+        assertEquals(0, copy.getHalfmoveClock(), "O movimento de peão recomeça a contagem");
+    }
+}
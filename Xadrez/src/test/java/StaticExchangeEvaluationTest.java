@@ -0,0 +1,45 @@
+import chess.core.board.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para a avaliação estática de trocas (RulesMaster.staticExchangeEvaluation).
+ */
+class StaticExchangeEvaluationTest {
+    /**
+     * Carrega a posição e devolve a avaliação da troca do movimento legal dado (ex: "E1E5").
+     */
+    private static int see(String fen, String move) {
+        Board board = new Board();
+        Fen.load(board, fen);
+        RulesMaster rulesMaster = new RulesMaster(board);
+        MoveList moves = new MoveList();
+        rulesMaster.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++)
+            if (PackedMove.toString(moves.get(i)).equals(move)) return rulesMaster.staticExchangeEvaluation(moves.get(i));
+        fail("O movimento " + move + " não é legal em " + fen);
+        return 0;
+    }
+
+    @Test
+    @DisplayName("Teste de capturas sem e com recaptura")
+    void testCaptures() {
+        assertEquals(100, see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "E1E5"), "O peão não está defendido");
+        assertEquals(100 - 320, see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "D3E5"),
+                "O cavalo perde-se pelo peão");
+        assertEquals(0, see("4k3/8/3p4/4p3/3P4/8/8/4K3 w - - 0 1", "D4E5"), "Peão por peão");
+    }
+
+    @Test
+    @DisplayName("Teste de raios X, do rei e de movimentos sem captura")
+    void testSpecialCases() {
+        // A torre de E1 apoia a de E2 através dela
+        assertEquals(500, see("4k3/8/8/4r3/8/8/4R3/4R1K1 w - - 0 1", "E2E5"));
+        // O rei não pode recapturar uma peça defendida
+        assertEquals(900, see("8/8/8/8/8/3k4/3q4/3RK3 w - - 0 1", "D1D2"), "O rei preto não pode recapturar na casa defendida pelo rei branco");
+        assertEquals(-900, see("4k3/8/8/8/2p5/8/8/3QK3 w - - 0 1", "D1D3"), "A rainha vai para uma casa atacada por um peão");
+        assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "E5D6"), "\"En passant\"");
+    }
+}
@@ -0,0 +1,80 @@
+import chess.core.board.PackedMove;
+import chess.core.board.Type;
+import chess.engine.TranspositionTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de testes JUnit para a tabela de transposição.
+ */
+class TranspositionTableTest {
+    @Test
+    @DisplayName("Teste de guardar e ler uma entrada")
+    void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.capture(12, 28, Type.QUEEN, Type.PAWN);
+        table.store(0x1234_5678_9ABC_DEF0L, move, -29_990, 7, TranspositionTable.LOWER_BOUND);
+
+        long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+        assertNotEquals(TranspositionTable.NO_ENTRY, entry);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-29_990, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(0x1234_5678_9ABC_DEF1L), "Outra chave no mesmo balde não é encontrada");
+    }
+
+    @Test
+    @DisplayName("Teste de substituição: fica a entrada mais profunda da procura atual")
+    void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long bucket = 0x0000_0005_0000_0000L; // Mesmos bits altos: mesmo balde
+        table.store(bucket | 1, PackedMove.NONE, 0, 10, TranspositionTable.EXACT);
+        table.store(bucket | 2, PackedMove.NONE, 0, 2, TranspositionTable.EXACT);
+        table.store(bucket | 3, PackedMove.NONE, 0, 5, TranspositionTable.EXACT);
+
+        assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(bucket | 1), "A entrada mais profunda fica");
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(bucket | 2), "A entrada menos profunda é substituída");
+        assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(bucket | 3));
+
+        table.newSearch();
+        table.newSearch();
+        table.newSearch();
+        table.store(bucket | 4, PackedMove.NONE, 0, 1, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(bucket | 3), "As entradas antigas são substituídas primeiro");
+    }
+
+    @Test
+    @DisplayName("Teste das estatísticas de sucessos, colisões e ocupação")
+    void testStatistics() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42L << 32, PackedMove.NONE, 0, 1, TranspositionTable.EXACT);
+        table.probe(42L << 32);
+        table.probe((42L << 32) | 1);
+        table.probe(43L << 32);
+
+        TranspositionTable.Statistics statistics = table.getStatistics();
+        assertEquals(3, statistics.probes());
+        assertEquals(1, statistics.hits());
+        assertEquals(1, statistics.collisions(), "Só a segunda consulta encontrou o balde ocupado");
+        assertTrue(statistics.fillPercentage() > 0);
+
+        table.clear();
+        assertEquals(0, table.getStatistics().probes());
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(42L << 32));
+    }
+
+    @Test
+    @DisplayName("Teste dos limites do tamanho: o maior cabe num array indexado com int")
+    void testSizeLimits() {
+        assertEquals(1 << 16, TranspositionTable.capacityFor(1));
+        assertEquals(new TranspositionTable(3).capacity(), TranspositionTable.capacityFor(3));
+        assertEquals(1 << 29, TranspositionTable.capacityFor(TranspositionTable.MAX_MEGABYTES));
+        assertTrue(2L * TranspositionTable.capacityFor(TranspositionTable.MAX_MEGABYTES) <= Integer.MAX_VALUE - 8);
+        assertThrows(IllegalArgumentException.class, () -> TranspositionTable.capacityFor(TranspositionTable.MAX_MEGABYTES + 1));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(16_384));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+}